@@ -0,0 +1,151 @@
+package com.demo2do.core.redis.benchmark;
+
+import com.demo2do.core.redis.InMemoryRedisOperations;
+import com.demo2do.core.redis.JedisTemplate;
+import com.demo2do.core.redis.JedisTemplate.JedisPipelineAction;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of {@link JedisTemplate#execute} over raw Jedis, against {@link StandInRedisServer}
+ * <p/>
+ * Single command, 100 commands one by one versus pipelined, and 16 threads contending for the pool.
+ * {@link InMemoryRedisOperations} is measured as the floor without network.
+ *
+ * @author David
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JedisTemplateBenchmark {
+
+    private static final String KEY = "benchmark:key";
+
+    private static final String VALUE = "benchmark-value";
+
+    private static final int BATCH = 100;
+
+    @Param({"8"})
+    public int poolSize;
+
+    private StandInRedisServer server;
+
+    private JedisPool jedisPool;
+
+    private JedisTemplate jedisTemplate;
+
+    private InMemoryRedisOperations inMemoryRedisOperations;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new StandInRedisServer();
+        server.start();
+
+        GenericObjectPoolConfig config = new GenericObjectPoolConfig();
+        config.setMaxTotal(poolSize);
+        config.setMaxIdle(poolSize);
+        jedisPool = new JedisPool(config, "127.0.0.1", server.getPort());
+
+        jedisTemplate = new JedisTemplate(jedisPool);
+        jedisTemplate.set(KEY, VALUE);
+
+        inMemoryRedisOperations = new InMemoryRedisOperations();
+        inMemoryRedisOperations.set(KEY, VALUE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jedisPool.destroy();
+        server.stop();
+    }
+
+    @Benchmark
+    public String rawJedisGet() {
+        Jedis jedis = jedisPool.getResource();
+        try {
+            return jedis.get(KEY);
+        } finally {
+            jedisPool.returnResource(jedis);
+        }
+    }
+
+    @Benchmark
+    public String templateGet() {
+        return jedisTemplate.get(KEY);
+    }
+
+    @Benchmark
+    public String inMemoryGet() {
+        return inMemoryRedisOperations.get(KEY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public String templateGetOneByOne() {
+        String value = null;
+        for (int i = 0; i < BATCH; i++) {
+            value = jedisTemplate.get(KEY);
+        }
+        return value;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Object> templateGetPipelined() {
+        return jedisTemplate.executePipelined(new JedisPipelineAction() {
+            public void action(Pipeline pipeline) {
+                for (int i = 0; i < BATCH; i++) {
+                    pipeline.get(KEY);
+                }
+            }
+        });
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String templateGetContended() {
+        return jedisTemplate.get(KEY);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Long templateIncrContended() {
+        return jedisTemplate.incr(KEY + ":counter");
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String inMemoryGetContended() {
+        return inMemoryRedisOperations.get(KEY);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Long inMemoryIncrContended() {
+        return inMemoryRedisOperations.incr(KEY + ":counter");
+    }
+
+}
@@ -0,0 +1,202 @@
+package com.demo2do.core.redis.benchmark;
+
+import com.demo2do.core.redis.codec.CompressingRedisCodec;
+import com.demo2do.core.redis.codec.DeflateCompressor;
+import com.demo2do.core.redis.codec.JsonRedisCodec;
+import com.demo2do.core.redis.codec.RedisCodec;
+import com.demo2do.core.utils.JsonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding cost of the values stored by {@link com.demo2do.core.redis.GenericRedisSupport}
+ * <p/>
+ * Json as string (the former path), json as bytes and json with compression,
+ * for a small value and a value above the default compression threshold.
+ *
+ * @author David
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisCodecBenchmark {
+
+    @Param({"1", "50"})
+    public int itemCount;
+
+    private final RedisCodec jsonCodec = new JsonRedisCodec();
+
+    private final RedisCodec compressingCodec = new CompressingRedisCodec(new JsonRedisCodec(), new DeflateCompressor());
+
+    private Order order;
+
+    private byte[] jsonBytes;
+
+    private byte[] compressedBytes;
+
+    @Setup
+    public void setUp() {
+        order = Order.sample(itemCount);
+        jsonBytes = jsonCodec.encode(order);
+        compressedBytes = compressingCodec.encode(order);
+    }
+
+    @Benchmark
+    public byte[] jsonStringEncode() {
+        return SafeEncoder.encode(JsonUtils.toJsonString(order));
+    }
+
+    @Benchmark
+    public Order jsonStringDecode() {
+        return JsonUtils.parse(SafeEncoder.encode(jsonBytes), Order.class);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() {
+        return jsonCodec.encode(order);
+    }
+
+    @Benchmark
+    public Order jsonDecode() {
+        return jsonCodec.decode(jsonBytes, Order.class);
+    }
+
+    @Benchmark
+    public byte[] compressingEncode() {
+        return compressingCodec.encode(order);
+    }
+
+    @Benchmark
+    public Order compressingDecode() {
+        return compressingCodec.decode(compressedBytes, Order.class);
+    }
+
+    /**
+     * Sample value with nested items
+     */
+    public static class Order {
+
+        private long id;
+
+        private String customer;
+
+        private Date createTime;
+
+        private List<Item> items;
+
+        static Order sample(int itemCount) {
+            Order order = new Order();
+            order.setId(20140301L);
+            order.setCustomer("customer@demo2do.com");
+            order.setCreateTime(new Date(1393632000000L));
+            List<Item> items = new ArrayList<Item>(itemCount);
+            for (int i = 0; i < itemCount; i++) {
+                Item item = new Item();
+                item.setSku("SKU-" + i);
+                item.setName("Item name of sku " + i);
+                item.setQuantity(i % 5 + 1);
+                item.setPrice(99.5 + i);
+                items.add(item);
+            }
+            order.setItems(items);
+            return order;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getCustomer() {
+            return customer;
+        }
+
+        public void setCustomer(String customer) {
+            this.customer = customer;
+        }
+
+        public Date getCreateTime() {
+            return createTime;
+        }
+
+        public void setCreateTime(Date createTime) {
+            this.createTime = createTime;
+        }
+
+        public List<Item> getItems() {
+            return items;
+        }
+
+        public void setItems(List<Item> items) {
+            this.items = items;
+        }
+    }
+
+    /**
+     * Item of sample value
+     */
+    public static class Item {
+
+        private String sku;
+
+        private String name;
+
+        private int quantity;
+
+        private double price;
+
+        public String getSku() {
+            return sku;
+        }
+
+        public void setSku(String sku) {
+            this.sku = sku;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+
+        public double getPrice() {
+            return price;
+        }
+
+        public void setPrice(double price) {
+            this.price = price;
+        }
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.demo2do.core.redis.benchmark;
+
+import com.demo2do.core.redis.RedisKeyBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.clients.util.SafeEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building namespaced keys with {@link RedisKeyBuilder}, against concatenating and encoding
+ *
+ * @author David
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisKeyBuilderBenchmark {
+
+    private static final String NAMESPACE = "web-root";
+
+    private final RedisKeyBuilder keyBuilder = new RedisKeyBuilder(NAMESPACE);
+
+    public String type = "user";
+
+    public long id = 1234567L;
+
+    public String key = "user:1234567";
+
+    @Benchmark
+    public byte[] concatAndEncode() {
+        return SafeEncoder.encode(NAMESPACE + ":" + key);
+    }
+
+    @Benchmark
+    public String build() {
+        return keyBuilder.build(key);
+    }
+
+    @Benchmark
+    public byte[] buildBinary() {
+        return keyBuilder.buildBinary(key);
+    }
+
+    @Benchmark
+    public byte[] buildBinaryStructured() {
+        return keyBuilder.buildBinary(type, id);
+    }
+
+}
@@ -0,0 +1,230 @@
+package com.demo2do.core.redis.benchmark;
+
+import com.demo2do.core.redis.InMemoryRedisOperations;
+import redis.clients.util.SafeEncoder;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Minimal redis protocol server on the loopback interface, backed by {@link InMemoryRedisOperations}
+ * <p/>
+ * Only PING, GET, SET, DEL, INCR and QUIT are served, which is enough to measure the client side cost
+ * of Jedis and {@link com.demo2do.core.redis.JedisTemplate} without the noise of a real server.
+ * Replies are flushed once no more pipelined commands are buffered.
+ *
+ * @author David
+ */
+public class StandInRedisServer {
+
+    private static final byte[] CRLF = new byte[]{'\r', '\n'};
+
+    private final InMemoryRedisOperations redisOperations = new InMemoryRedisOperations();
+
+    private final ServerSocket serverSocket;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "stand-in-redis");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * Bind to an ephemeral port of the loopback interface
+     *
+     * @throws IOException if failed to bind
+     */
+    public StandInRedisServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * @return the port bound
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Start accepting connections
+     */
+    public void start() {
+        executor.execute(new Runnable() {
+            public void run() {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        final Socket socket = serverSocket.accept();
+                        socket.setTcpNoDelay(true);
+                        executor.execute(new Runnable() {
+                            public void run() {
+                                serve(socket);
+                            }
+                        });
+                    } catch (IOException e) {
+                        // closed by stop
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Stop accepting connections and close the connected ones
+     */
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // ignore
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Serve the commands of one connection until QUIT or disconnected
+     *
+     * @param socket the connection
+     */
+    private void serve(Socket socket) {
+        try {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            while (true) {
+                List<String> command = readCommand(in);
+                if (command == null) {
+                    break;
+                }
+                boolean quit = reply(command, out);
+                if (quit || in.available() == 0) {
+                    out.flush();
+                }
+                if (quit) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // disconnected
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // ignore
+            }
+        }
+    }
+
+    /**
+     * Execute the command and write its reply
+     *
+     * @param command the command name and arguments
+     * @param out     the output
+     * @return true if the connection should be closed
+     * @throws IOException if failed to write
+     */
+    private boolean reply(List<String> command, OutputStream out) throws IOException {
+        String name = command.get(0).toUpperCase();
+        if ("GET".equals(name)) {
+            writeBulk(out, redisOperations.get(command.get(1)));
+        } else if ("SET".equals(name)) {
+            redisOperations.set(command.get(1), command.get(2));
+            writeLine(out, "+OK");
+        } else if ("DEL".equals(name)) {
+            long count = 0;
+            for (String key : command.subList(1, command.size())) {
+                count += redisOperations.del(key) ? 1 : 0;
+            }
+            writeLine(out, ":" + count);
+        } else if ("INCR".equals(name)) {
+            writeLine(out, ":" + redisOperations.incr(command.get(1)));
+        } else if ("PING".equals(name)) {
+            writeLine(out, "+PONG");
+        } else if ("QUIT".equals(name)) {
+            writeLine(out, "+OK");
+            return true;
+        } else {
+            writeLine(out, "-ERR unknown command '" + command.get(0) + "'");
+        }
+        return false;
+    }
+
+    /**
+     * Read a command sent as array of bulk strings
+     *
+     * @param in the input
+     * @return the command name and arguments, or null if disconnected
+     * @throws IOException if failed to read
+     */
+    private static List<String> readCommand(InputStream in) throws IOException {
+        int type = in.read();
+        if (type == -1) {
+            return null;
+        }
+        if (type != '*') {
+            throw new IOException("Unexpected type " + (char) type);
+        }
+        int count = readInt(in);
+        List<String> command = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Bulk string expected");
+            }
+            byte[] bytes = new byte[readInt(in)];
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = in.read(bytes, offset, bytes.length - offset);
+                if (read == -1) {
+                    throw new EOFException();
+                }
+                offset += read;
+            }
+            in.read();
+            in.read();
+            command.add(SafeEncoder.encode(bytes));
+        }
+        return command;
+    }
+
+    private static int readInt(InputStream in) throws IOException {
+        int value = 0;
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b == -1) {
+                throw new EOFException();
+            }
+            value = value * 10 + (b - '0');
+        }
+        in.read();
+        return value;
+    }
+
+    private static void writeLine(OutputStream out, String line) throws IOException {
+        out.write(SafeEncoder.encode(line));
+        out.write(CRLF);
+    }
+
+    private static void writeBulk(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeLine(out, "$-1");
+            return;
+        }
+        byte[] bytes = SafeEncoder.encode(value);
+        writeLine(out, "$" + bytes.length);
+        out.write(bytes);
+        out.write(CRLF);
+    }
+
+}
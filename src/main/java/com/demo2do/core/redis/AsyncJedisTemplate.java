@@ -0,0 +1,464 @@
+package com.demo2do.core.redis;
+
+import com.demo2do.core.redis.JedisTemplate.JedisAction;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureTask;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous facade of {@link JedisTemplate}, every operation is executed on a bounded
+ * executor and returns a future, so that independent reads can be issued concurrently.
+ * <p/>
+ * The executor should be sized to the jedis pool. When all the threads are busy and the
+ * queue is full, the operation is executed by the calling thread, which slows down the
+ * caller instead of piling up more requests on a saturated pool. Once destroyed, operations
+ * are rejected by {@link RejectedExecutionException} rather than left uncompleted.
+ *
+ * @author David
+ */
+public class AsyncJedisTemplate {
+
+    private final JedisTemplate jedisTemplate;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * The constructor using jedis template and executor size
+     *
+     * @param jedisTemplate the jedis template
+     * @param poolSize      the count of threads, usually the max total of jedis pool
+     * @param queueCapacity the max count of operations waiting for a thread
+     */
+    public AsyncJedisTemplate(JedisTemplate jedisTemplate, int poolSize, int queueCapacity) {
+        this.jedisTemplate = jedisTemplate;
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new AsyncThreadFactory(),
+                new CallerRunsUnlessShutdownPolicy());
+    }
+
+    /**
+     * Shutdown the executor, the operations queued before are still executed while the new
+     * ones are rejected
+     */
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    /**
+     * @return the jedis template
+     */
+    public JedisTemplate getJedisTemplate() {
+        return jedisTemplate;
+    }
+
+    /**
+     * Submit a task to the executor
+     *
+     * @param callable the task
+     * @return the future of result
+     * @throws RejectedExecutionException if this template is destroyed
+     */
+    public <T> ListenableFuture<T> submit(Callable<T> callable) {
+        ListenableFutureTask<T> future = new ListenableFutureTask<T>(callable);
+        executor.execute(future);
+        return future;
+    }
+
+    /**
+     * Template execute method asynchronously
+     *
+     * @param jedisAction The Jedis action
+     * @return the future of result
+     */
+    public <T> ListenableFuture<T> execute(final JedisAction<T> jedisAction) {
+        return submit(new Callable<T>() {
+
+            @Override
+            public T call() throws Exception {
+                return jedisTemplate.execute(jedisAction);
+            }
+        });
+    }
+
+    /**
+     * get value of key asynchronously
+     *
+     * @param key the key
+     * @return the future of result
+     */
+    public ListenableFuture<String> get(final String key) {
+        return submit(new Callable<String>() {
+
+            @Override
+            public String call() throws Exception {
+                return jedisTemplate.get(key);
+            }
+        });
+    }
+
+    /**
+     * set key/value asynchronously
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the future of result
+     */
+    public ListenableFuture<Void> set(final String key, final String value) {
+        return submit(new Callable<Void>() {
+
+            @Override
+            public Void call() throws Exception {
+                jedisTemplate.set(key, value);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * set key/value with expire seconds asynchronously
+     *
+     * @param key     the key
+     * @param value   the value
+     * @param seconds the seconds
+     * @return the future of result
+     */
+    public ListenableFuture<Void> setex(final String key, final String value, final int seconds) {
+        return submit(new Callable<Void>() {
+
+            @Override
+            public Void call() throws Exception {
+                jedisTemplate.setex(key, value, seconds);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * delete keys asynchronously
+     *
+     * @param keys the keys
+     * @return the future of result
+     */
+    public ListenableFuture<Boolean> del(final String... keys) {
+        return submit(new Callable<Boolean>() {
+
+            @Override
+            public Boolean call() throws Exception {
+                return jedisTemplate.del(keys);
+            }
+        });
+    }
+
+    /**
+     * increase key count asynchronously
+     *
+     * @param key the key
+     * @return the future of result
+     */
+    public ListenableFuture<Long> incr(final String key) {
+        return submit(new Callable<Long>() {
+
+            @Override
+            public Long call() throws Exception {
+                return jedisTemplate.incr(key);
+            }
+        });
+    }
+
+    /**
+     * decrease key count asynchronously
+     *
+     * @param key the key
+     * @return the future of result
+     */
+    public ListenableFuture<Long> decr(final String key) {
+        return submit(new Callable<Long>() {
+
+            @Override
+            public Long call() throws Exception {
+                return jedisTemplate.decr(key);
+            }
+        });
+    }
+
+    /**
+     * push values to list asynchronously
+     *
+     * @param key    the key
+     * @param values the values
+     * @return the future of result
+     */
+    public ListenableFuture<Void> lpush(final String key, final String... values) {
+        return submit(new Callable<Void>() {
+
+            @Override
+            public Void call() throws Exception {
+                jedisTemplate.lpush(key, values);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * pop value from list asynchronously
+     *
+     * @param key the key
+     * @return the future of result
+     */
+    public ListenableFuture<String> rpop(final String key) {
+        return submit(new Callable<String>() {
+
+            @Override
+            public String call() throws Exception {
+                return jedisTemplate.rpop(key);
+            }
+        });
+    }
+
+    /**
+     * return the length of list asynchronously
+     *
+     * @param key the key
+     * @return the future of result
+     */
+    public ListenableFuture<Long> llen(final String key) {
+        return submit(new Callable<Long>() {
+
+            @Override
+            public Long call() throws Exception {
+                return jedisTemplate.llen(key);
+            }
+        });
+    }
+
+    /**
+     * add members to set asynchronously
+     *
+     * @param key     the key
+     * @param members the members
+     * @return the future of result
+     */
+    public ListenableFuture<Boolean> sadd(final String key, final String... members) {
+        return submit(new Callable<Boolean>() {
+
+            @Override
+            public Boolean call() throws Exception {
+                return jedisTemplate.sadd(key, members);
+            }
+        });
+    }
+
+    /**
+     * remove members from set asynchronously
+     *
+     * @param key     the key
+     * @param members the members
+     * @return the future of result
+     */
+    public ListenableFuture<Boolean> srem(final String key, final String... members) {
+        return submit(new Callable<Boolean>() {
+
+            @Override
+            public Boolean call() throws Exception {
+                return jedisTemplate.srem(key, members);
+            }
+        });
+    }
+
+    /**
+     * determine the member is in set asynchronously
+     *
+     * @param key    the key
+     * @param member the member
+     * @return the future of result
+     */
+    public ListenableFuture<Boolean> sismember(final String key, final String member) {
+        return submit(new Callable<Boolean>() {
+
+            @Override
+            public Boolean call() throws Exception {
+                return jedisTemplate.sismember(key, member);
+            }
+        });
+    }
+
+    /**
+     * return the size of set asynchronously
+     *
+     * @param key the key
+     * @return the future of result
+     */
+    public ListenableFuture<Long> scard(final String key) {
+        return submit(new Callable<Long>() {
+
+            @Override
+            public Long call() throws Exception {
+                return jedisTemplate.scard(key);
+            }
+        });
+    }
+
+    /**
+     * return all the members of set asynchronously
+     *
+     * @param key the key
+     * @return the future of result
+     */
+    public ListenableFuture<Set<String>> smembers(final String key) {
+        return submit(new Callable<Set<String>>() {
+
+            @Override
+            public Set<String> call() throws Exception {
+                return jedisTemplate.smembers(key);
+            }
+        });
+    }
+
+    /**
+     * add member to sorted set asynchronously
+     *
+     * @param key    the key
+     * @param member the member
+     * @param score  the score
+     * @return the future of result
+     */
+    public ListenableFuture<Boolean> zadd(final String key, final String member, final double score) {
+        return submit(new Callable<Boolean>() {
+
+            @Override
+            public Boolean call() throws Exception {
+                return jedisTemplate.zadd(key, member, score);
+            }
+        });
+    }
+
+    /**
+     * return the sorted set by index and ordered asce asynchronously
+     *
+     * @param key   the key
+     * @param start the start
+     * @param end   the end
+     * @return the future of result
+     */
+    public ListenableFuture<Set<String>> zrange(final String key, final int start, final int end) {
+        return submit(new Callable<Set<String>>() {
+
+            @Override
+            public Set<String> call() throws Exception {
+                return jedisTemplate.zrange(key, start, end);
+            }
+        });
+    }
+
+    /**
+     * return the sorted set by index and ordered desc asynchronously
+     *
+     * @param key   the key
+     * @param start the start
+     * @param end   the end
+     * @return the future of result
+     */
+    public ListenableFuture<Set<String>> zrevrange(final String key, final int start, final int end) {
+        return submit(new Callable<Set<String>>() {
+
+            @Override
+            public Set<String> call() throws Exception {
+                return jedisTemplate.zrevrange(key, start, end);
+            }
+        });
+    }
+
+    /**
+     * return the score of member in sorted set asynchronously
+     *
+     * @param key    the key
+     * @param member the member
+     * @return the future of result
+     */
+    public ListenableFuture<Double> zscore(final String key, final String member) {
+        return submit(new Callable<Double>() {
+
+            @Override
+            public Double call() throws Exception {
+                return jedisTemplate.zscore(key, member);
+            }
+        });
+    }
+
+    /**
+     * return the size of sorted set asynchronously
+     *
+     * @param key the key
+     * @return the future of result
+     */
+    public ListenableFuture<Long> zcard(final String key) {
+        return submit(new Callable<Long>() {
+
+            @Override
+            public Long call() throws Exception {
+                return jedisTemplate.zcard(key);
+            }
+        });
+    }
+
+    /**
+     * set key expire in given seconds time asynchronously
+     *
+     * @param key     the key
+     * @param seconds the seconds
+     * @return the future of result
+     */
+    public ListenableFuture<Long> expire(final String key, final int seconds) {
+        return submit(new Callable<Long>() {
+
+            @Override
+            public Long call() throws Exception {
+                return jedisTemplate.expire(key, seconds);
+            }
+        });
+    }
+
+    /**
+     * Thread factory creating daemon threads for asynchronous operations
+     */
+    private static class AsyncThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        /* (non-Javadoc)
+         * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+         */
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jedis-async-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Rejection policy executing the operation by the calling thread when the executor is
+     * saturated, and throwing when it is shutdown so that the future never hangs
+     */
+    private static class CallerRunsUnlessShutdownPolicy implements RejectedExecutionHandler {
+
+        /* (non-Javadoc)
+         * @see java.util.concurrent.RejectedExecutionHandler#rejectedExecution(java.lang.Runnable, java.util.concurrent.ThreadPoolExecutor)
+         */
+        public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new RejectedExecutionException("Async jedis template is destroyed.");
+            }
+            runnable.run();
+        }
+    }
+
+}
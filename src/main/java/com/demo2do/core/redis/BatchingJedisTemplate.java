@@ -0,0 +1,426 @@
+package com.demo2do.core.redis;
+
+import com.demo2do.core.redis.JedisTemplate.JedisActionNoResult;
+import com.demo2do.core.redis.codec.DeflateCompressor;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureTask;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.Pool;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Auto batching layer of {@link JedisTemplate} get/set, which coalesces the single key
+ * operations of concurrent callers into one MGET and one MSET
+ * <p/>
+ * An operation waits in queue until the batch window elapses or the batch is full, then the
+ * whole batch is sent on one borrowed connection per shard in one round trip, and the future
+ * of each caller is completed with its own result. Operations of the same key are applied
+ * in the order they are enqueued: a get is never answered by a set enqueued after it.
+ *
+ * @author David
+ */
+public class BatchingJedisTemplate {
+
+    private static final Log logger = LogFactory.getLog(BatchingJedisTemplate.class);
+
+    private final JedisTemplate jedisTemplate;
+
+    private final BlockingQueue<Operation> queue = new LinkedBlockingQueue<Operation>();
+
+    private long windowNanos = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private int maxBatchSize = 100;
+
+    private final Object lock = new Object();
+
+    private volatile boolean running = true;
+
+    private final Thread flusher;
+
+    /**
+     * The constructor using jedis template
+     *
+     * @param jedisTemplate the jedis template
+     */
+    public BatchingJedisTemplate(JedisTemplate jedisTemplate) {
+        this.jedisTemplate = jedisTemplate;
+        this.flusher = new Thread(new FlushTask(), "jedis-batch-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * @param windowMicros the max time in microseconds an operation waits for other operations to join its batch
+     */
+    public void setWindowMicros(long windowMicros) {
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+    }
+
+    /**
+     * @param maxBatchSize the max count of operations in one batch
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Stop the flusher, the operations still in queue are failed
+     */
+    public void destroy() {
+        synchronized (lock) {
+            running = false;
+        }
+        flusher.interrupt();
+        List<Operation> remaining = new ArrayList<Operation>();
+        queue.drainTo(remaining);
+        for (Operation operation : remaining) {
+            operation.fail(new JedisException("Batching jedis template is destroyed."));
+        }
+    }
+
+    /**
+     * 如果key不存在, 返回null. 在批次中以MGET执行。
+     *
+     * @param key the key
+     * @return the future of value
+     */
+    public ListenableFuture<String> getAsync(String key) {
+        return enqueue(new Operation(key, null));
+    }
+
+    /**
+     * 设置key/value, 在批次中以MSET执行。
+     *
+     * @param key   the key to set
+     * @param value the value to set
+     * @return the future completed when the value is set
+     */
+    public ListenableFuture<String> setAsync(String key, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value must not be null.");
+        }
+        // the batch is written by the flusher, the read-your-writes window belongs to the caller
+        jedisTemplate.markWritten();
+        return enqueue(new Operation(key, value));
+    }
+
+    /**
+     * 如果key不存在, 返回null. 等待所在批次执行完成。
+     *
+     * @param key the key
+     */
+    public String get(String key) {
+        return await(getAsync(key));
+    }
+
+    /**
+     * 设置key/value, 等待所在批次执行完成。
+     *
+     * @param key   the key to set
+     * @param value the value to set
+     */
+    public void set(String key, String value) {
+        await(setAsync(key, value));
+    }
+
+    /**
+     * Put the operation into queue
+     *
+     * @param operation the operation
+     * @return the future of operation
+     */
+    private ListenableFuture<String> enqueue(Operation operation) {
+        synchronized (lock) {
+            // checked under lock, so nothing is added after destroy drains the queue
+            if (!running) {
+                throw new JedisException("Batching jedis template is destroyed.");
+            }
+            queue.add(operation);
+        }
+        return operation.future;
+    }
+
+    /**
+     * Wait for the result of future
+     *
+     * @param future the future
+     * @return the result
+     */
+    private static String await(ListenableFuture<String> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JedisException("Interrupted while waiting for batched operation.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new JedisException(e.getCause());
+        }
+    }
+
+    /**
+     * Execute a batch of operations, grouped by the pool every key is routed to
+     *
+     * @param batch the operations
+     */
+    private void flush(List<Operation> batch) {
+        Map<Pool<Jedis>, List<Operation>> groups = new LinkedHashMap<Pool<Jedis>, List<Operation>>();
+        for (Operation operation : batch) {
+            Pool<Jedis> pool = jedisTemplate.getPool(operation.key);
+            List<Operation> group = groups.get(pool);
+            if (group == null) {
+                group = new ArrayList<Operation>();
+                groups.put(pool, group);
+            }
+            group.add(operation);
+        }
+        for (Map.Entry<Pool<Jedis>, List<Operation>> entry : groups.entrySet()) {
+            try {
+                flush(entry.getKey(), entry.getValue());
+            } catch (RuntimeException e) {
+                for (Operation operation : entry.getValue()) {
+                    operation.fail(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Execute the operations of one pool with MSETs and MGETs in one round trip
+     *
+     * @param pool       the pool
+     * @param operations the operations
+     */
+    private void flush(Pool<Jedis> pool, List<Operation> operations) {
+        final List<Segment> segments = new ArrayList<Segment>();
+        Segment segment = new Segment();
+        segments.add(segment);
+        final List<String> setKeys = new ArrayList<String>();
+        for (Operation operation : operations) {
+            if (operation.value != null) {
+                if (segment.gets.containsKey(operation.key)) {
+                    // the get enqueued before must not see this set
+                    segment = new Segment();
+                    segments.add(segment);
+                }
+                segment.keysValues.add(operation.key);
+                segment.keysValues.add(operation.value);
+                setKeys.add(operation.key);
+            } else {
+                segment.addGet(operation);
+            }
+        }
+
+        jedisTemplate.execute("batch", pool, new JedisActionNoResult() {
+
+            @Override
+            public void action(Jedis jedis) {
+                DeflateCompressor compressor = jedisTemplate.getCompressor();
+                Pipeline pipeline = jedis.pipelined();
+                for (Segment segment : segments) {
+                    segment.queue(pipeline, compressor);
+                }
+                pipeline.sync();
+            }
+        });
+
+        if (!setKeys.isEmpty()) {
+            jedisTemplate.invalidate(setKeys.toArray(new String[setKeys.size()]));
+        }
+        for (Operation operation : operations) {
+            if (operation.value != null) {
+                operation.complete(null);
+            }
+        }
+        DeflateCompressor compressor = jedisTemplate.getCompressor();
+        for (Segment each : segments) {
+            each.complete(compressor);
+        }
+    }
+
+    /**
+     * Sets followed by gets of one batch, applied as one MSET and one MGET
+     * <p/>
+     * A set of a key already got in the segment starts a new segment, so that every get
+     * sees only the sets enqueued before it.
+     */
+    private static class Segment {
+
+        private final List<String> keysValues = new ArrayList<String>();
+
+        private final Map<String, List<Operation>> gets = new LinkedHashMap<String, List<Operation>>();
+
+        private Response<List<String>> response;
+
+        private Response<List<byte[]>> binaryResponse;
+
+        private void addGet(Operation operation) {
+            List<Operation> sameKey = gets.get(operation.key);
+            if (sameKey == null) {
+                sameKey = new ArrayList<Operation>(1);
+                gets.put(operation.key, sameKey);
+            }
+            sameKey.add(operation);
+        }
+
+        /**
+         * Queue the MSET and MGET of segment into pipeline, values are compressed if the
+         * template compresses values
+         *
+         * @param pipeline   the pipeline
+         * @param compressor the compressor of template, or null
+         */
+        private void queue(Pipeline pipeline, DeflateCompressor compressor) {
+            if (compressor == null) {
+                if (!keysValues.isEmpty()) {
+                    pipeline.mset(keysValues.toArray(new String[keysValues.size()]));
+                }
+                if (!gets.isEmpty()) {
+                    response = pipeline.mget(gets.keySet().toArray(new String[gets.size()]));
+                }
+                return;
+            }
+            if (!keysValues.isEmpty()) {
+                byte[][] binaryKeysValues = new byte[keysValues.size()][];
+                for (int i = 0; i < binaryKeysValues.length; i++) {
+                    byte[] bytes = SafeEncoder.encode(keysValues.get(i));
+                    binaryKeysValues[i] = i % 2 == 0 ? bytes : compressor.compress(bytes);
+                }
+                pipeline.mset(binaryKeysValues);
+            }
+            if (!gets.isEmpty()) {
+                byte[][] binaryKeys = new byte[gets.size()][];
+                int index = 0;
+                for (String key : gets.keySet()) {
+                    binaryKeys[index++] = SafeEncoder.encode(key);
+                }
+                binaryResponse = pipeline.mget(binaryKeys);
+            }
+        }
+
+        /**
+         * Complete the gets of segment with the values replied
+         *
+         * @param compressor the compressor of template, or null
+         */
+        private void complete(DeflateCompressor compressor) {
+            if (gets.isEmpty()) {
+                return;
+            }
+            List<String> values;
+            if (compressor == null) {
+                values = response.get();
+            } else {
+                values = new ArrayList<String>(gets.size());
+                for (byte[] value : binaryResponse.get()) {
+                    values.add(value == null ? null : SafeEncoder.encode(compressor.decompress(value)));
+                }
+            }
+            int index = 0;
+            for (List<Operation> sameKey : gets.values()) {
+                String value = values.get(index++);
+                for (Operation operation : sameKey) {
+                    operation.complete(value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Single key get or set operation waiting to be batched
+     */
+    private static class Operation {
+
+        private final String key;
+
+        private final String value;
+
+        private String result;
+
+        private RuntimeException error;
+
+        private final ListenableFutureTask<String> future = new ListenableFutureTask<String>(new Callable<String>() {
+
+            @Override
+            public String call() throws Exception {
+                if (error != null) {
+                    throw error;
+                }
+                return result;
+            }
+        });
+
+        private Operation(String key, String value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        private void complete(String result) {
+            this.result = result;
+            future.run();
+        }
+
+        private void fail(RuntimeException error) {
+            this.error = error;
+            future.run();
+        }
+    }
+
+    /**
+     * Task collecting operations into batches and flushing them
+     */
+    private class FlushTask implements Runnable {
+
+        /* (non-Javadoc)
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+            while (running) {
+                List<Operation> batch = new ArrayList<Operation>(maxBatchSize);
+                try {
+                    batch.add(queue.take());
+                    long deadline = System.nanoTime() + windowNanos;
+                    while (batch.size() < maxBatchSize) {
+                        long remaining = deadline - System.nanoTime();
+                        Operation operation = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                        if (operation == null) {
+                            break;
+                        }
+                        batch.add(operation);
+                    }
+                } catch (InterruptedException e) {
+                    for (Operation operation : batch) {
+                        operation.fail(new JedisException("Batching jedis template is destroyed."));
+                    }
+                    return;
+                }
+                try {
+                    flush(batch);
+                } catch (RuntimeException e) {
+                    logger.error("Fail to flush batched jedis operations.", e);
+                    for (Operation operation : batch) {
+                        operation.fail(e);
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.demo2do.core.redis;
+
+import redis.clients.jedis.exceptions.JedisException;
+
+/**
+ * Thrown without calling redis when the circuit breaker of {@link JedisTemplate} is open
+ *
+ * @author David
+ */
+public class CircuitBreakerOpenException extends JedisException {
+
+    private static final long serialVersionUID = -2945372849018376520L;
+
+    /**
+     * @param message the message
+     */
+    public CircuitBreakerOpenException(String message) {
+        super(message);
+    }
+
+}
@@ -1,11 +1,26 @@
 package com.demo2do.core.redis;
 
+import com.demo2do.core.redis.codec.JsonRedisCodec;
+import com.demo2do.core.redis.codec.RedisCodec;
 import com.demo2do.core.utils.JsonUtils;
 import org.springframework.beans.factory.annotation.Value;
+import redis.clients.jedis.BitOP;
 import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -15,16 +30,141 @@ import java.util.Set;
  */
 public class GenericRedisSupport {
 
-    private JedisTemplate jedisTemplate;
+    private RedisOperations redisOperations;
 
-    @Value("#{redis['namespace']}")
-    private String namespace;
+    private RedisKeyBuilder keyBuilder;
+
+    private RedisCodec redisCodec = new JsonRedisCodec();
+
+    private RedisTtlPolicy ttlPolicy = new RedisTtlPolicy();
 
     /**
      * @param jedisPool the jedisPool to set
      */
     public void setJedisPool(JedisPool jedisPool) {
-        this.jedisTemplate = new JedisTemplate(jedisPool);
+        this.redisOperations = new JedisTemplate(jedisPool);
+    }
+
+    /**
+     * @param jedisTemplate the jedisTemplate to set, e.g. a {@link ShardedJedisTemplate}
+     */
+    public void setJedisTemplate(JedisTemplate jedisTemplate) {
+        this.redisOperations = jedisTemplate;
+    }
+
+    /**
+     * @param redisOperations the redisOperations to set, such as {@link InMemoryRedisOperations}
+     */
+    public void setRedisOperations(RedisOperations redisOperations) {
+        this.redisOperations = redisOperations;
+    }
+
+    /**
+     * @param namespace the namespace to set
+     */
+    @Value("#{redis['namespace']}")
+    public void setNamespace(String namespace) {
+        this.keyBuilder = new RedisKeyBuilder(namespace);
+    }
+
+    /**
+     * @param redisCodec the redisCodec to set, json codec is used by default
+     */
+    public void setRedisCodec(RedisCodec redisCodec) {
+        this.redisCodec = redisCodec;
+    }
+
+    /**
+     * @param ttlPolicy the ttlPolicy to set, 10% jitter without sliding refresh by default
+     */
+    public void setTtlPolicy(RedisTtlPolicy ttlPolicy) {
+        this.ttlPolicy = ttlPolicy;
+    }
+
+    /**
+     * Encode objects to binary members with redis codec
+     *
+     * @param members the members
+     * @return the binary members
+     */
+    private byte[][] encodeMembers(Object... members) {
+        byte[][] bmembers = new byte[members.length][];
+        for (int i = 0; i < members.length; i++) {
+            bmembers[i] = redisCodec.encode(members[i]);
+        }
+        return bmembers;
+    }
+
+    /**
+     * Decode binary members to objects with redis codec, iteration order is kept
+     *
+     * @param bmembers the binary members
+     * @param clazz    the class type
+     * @return the objects
+     */
+    private <T> Set<T> decodeMembers(Set<byte[]> bmembers, Class<T> clazz) {
+        Set<T> omembers = new LinkedHashSet<T>(bmembers.size());
+        for (byte[] member : bmembers) {
+            omembers.add(redisCodec.decode(member, clazz));
+        }
+        return omembers;
+    }
+
+    /**
+     * Decode binary members with scores to objects with scores, iteration order is kept
+     *
+     * @param tuples the binary members with scores
+     * @param clazz  the class type
+     * @return the objects with scores
+     */
+    private <T> List<ScoredMember<T>> decodeScoredMembers(Set<Tuple> tuples, Class<T> clazz) {
+        List<ScoredMember<T>> omembers = new ArrayList<ScoredMember<T>>(tuples.size());
+        for (Tuple tuple : tuples) {
+            omembers.add(new ScoredMember<T>(redisCodec.decode(tuple.getBinaryElement(), clazz), tuple.getScore()));
+        }
+        return omembers;
+    }
+
+    /**
+     * Convert string members with scores, iteration order is kept
+     *
+     * @param tuples the members with scores
+     * @return the members with scores
+     */
+    private List<ScoredMember<String>> toScoredMembers(Set<Tuple> tuples) {
+        List<ScoredMember<String>> members = new ArrayList<ScoredMember<String>>(tuples.size());
+        for (Tuple tuple : tuples) {
+            members.add(new ScoredMember<String>(tuple.getElement(), tuple.getScore()));
+        }
+        return members;
+    }
+
+    /**
+     * Build the keys with namespace
+     *
+     * @param keys the keys
+     * @return the namespaced keys
+     */
+    private String[] buildKeys(String... keys) {
+        String[] result = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            result[i] = keyBuilder.build(keys[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Build the binary keys with namespace
+     *
+     * @param keys the keys
+     * @return the namespaced binary keys
+     */
+    private byte[][] buildBinaryKeys(String... keys) {
+        byte[][] result = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            result[i] = keyBuilder.buildBinary(keys[i]);
+        }
+        return result;
     }
 
     /**
@@ -35,7 +175,7 @@ public class GenericRedisSupport {
      * @return result
      */
     public Boolean addMembersToSet(String key, String... members) {
-        return jedisTemplate.sadd(namespace + ":" + key, members);
+        return redisOperations.sadd(keyBuilder.build(key), members);
     }
 
     /**
@@ -46,11 +186,7 @@ public class GenericRedisSupport {
      * @return result
      */
     public Boolean addMembersToSet(String key, Object... members) {
-        String[] omembers = new String[members.length];
-        for (int i = 0; i < members.length; i++) {
-            omembers[i] = JsonUtils.toJsonString(members[i]);
-        }
-        return this.addMembersToSet(key, omembers);
+        return redisOperations.sadd(keyBuilder.buildBinary(key), encodeMembers(members));
     }
 
     /**
@@ -62,7 +198,7 @@ public class GenericRedisSupport {
      * @return result
      */
     public Boolean addMemberToSortedSet(String key, String member, double score) {
-        return jedisTemplate.zadd(namespace + ":" + key, member, score);
+        return redisOperations.zadd(keyBuilder.build(key), member, score);
     }
 
     /**
@@ -74,7 +210,57 @@ public class GenericRedisSupport {
      * @return result
      */
     public Boolean addMemberToSortedSet(String key, Object member, double score) {
-        return jedisTemplate.zadd(namespace + ":" + key, JsonUtils.toJsonString(member), score);
+        return redisOperations.zadd(keyBuilder.buildBinary(key), redisCodec.encode(member), score);
+    }
+
+    /**
+     * add new string into set and set expire time with jitter of ttl policy, in one round trip
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @param members the members
+     * @return result
+     */
+    public Boolean addMembersToSetWithExpire(String key, int seconds, String... members) {
+        return redisOperations.saddAndExpire(keyBuilder.build(key), ttlPolicy.getSeconds(seconds), members);
+    }
+
+    /**
+     * add new object into set and set expire time with jitter of ttl policy, in one round trip
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @param members the members
+     * @return result
+     */
+    public Boolean addMembersToSetWithExpire(String key, int seconds, Object... members) {
+        return redisOperations.saddAndExpire(keyBuilder.buildBinary(key), ttlPolicy.getSeconds(seconds), encodeMembers(members));
+    }
+
+    /**
+     * add new string into sorted set and set expire time with jitter of ttl policy, in one round trip
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @param member  the member
+     * @param score   the score
+     * @return result
+     */
+    public Boolean addMemberToSortedSetWithExpire(String key, int seconds, String member, double score) {
+        return redisOperations.zaddAndExpire(keyBuilder.build(key), ttlPolicy.getSeconds(seconds), member, score);
+    }
+
+    /**
+     * add new object into sorted set and set expire time with jitter of ttl policy, in one round trip
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @param member  the member
+     * @param score   the score
+     * @return result
+     */
+    public Boolean addMemberToSortedSetWithExpire(String key, int seconds, Object member, double score) {
+        return redisOperations.zaddAndExpire(keyBuilder.buildBinary(key), ttlPolicy.getSeconds(seconds), redisCodec.encode(member), score);
     }
 
     /**
@@ -84,7 +270,10 @@ public class GenericRedisSupport {
      * @return result set
      */
     public Set<String> getMembersForSet(String key) {
-        return jedisTemplate.smembers(namespace + ":" + key);
+        if (ttlPolicy.isSlidingRefresh()) {
+            return redisOperations.smembersAndRefresh(keyBuilder.build(key), ttlPolicy.getRefreshSeconds());
+        }
+        return redisOperations.smembers(keyBuilder.build(key));
     }
 
     /**
@@ -95,14 +284,52 @@ public class GenericRedisSupport {
      * @return result type
      */
     public <T> Set<T> getMembersForSet(String key, Class<T> clazz) {
-        Set<String> smembers = this.getMembersForSet(key);
-        Set<T> omembers = new HashSet<T>(smembers.size());
-        for (String member : smembers) {
-            omembers.add(JsonUtils.parse(member, clazz));
+        byte[] bkey = keyBuilder.buildBinary(key);
+        Set<byte[]> bmembers = ttlPolicy.isSlidingRefresh()
+                ? redisOperations.smembersAndRefresh(bkey, ttlPolicy.getRefreshSeconds()) : redisOperations.smembers(bkey);
+        Set<T> omembers = new HashSet<T>(bmembers.size());
+        for (byte[] member : bmembers) {
+            omembers.add(redisCodec.decode(member, clazz));
         }
         return omembers;
     }
 
+    /**
+     * iterate the members of set as objects, members are fetched by SSCAN in batches and decoded lazily
+     * <p/>
+     * A member may be returned more than once if the set is modified during the iteration.
+     *
+     * @param key       the key
+     * @param clazz     the class type
+     * @param batchSize the hint of members count fetched in one batch
+     * @return the iterator
+     */
+    public <T> Iterator<T> iterateMembersForSet(String key, Class<T> clazz, final int batchSize) {
+        final byte[] bkey = keyBuilder.buildBinary(key);
+        return new ScanIterator<T>(clazz) {
+
+            @Override
+            protected ScanResult<byte[]> scan(byte[] cursor) {
+                return redisOperations.sscan(bkey, cursor, batchSize);
+            }
+        };
+    }
+
+    /**
+     * handle the members of set one by one as objects, members are fetched by SSCAN in batches
+     *
+     * @param key       the key
+     * @param clazz     the class type
+     * @param batchSize the hint of members count fetched in one batch
+     * @param callback  the callback handling every member
+     */
+    public <T> void scanMembersForSet(String key, Class<T> clazz, int batchSize, MemberCallback<T> callback) {
+        Iterator<T> iterator = this.iterateMembersForSet(key, clazz, batchSize);
+        while (iterator.hasNext()) {
+            callback.handle(iterator.next());
+        }
+    }
+
     /**
      * get all the members as a set of string according to a key and order asce
      *
@@ -110,7 +337,10 @@ public class GenericRedisSupport {
      * @return result set
      */
     public Set<String> getMembersForSortedSet(String key) {
-        return jedisTemplate.zrange(namespace + ":" + key, 0, -1);
+        if (ttlPolicy.isSlidingRefresh()) {
+            return redisOperations.zrangeAndRefresh(keyBuilder.build(key), ttlPolicy.getRefreshSeconds(), 0, -1);
+        }
+        return redisOperations.zrange(keyBuilder.build(key), 0, -1);
     }
 
     /**
@@ -121,12 +351,52 @@ public class GenericRedisSupport {
      * @return result set
      */
     public <T> Set<T> getMembersForSortedSet(String key, Class<T> clazz) {
-        Set<String> smembers = this.getMembersForSortedSet(key);
-        Set<T> omembers = new LinkedHashSet<T>(smembers.size());
-        for (String member : smembers) {
-            omembers.add(JsonUtils.parse(member, clazz));
+        if (ttlPolicy.isSlidingRefresh()) {
+            return decodeMembers(redisOperations.zrangeAndRefresh(keyBuilder.buildBinary(key), ttlPolicy.getRefreshSeconds(), 0, -1), clazz);
+        }
+        return decodeMembers(redisOperations.zrange(keyBuilder.buildBinary(key), 0, -1), clazz);
+    }
+
+    /**
+     * iterate the members of sorted set as objects, members are fetched by ZSCAN in batches and decoded lazily
+     * <p/>
+     * The members are not ordered by score, and a member may be returned more than once
+     * if the sorted set is modified during the iteration.
+     *
+     * @param key       the key
+     * @param clazz     the class type
+     * @param batchSize the hint of members count fetched in one batch
+     * @return the iterator
+     */
+    public <T> Iterator<T> iterateMembersForSortedSet(String key, Class<T> clazz, final int batchSize) {
+        final byte[] bkey = keyBuilder.buildBinary(key);
+        return new ScanIterator<T>(clazz) {
+
+            @Override
+            protected ScanResult<byte[]> scan(byte[] cursor) {
+                ScanResult<Tuple> result = redisOperations.zscan(bkey, cursor, batchSize);
+                List<byte[]> members = new ArrayList<byte[]>(result.getResult().size());
+                for (Tuple tuple : result.getResult()) {
+                    members.add(tuple.getBinaryElement());
+                }
+                return new ScanResult<byte[]>(result.getCursorAsBytes(), members);
+            }
+        };
+    }
+
+    /**
+     * handle the members of sorted set one by one as objects, members are fetched by ZSCAN in batches
+     *
+     * @param key       the key
+     * @param clazz     the class type
+     * @param batchSize the hint of members count fetched in one batch
+     * @param callback  the callback handling every member
+     */
+    public <T> void scanMembersForSortedSet(String key, Class<T> clazz, int batchSize, MemberCallback<T> callback) {
+        Iterator<T> iterator = this.iterateMembersForSortedSet(key, clazz, batchSize);
+        while (iterator.hasNext()) {
+            callback.handle(iterator.next());
         }
-        return omembers;
     }
 
     /**
@@ -136,7 +406,10 @@ public class GenericRedisSupport {
      * @return result set
      */
     public Set<String> getReverseMembersForSortedSet(String key) {
-        return jedisTemplate.zrevrange(namespace + ":" + key, 0, -1);
+        if (ttlPolicy.isSlidingRefresh()) {
+            return redisOperations.zrevrangeAndRefresh(keyBuilder.build(key), ttlPolicy.getRefreshSeconds(), 0, -1);
+        }
+        return redisOperations.zrevrange(keyBuilder.build(key), 0, -1);
     }
 
     /**
@@ -147,12 +420,162 @@ public class GenericRedisSupport {
      * @return result set
      */
     public <T> Set<T> getReverseMembersForSortedSet(String key, Class<T> clazz) {
-        Set<String> smembers = this.getReverseMembersForSortedSet(key);
-        Set<T> omembers = new LinkedHashSet<T>(smembers.size());
-        for (String member : smembers) {
-            omembers.add(JsonUtils.parse(member, clazz));
+        if (ttlPolicy.isSlidingRefresh()) {
+            return decodeMembers(redisOperations.zrevrangeAndRefresh(keyBuilder.buildBinary(key), ttlPolicy.getRefreshSeconds(), 0, -1), clazz);
         }
-        return omembers;
+        return decodeMembers(redisOperations.zrevrange(keyBuilder.buildBinary(key), 0, -1), clazz);
+    }
+
+    /**
+     * get the members as a set of string whose score is between min and max, ordered asce and paged
+     *
+     * @param key    the key
+     * @param min    the min score, inclusive
+     * @param max    the max score, inclusive
+     * @param offset the offset of the first member
+     * @param count  the max count of members
+     * @return result set
+     */
+    public Set<String> getMembersForSortedSet(String key, double min, double max, int offset, int count) {
+        if (ttlPolicy.isSlidingRefresh()) {
+            return redisOperations.zrangeByScoreAndRefresh(keyBuilder.build(key), ttlPolicy.getRefreshSeconds(), min, max, offset, count);
+        }
+        return redisOperations.zrangeByScore(keyBuilder.build(key), min, max, offset, count);
+    }
+
+    /**
+     * get the members as a set of string whose score is between max and min, ordered desc and paged
+     *
+     * @param key    the key
+     * @param max    the max score, inclusive
+     * @param min    the min score, inclusive
+     * @param offset the offset of the first member
+     * @param count  the max count of members
+     * @return result set
+     */
+    public Set<String> getReverseMembersForSortedSet(String key, double max, double min, int offset, int count) {
+        if (ttlPolicy.isSlidingRefresh()) {
+            return redisOperations.zrevrangeByScoreAndRefresh(keyBuilder.build(key), ttlPolicy.getRefreshSeconds(), max, min, offset, count);
+        }
+        return redisOperations.zrevrangeByScore(keyBuilder.build(key), max, min, offset, count);
+    }
+
+    /**
+     * get the members as objects with scores whose score is between min and max, ordered asce and paged
+     *
+     * @param key    the key
+     * @param clazz  the class type
+     * @param min    the min score, inclusive
+     * @param max    the max score, inclusive
+     * @param offset the offset of the first member
+     * @param count  the max count of members
+     * @return result list
+     */
+    public <T> List<ScoredMember<T>> getScoredMembersForSortedSet(String key, Class<T> clazz, double min, double max, int offset, int count) {
+        if (ttlPolicy.isSlidingRefresh()) {
+            return decodeScoredMembers(redisOperations.zrangeByScoreWithScoresAndRefresh(keyBuilder.buildBinary(key), ttlPolicy.getRefreshSeconds(), min, max, offset, count), clazz);
+        }
+        return decodeScoredMembers(redisOperations.zrangeByScoreWithScores(keyBuilder.buildBinary(key), min, max, offset, count), clazz);
+    }
+
+    /**
+     * get the members as objects with scores whose score is between max and min, ordered desc and paged
+     *
+     * @param key    the key
+     * @param clazz  the class type
+     * @param max    the max score, inclusive
+     * @param min    the min score, inclusive
+     * @param offset the offset of the first member
+     * @param count  the max count of members
+     * @return result list
+     */
+    public <T> List<ScoredMember<T>> getReverseScoredMembersForSortedSet(String key, Class<T> clazz, double max, double min, int offset, int count) {
+        if (ttlPolicy.isSlidingRefresh()) {
+            return decodeScoredMembers(redisOperations.zrevrangeByScoreWithScoresAndRefresh(keyBuilder.buildBinary(key), ttlPolicy.getRefreshSeconds(), max, min, offset, count), clazz);
+        }
+        return decodeScoredMembers(redisOperations.zrevrangeByScoreWithScores(keyBuilder.buildBinary(key), max, min, offset, count), clazz);
+    }
+
+    /**
+     * increase the score of member in sorted set, the member is added if not existed
+     *
+     * @param key    the key
+     * @param member the member
+     * @param delta  the delta of score
+     * @return the score after increased
+     */
+    public Double incrementScoreOfSortedSet(String key, String member, double delta) {
+        return redisOperations.zincrby(keyBuilder.build(key), member, delta);
+    }
+
+    /**
+     * increase the score of member in sorted set and set expire time with jitter of ttl policy, in one round trip
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @param member  the member
+     * @param delta   the delta of score
+     * @return the score after increased
+     */
+    public Double incrementScoreOfSortedSetWithExpire(String key, int seconds, String member, double delta) {
+        return redisOperations.zincrbyAndExpire(keyBuilder.build(key), ttlPolicy.getSeconds(seconds), member, delta);
+    }
+
+    /**
+     * get the score of member in sorted set
+     *
+     * @param key    the key
+     * @param member the member
+     * @return the score, or null if the member does not exist
+     */
+    public Double getScoreOfSortedSet(String key, String member) {
+        return redisOperations.zscore(keyBuilder.build(key), member);
+    }
+
+    /**
+     * get the rank of member in sorted set ordered asce
+     *
+     * @param key    the key
+     * @param member the member
+     * @return the rank from 0, or null if the member does not exist
+     */
+    public Long getRankOfSortedSet(String key, String member) {
+        return redisOperations.zrank(keyBuilder.build(key), member);
+    }
+
+    /**
+     * get the rank of member in sorted set ordered desc
+     *
+     * @param key    the key
+     * @param member the member
+     * @return the rank from 0, or null if the member does not exist
+     */
+    public Long getReverseRankOfSortedSet(String key, String member) {
+        return redisOperations.zrevrank(keyBuilder.build(key), member);
+    }
+
+    /**
+     * get the members as strings with scores whose rank is between start and end, ordered asce
+     *
+     * @param key   the key
+     * @param start the start rank, negative from the end
+     * @param end   the end rank, inclusive, negative from the end
+     * @return result list
+     */
+    public List<ScoredMember<String>> getScoredMembersForSortedSetByRank(String key, long start, long end) {
+        return toScoredMembers(redisOperations.zrangeWithScores(keyBuilder.build(key), start, end));
+    }
+
+    /**
+     * get the members as strings with scores whose rank is between start and end, ordered desc
+     *
+     * @param key   the key
+     * @param start the start rank, negative from the end
+     * @param end   the end rank, inclusive, negative from the end
+     * @return result list
+     */
+    public List<ScoredMember<String>> getReverseScoredMembersForSortedSetByRank(String key, long start, long end) {
+        return toScoredMembers(redisOperations.zrevrangeWithScores(keyBuilder.build(key), start, end));
     }
 
     /**
@@ -162,7 +585,7 @@ public class GenericRedisSupport {
      * @return the size of set
      */
     public Long getSizeOfSet(String key) {
-        return jedisTemplate.scard(namespace + ":" + key);
+        return redisOperations.scard(keyBuilder.build(key));
     }
 
     /**
@@ -172,7 +595,41 @@ public class GenericRedisSupport {
      * @return the size of set
      */
     public Long getSizeOfSortedSet(String key) {
-        return jedisTemplate.zcard(namespace + ":" + key);
+        return redisOperations.zcard(keyBuilder.build(key));
+    }
+
+    /**
+     * get the size of sorted set from master, for the sorted set just written
+     *
+     * @param key the key
+     * @return the size of set
+     */
+    public Long getSizeOfSortedSetFromMaster(String key) {
+        return redisOperations.zcardFromMaster(keyBuilder.build(key));
+    }
+
+    /**
+     * get the rank of member in sorted set ordered desc from master, for the sorted set just written
+     *
+     * @param key    the key
+     * @param member the member
+     * @return the rank from 0, or null if the member does not exist
+     */
+    public Long getReverseRankOfSortedSetFromMaster(String key, String member) {
+        return redisOperations.zrevrankFromMaster(keyBuilder.build(key), member);
+    }
+
+    /**
+     * get the members as strings with scores whose rank is between start and end, ordered desc, from master,
+     * for the sorted set just written
+     *
+     * @param key   the key
+     * @param start the start rank, negative from the end
+     * @param end   the end rank, inclusive, negative from the end
+     * @return result list
+     */
+    public List<ScoredMember<String>> getReverseScoredMembersForSortedSetByRankFromMaster(String key, long start, long end) {
+        return toScoredMembers(redisOperations.zrevrangeWithScoresFromMaster(keyBuilder.build(key), start, end));
     }
 
     /**
@@ -183,7 +640,7 @@ public class GenericRedisSupport {
      * @return result
      */
     public boolean removeMembersFromSet(String key, String... members) {
-        return jedisTemplate.srem(namespace + ":" + key, members);
+        return redisOperations.srem(keyBuilder.build(key), members);
     }
 
     /**
@@ -194,11 +651,7 @@ public class GenericRedisSupport {
      * @return result
      */
     public boolean removeMembersFromSet(String key, Object... members) {
-        String[] omembers = new String[members.length];
-        for (int i = 0; i < members.length; i++) {
-            omembers[i] = JsonUtils.toJsonString(members[i]);
-        }
-        return this.removeMembersFromSet(key, omembers);
+        return redisOperations.srem(keyBuilder.buildBinary(key), encodeMembers(members));
     }
 
     /**
@@ -209,7 +662,7 @@ public class GenericRedisSupport {
      * @return result
      */
     public boolean reomveMemberFromSortedSet(String key, String member) {
-        return jedisTemplate.zrem(namespace + ":" + key, member);
+        return redisOperations.zrem(keyBuilder.build(key), member);
     }
 
     /**
@@ -220,7 +673,399 @@ public class GenericRedisSupport {
      * @return result
      */
     public boolean removeMemberFromSortedSet(String key, Object member) {
-        return jedisTemplate.zrem(namespace + ":" + key, JsonUtils.toJsonString(member));
+        return redisOperations.zrem(keyBuilder.buildBinary(key), redisCodec.encode(member));
+    }
+
+    /**
+     * remove the members whose score is between min and max from sorted set
+     *
+     * @param key the key
+     * @param min the min score, inclusive
+     * @param max the max score, inclusive
+     * @return the count of removed members
+     */
+    public Long removeMembersFromSortedSetByScore(String key, double min, double max) {
+        return redisOperations.zremrangeByScore(keyBuilder.build(key), min, max);
+    }
+
+    /**
+     * remove the members whose rank is between start and end from sorted set, e.g. (0, -101) keeps the top 100 members
+     *
+     * @param key   the key
+     * @param start the start rank, inclusive
+     * @param end   the end rank, inclusive
+     * @return the count of removed members
+     */
+    public Long removeMembersFromSortedSetByRank(String key, long start, long end) {
+        return redisOperations.zremrangeByRank(keyBuilder.build(key), start, end);
+    }
+
+    /**
+     * get the intersection of sets as a set of string
+     * <p/>
+     * all the keys must share a hash tag like <code>{tag}</code> under ShardedJedisTemplate
+     *
+     * @param keys the keys
+     * @return result set
+     */
+    public Set<String> getIntersectionOfSets(String... keys) {
+        return redisOperations.sinter(buildKeys(keys));
+    }
+
+    /**
+     * get the intersection of sets as a set of object
+     * <p/>
+     * all the keys must share a hash tag like <code>{tag}</code> under ShardedJedisTemplate
+     *
+     * @param clazz the class type
+     * @param keys  the keys
+     * @return result set
+     */
+    public <T> Set<T> getIntersectionOfSets(Class<T> clazz, String... keys) {
+        return decodeMembers(redisOperations.sinter(buildBinaryKeys(keys)), clazz);
+    }
+
+    /**
+     * store the intersection of sets into destination, with optional expire time
+     * <p/>
+     * the destination and all the keys must share a hash tag like <code>{tag}</code> under ShardedJedisTemplate
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
+     * @return the size of result set
+     */
+    public Long storeIntersectionOfSets(String destination, int seconds, String... keys) {
+        return redisOperations.sinterstore(keyBuilder.build(destination), seconds, buildKeys(keys));
+    }
+
+    /**
+     * get the union of sets as a set of string
+     * <p/>
+     * all the keys must share a hash tag like <code>{tag}</code> under ShardedJedisTemplate
+     *
+     * @param keys the keys
+     * @return result set
+     */
+    public Set<String> getUnionOfSets(String... keys) {
+        return redisOperations.sunion(buildKeys(keys));
+    }
+
+    /**
+     * get the union of sets as a set of object
+     * <p/>
+     * all the keys must share a hash tag like <code>{tag}</code> under ShardedJedisTemplate
+     *
+     * @param clazz the class type
+     * @param keys  the keys
+     * @return result set
+     */
+    public <T> Set<T> getUnionOfSets(Class<T> clazz, String... keys) {
+        return decodeMembers(redisOperations.sunion(buildBinaryKeys(keys)), clazz);
+    }
+
+    /**
+     * store the union of sets into destination, with optional expire time
+     * <p/>
+     * the destination and all the keys must share a hash tag like <code>{tag}</code> under ShardedJedisTemplate
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
+     * @return the size of result set
+     */
+    public Long storeUnionOfSets(String destination, int seconds, String... keys) {
+        return redisOperations.sunionstore(keyBuilder.build(destination), seconds, buildKeys(keys));
+    }
+
+    /**
+     * get the difference of the first set and the others of sets as a set of string
+     * <p/>
+     * all the keys must share a hash tag like <code>{tag}</code> under ShardedJedisTemplate
+     *
+     * @param keys the keys
+     * @return result set
+     */
+    public Set<String> getDifferenceOfSets(String... keys) {
+        return redisOperations.sdiff(buildKeys(keys));
+    }
+
+    /**
+     * get the difference of the first set and the others of sets as a set of object
+     * <p/>
+     * all the keys must share a hash tag like <code>{tag}</code> under ShardedJedisTemplate
+     *
+     * @param clazz the class type
+     * @param keys  the keys
+     * @return result set
+     */
+    public <T> Set<T> getDifferenceOfSets(Class<T> clazz, String... keys) {
+        return decodeMembers(redisOperations.sdiff(buildBinaryKeys(keys)), clazz);
+    }
+
+    /**
+     * store the difference of the first set and the others of sets into destination, with optional expire time
+     * <p/>
+     * the destination and all the keys must share a hash tag like <code>{tag}</code> under ShardedJedisTemplate
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
+     * @return the size of result set
+     */
+    public Long storeDifferenceOfSets(String destination, int seconds, String... keys) {
+        return redisOperations.sdiffstore(keyBuilder.build(destination), seconds, buildKeys(keys));
+    }
+
+    /**
+     * store the intersection of sorted sets into destination, scores are summed by weights, with optional expire time
+     * <p/>
+     * the destination and all the keys must share a hash tag like <code>{tag}</code> under ShardedJedisTemplate
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param weights     the weights of keys, null for all 1
+     * @param keys        the keys
+     * @return the size of result set
+     */
+    public Long storeIntersectionOfSortedSets(String destination, int seconds, int[] weights, String... keys) {
+        return redisOperations.zinterstore(keyBuilder.build(destination), seconds, weights, buildKeys(keys));
+    }
+
+    /**
+     * store the union of sorted sets into destination, scores are summed by weights, with optional expire time
+     * <p/>
+     * the destination and all the keys must share a hash tag like <code>{tag}</code> under ShardedJedisTemplate
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param weights     the weights of keys, null for all 1
+     * @param keys        the keys
+     * @return the size of result set
+     */
+    public Long storeUnionOfSortedSets(String destination, int seconds, int[] weights, String... keys) {
+        return redisOperations.zunionstore(keyBuilder.build(destination), seconds, weights, buildKeys(keys));
+    }
+
+    /**
+     * save object as hash, every property is stored as a field in Json, and the fields of
+     * null properties are removed in the same transaction
+     *
+     * @param key    the key
+     * @param object the object
+     */
+    public void saveAsHash(String key, Object object) {
+        String hashKey = keyBuilder.build(key);
+        Map<String, String> fields = new LinkedHashMap<String, String>();
+        List<String> nullFields = new ArrayList<String>();
+        for (Map.Entry<String, Object> entry : JsonUtils.toMap(object).entrySet()) {
+            if (entry.getValue() == null) {
+                nullFields.add(entry.getKey());
+            } else {
+                fields.put(entry.getKey(), JsonUtils.toJsonString(entry.getValue()));
+            }
+        }
+        if (!nullFields.isEmpty() || !fields.isEmpty()) {
+            redisOperations.hmsetAndDel(hashKey, fields, nullFields.toArray(new String[nullFields.size()]));
+        }
+    }
+
+    /**
+     * get the object saved as hash
+     *
+     * @param key   the key
+     * @param clazz the class type
+     * @return the object, or null if the key does not exist
+     */
+    public <T> T getFromHash(String key, Class<T> clazz) {
+        Map<String, String> fields = redisOperations.hgetAll(keyBuilder.build(key));
+        if (fields.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> properties = new HashMap<String, Object>(fields.size() * 2);
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            properties.put(field.getKey(), JsonUtils.parseValue(field.getValue()));
+        }
+        return JsonUtils.toObject(properties, clazz);
+    }
+
+    /**
+     * get the selected fields of the object saved as hash
+     *
+     * @param key    the key
+     * @param fields the fields
+     * @return the values of fields in given order, missing fields are mapped to null
+     */
+    public Map<String, Object> getFieldsFromHash(String key, String... fields) {
+        List<String> values = redisOperations.hmget(keyBuilder.build(key), fields);
+        Map<String, Object> result = new LinkedHashMap<String, Object>(fields.length * 2);
+        for (int i = 0; i < fields.length; i++) {
+            String value = values.get(i);
+            result.put(fields[i], value == null ? null : JsonUtils.parseValue(value));
+        }
+        return result;
+    }
+
+    /**
+     * get one field of the object saved as hash
+     *
+     * @param key   the key
+     * @param field the field
+     * @param clazz the class type of field
+     * @return the value, or null if missing
+     */
+    public <T> T getFieldFromHash(String key, String field, Class<T> clazz) {
+        String value = redisOperations.hget(keyBuilder.build(key), field);
+        return value == null ? null : JsonUtils.parse(value, clazz);
+    }
+
+    /**
+     * update one field of the object saved as hash
+     *
+     * @param key   the key
+     * @param field the field
+     * @param value the new value
+     * @return true if the field is new
+     */
+    public Boolean updateFieldOfHash(String key, String field, Object value) {
+        return redisOperations.hset(keyBuilder.build(key), field, JsonUtils.toJsonString(value));
+    }
+
+    /**
+     * increase one numeric field of the object saved as hash
+     *
+     * @param key   the key
+     * @param field the field
+     * @param delta the delta
+     * @return the value after increased
+     */
+    public Long incrementFieldOfHash(String key, String field, long delta) {
+        return redisOperations.hincrBy(keyBuilder.build(key), field, delta);
+    }
+
+    /**
+     * remove fields of the object saved as hash
+     *
+     * @param key    the key
+     * @param fields the fields
+     * @return the count of fields removed
+     */
+    public Long removeFieldsFromHash(String key, String... fields) {
+        return redisOperations.hdel(keyBuilder.build(key), fields);
+    }
+
+    /**
+     * add elements into HyperLogLog, which counts unique elements approximately in 12KB at most
+     *
+     * @param key      the key
+     * @param elements the elements
+     * @return true if the approximate count is changed
+     */
+    public Boolean addToHyperLogLog(String key, String... elements) {
+        return redisOperations.pfadd(keyBuilder.build(key), elements);
+    }
+
+    /**
+     * get the approximate count of unique elements of HyperLogLogs, with standard error of 0.81%
+     * <p/>
+     * the daily keys counted together must share a hash tag under ShardedJedisTemplate,
+     * such as <code>uv:{home}:20140301</code> and <code>uv:{home}:20140302</code>
+     *
+     * @param keys the keys
+     * @return the approximate count of the union
+     */
+    public Long getCountOfHyperLogLog(String... keys) {
+        return redisOperations.pfcount(buildKeys(keys));
+    }
+
+    /**
+     * store the union of HyperLogLogs into destination with expire time
+     * <p/>
+     * the destination and the daily keys must share a hash tag under ShardedJedisTemplate,
+     * such as <code>uv:{home}:week</code> and <code>uv:{home}:20140301</code>
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
+     * @return the approximate count of the union
+     */
+    public Long storeUnionOfHyperLogLogs(String destination, int seconds, String... keys) {
+        return redisOperations.pfmerge(keyBuilder.build(destination), seconds, buildKeys(keys));
+    }
+
+    /**
+     * set the bit at offset of bitmap, such as the id of user active in a day
+     *
+     * @param key    the key
+     * @param offset the bit offset
+     * @param value  the bit value
+     * @return the previous bit value
+     */
+    public Boolean setBit(String key, long offset, boolean value) {
+        return redisOperations.setbit(keyBuilder.build(key), offset, value);
+    }
+
+    /**
+     * get the bit at offset of bitmap
+     *
+     * @param key    the key
+     * @param offset the bit offset
+     * @return the bit value
+     */
+    public Boolean getBit(String key, long offset) {
+        return redisOperations.getbit(keyBuilder.build(key), offset);
+    }
+
+    /**
+     * get the count of bits set in bitmap
+     *
+     * @param key the key
+     * @return the count of bits set
+     */
+    public Long getCountOfBits(String key) {
+        return redisOperations.bitcount(keyBuilder.build(key));
+    }
+
+    /**
+     * get the count of bits set between start byte and end byte of bitmap
+     *
+     * @param key   the key
+     * @param start the start byte, inclusive, negative from the end
+     * @param end   the end byte, inclusive, negative from the end
+     * @return the count of bits set
+     */
+    public Long getCountOfBits(String key, long start, long end) {
+        return redisOperations.bitcount(keyBuilder.build(key), start, end);
+    }
+
+    /**
+     * store the bitwise AND of bitmaps into destination with expire time
+     * <p/>
+     * the destination and the daily keys must share a hash tag under ShardedJedisTemplate,
+     * such as <code>dau:{app}:week</code> and <code>dau:{app}:20140301</code>
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
+     * @return the length of result in bytes
+     */
+    public Long storeIntersectionOfBitmaps(String destination, int seconds, String... keys) {
+        return redisOperations.bitop(BitOP.AND, keyBuilder.build(destination), seconds, buildKeys(keys));
+    }
+
+    /**
+     * store the bitwise OR of bitmaps into destination with expire time
+     * <p/>
+     * the destination and the daily keys must share a hash tag under ShardedJedisTemplate,
+     * such as <code>dau:{app}:week</code> and <code>dau:{app}:20140301</code>
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
+     * @return the length of result in bytes
+     */
+    public Long storeUnionOfBitmaps(String destination, int seconds, String... keys) {
+        return redisOperations.bitop(BitOP.OR, keyBuilder.build(destination), seconds, buildKeys(keys));
     }
 
     /**
@@ -231,7 +1076,88 @@ public class GenericRedisSupport {
      * @return result
      */
     public Long expire(String key, int seconds) {
-        return jedisTemplate.expire(namespace + ":" + key, seconds);
+        return redisOperations.expire(keyBuilder.build(key), seconds);
+    }
+
+    /**
+     * reset the expire time of key with jitter, only if the key has one, so that a hot key written
+     * with expire lives on while a permanent key stays permanent. The reads refresh their keys in
+     * the same round trip if sliding refresh is enabled by {@link RedisTtlPolicy#setRefreshSeconds(int)},
+     * otherwise a key is refreshed explicitly here at the cost of one round trip.
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @return true if the expire time is reset
+     */
+    public boolean refreshExpire(String key, int seconds) {
+        return redisOperations.expireIfVolatile(keyBuilder.build(key), ttlPolicy.getSeconds(seconds));
+    }
+
+    /**
+     * 逐个处理集合成员的回调接口定义。
+     */
+    public interface MemberCallback<T> {
+        void handle(T member);
+    }
+
+    /**
+     * Iterator over the members returned by SSCAN/ZSCAN, which fetches the next batch
+     * only when the current one is consumed and decodes members on demand
+     */
+    private abstract class ScanIterator<T> implements Iterator<T> {
+
+        private final Class<T> clazz;
+
+        private byte[] cursor = ScanParams.SCAN_POINTER_START_BINARY;
+
+        private boolean finished;
+
+        private List<byte[]> batch = Collections.emptyList();
+
+        private int index;
+
+        private ScanIterator(Class<T> clazz) {
+            this.clazz = clazz;
+        }
+
+        /**
+         * Fetch a batch of members from the cursor
+         *
+         * @param cursor the cursor
+         * @return the next cursor and the members
+         */
+        protected abstract ScanResult<byte[]> scan(byte[] cursor);
+
+        /* (non-Javadoc)
+         * @see java.util.Iterator#hasNext()
+         */
+        public boolean hasNext() {
+            while (index >= batch.size() && !finished) {
+                ScanResult<byte[]> result = scan(cursor);
+                batch = result.getResult();
+                index = 0;
+                cursor = result.getCursorAsBytes();
+                finished = Arrays.equals(cursor, ScanParams.SCAN_POINTER_START_BINARY);
+            }
+            return index < batch.size();
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.Iterator#next()
+         */
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return redisCodec.decode(batch.get(index++), clazz);
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.Iterator#remove()
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
     }
 
 }
@@ -0,0 +1,2079 @@
+package com.demo2do.core.redis;
+
+import redis.clients.jedis.BitOP;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.MurmurHash;
+import redis.clients.util.SafeEncoder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-JVM implementation of {@link RedisOperations}, for single node deployments, batch jobs and
+ * tests which do without a redis server
+ * <p/>
+ * Keys and values are kept as bytes like redis does, so string and binary commands share the same
+ * keyspace. Sets are skip lists, sorted sets are a concurrent map of scores plus a skip list ordered
+ * by score, and hashes are concurrent maps. Every command is atomic: the reads share a read lock
+ * and the writes take the write lock, which matches the single threaded semantics of redis. Expired
+ * keys are removed on access and purged periodically. HyperLogLogs are kept as registers, which
+ * can not be read by get.
+ *
+ * @author David
+ */
+public class InMemoryRedisOperations implements RedisOperations {
+
+    private static final String WRONG_TYPE = "WRONGTYPE Operation against a key holding the wrong kind of value";
+
+    private static final String NOT_INTEGER = "ERR value is not an integer or out of range";
+
+    private static final String INVALID_BIT_OFFSET = "ERR bit offset is not an integer or out of range";
+
+    private static final long MAX_BIT_OFFSET = 1L << 32;
+
+    private static final int PURGE_INTERVAL = 1024;
+
+    private static final byte SET_CURSOR = 's';
+
+    private static final byte SORTED_SET_CURSOR = 'z';
+
+    private final ConcurrentMap<Bytes, Entry> entries = new ConcurrentHashMap<Bytes, Entry>();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Condition pushed = lock.writeLock().newCondition();
+
+    private final AtomicLong writes = new AtomicLong();
+
+    /**
+     * Remove all the expired keys
+     */
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Bytes, Entry> entry : entries.entrySet()) {
+            if (entry.getValue().isExpired(now)) {
+                entries.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#del(java.lang.String[])
+     */
+    public Boolean del(String... keys) {
+        lock.writeLock().lock();
+        try {
+            int count = 0;
+            for (String key : keys) {
+                if (lookup(Bytes.of(key)) != null) {
+                    entries.remove(Bytes.of(key));
+                    count++;
+                }
+            }
+            afterWrite();
+            return count == 1 ? true : false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#flushDB()
+     */
+    public void flushDB() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#get(java.lang.String)
+     */
+    public String get(String key) {
+        lock.readLock().lock();
+        try {
+            Bytes value = string(Bytes.of(key));
+            return value == null ? null : value.toString();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#getAsLong(java.lang.String)
+     */
+    public Long getAsLong(String key) {
+        String result = get(key);
+        return result != null ? Long.valueOf(result) : null;
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#getAsInt(java.lang.String)
+     */
+    public Integer getAsInt(String key) {
+        String result = get(key);
+        return result != null ? Integer.valueOf(result) : null;
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#set(java.lang.String, java.lang.String)
+     */
+    public void set(String key, String value) {
+        lock.writeLock().lock();
+        try {
+            entries.put(Bytes.of(key), new Entry(Bytes.of(value), 0));
+            afterWrite();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#setex(java.lang.String, java.lang.String, int)
+     */
+    public void setex(String key, String value, int seconds) {
+        lock.writeLock().lock();
+        try {
+            entries.put(Bytes.of(key), new Entry(Bytes.of(value), expireAt(seconds)));
+            afterWrite();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#setnx(java.lang.String, java.lang.String)
+     */
+    public Boolean setnx(String key, String value) {
+        return setnxex(key, value, 0);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#setnxex(java.lang.String, java.lang.String, int)
+     */
+    public Boolean setnxex(String key, String value, int seconds) {
+        lock.writeLock().lock();
+        try {
+            if (lookup(Bytes.of(key)) != null) {
+                return false;
+            }
+            entries.put(Bytes.of(key), new Entry(Bytes.of(value), seconds > 0 ? expireAt(seconds) : 0));
+            afterWrite();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#incr(java.lang.String)
+     */
+    public Long incr(String key) {
+        return incrBy(key, 1);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#decr(java.lang.String)
+     */
+    public Long decr(String key) {
+        return incrBy(key, -1);
+    }
+
+    /**
+     * Increase the integer value of key, keeping its expire time
+     *
+     * @param key   the key
+     * @param delta the delta
+     * @return the value after increased
+     */
+    private Long incrBy(String key, long delta) {
+        lock.writeLock().lock();
+        try {
+            Bytes bkey = Bytes.of(key);
+            Entry entry = lookup(bkey);
+            long value = entry == null ? 0 : parseLong(string(bkey));
+            value += delta;
+            entries.put(bkey, new Entry(Bytes.of(String.valueOf(value)), entry == null ? 0 : entry.expireAt));
+            afterWrite();
+            return value;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#lpush(java.lang.String, java.lang.String[])
+     */
+    public void lpush(String key, String... values) {
+        lock.writeLock().lock();
+        try {
+            LinkedList<Bytes> list = list(Bytes.of(key), true);
+            for (String value : values) {
+                list.addFirst(Bytes.of(value));
+            }
+            pushed.signalAll();
+            afterWrite();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#rpop(java.lang.String)
+     */
+    public String rpop(String key) {
+        lock.writeLock().lock();
+        try {
+            Bytes bkey = Bytes.of(key);
+            LinkedList<Bytes> list = list(bkey, false);
+            if (list == null) {
+                return null;
+            }
+            Bytes value = list.removeLast();
+            removeIfEmpty(bkey, list);
+            afterWrite();
+            return value.toString();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#llen(java.lang.String)
+     */
+    public Long llen(String key) {
+        lock.readLock().lock();
+        try {
+            LinkedList<Bytes> list = list(Bytes.of(key), false);
+            return list == null ? 0L : list.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#lremOne(java.lang.String, java.lang.String)
+     */
+    public Boolean lremOne(String key, String value) {
+        return lrem(key, value, 1) == 1;
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#lremAll(java.lang.String, java.lang.String)
+     */
+    public Boolean lremAll(String key, String value) {
+        return lrem(key, value, 0) > 0;
+    }
+
+    /**
+     * Remove the elements equal to value from head to tail
+     *
+     * @param key   the key
+     * @param value the value
+     * @param count the max count to remove, 0 for all
+     * @return the count removed
+     */
+    private long lrem(String key, String value, int count) {
+        lock.writeLock().lock();
+        try {
+            Bytes bkey = Bytes.of(key);
+            LinkedList<Bytes> list = list(bkey, false);
+            if (list == null) {
+                return 0;
+            }
+            Bytes bvalue = Bytes.of(value);
+            long removed = 0;
+            for (Iterator<Bytes> iterator = list.iterator(); iterator.hasNext() && (count == 0 || removed < count); ) {
+                if (iterator.next().equals(bvalue)) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+            removeIfEmpty(bkey, list);
+            afterWrite();
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#rpush(java.lang.String, java.lang.String[])
+     */
+    public void rpush(String key, String... values) {
+        lock.writeLock().lock();
+        try {
+            LinkedList<Bytes> list = list(Bytes.of(key), true);
+            for (String value : values) {
+                list.addLast(Bytes.of(value));
+            }
+            pushed.signalAll();
+            afterWrite();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#rpoplpush(java.lang.String, java.lang.String)
+     */
+    public String rpoplpush(String source, String destination) {
+        lock.writeLock().lock();
+        try {
+            return rpoplpush(Bytes.of(source), Bytes.of(destination));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#brpoplpush(java.lang.String, java.lang.String, int)
+     */
+    public String brpoplpush(String source, String destination, int timeoutSeconds) {
+        lock.writeLock().lock();
+        try {
+            long nanos = TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            while (true) {
+                String value = rpoplpush(Bytes.of(source), Bytes.of(destination));
+                if (value != null) {
+                    return value;
+                }
+                if (timeoutSeconds == 0) {
+                    pushed.await();
+                } else if (nanos > 0) {
+                    nanos = pushed.awaitNanos(nanos);
+                } else {
+                    return null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JedisException("Interrupted while blocking on " + source, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Move the tail of source to the head of destination, with write lock held
+     *
+     * @param source      the source list
+     * @param destination the destination list
+     * @return the element moved, or null if source is empty
+     */
+    private String rpoplpush(Bytes source, Bytes destination) {
+        LinkedList<Bytes> list = list(source, false);
+        if (list == null) {
+            return null;
+        }
+        list(destination, false);
+        Bytes value = list.removeLast();
+        removeIfEmpty(source, list);
+        list(destination, true).addFirst(value);
+        pushed.signalAll();
+        afterWrite();
+        return value.toString();
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#sadd(java.lang.String, java.lang.String[])
+     */
+    public Boolean sadd(String key, String... members) {
+        return sadd(Bytes.of(key), Bytes.of(members));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#srem(java.lang.String, java.lang.String[])
+     */
+    public Boolean srem(String key, String... members) {
+        return srem(Bytes.of(key), Bytes.of(members));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#sismember(java.lang.String, java.lang.String)
+     */
+    public Boolean sismember(String key, String member) {
+        lock.readLock().lock();
+        try {
+            Set<Bytes> set = set(Bytes.of(key), false);
+            return set != null && set.contains(Bytes.of(member));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#scard(java.lang.String)
+     */
+    public Long scard(String key) {
+        lock.readLock().lock();
+        try {
+            Set<Bytes> set = set(Bytes.of(key), false);
+            return set == null ? 0L : set.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#smembers(java.lang.String)
+     */
+    public Set<String> smembers(String key) {
+        return Bytes.toStrings(smembers(Bytes.of(key)));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#sadd(byte[], byte[][])
+     */
+    public Boolean sadd(byte[] key, byte[]... members) {
+        return sadd(new Bytes(key), Bytes.of(members));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#srem(byte[], byte[][])
+     */
+    public Boolean srem(byte[] key, byte[]... members) {
+        return srem(new Bytes(key), Bytes.of(members));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#smembers(byte[])
+     */
+    public Set<byte[]> smembers(byte[] key) {
+        return Bytes.toBinaries(smembers(new Bytes(key)));
+    }
+
+    /**
+     * Add the members into set
+     *
+     * @param key     the key
+     * @param members the members
+     * @return true if any member is added
+     */
+    private Boolean sadd(Bytes key, List<Bytes> members) {
+        lock.writeLock().lock();
+        try {
+            long count = 0;
+            NavigableSet<Bytes> set = set(key, true);
+            for (Bytes member : members) {
+                count += set.add(member) ? 1 : 0;
+            }
+            afterWrite();
+            return (count > 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the members from set
+     *
+     * @param key     the key
+     * @param members the members
+     * @return true if any member is removed
+     */
+    private Boolean srem(Bytes key, List<Bytes> members) {
+        lock.writeLock().lock();
+        try {
+            NavigableSet<Bytes> set = set(key, false);
+            if (set == null) {
+                return false;
+            }
+            long count = 0;
+            for (Bytes member : members) {
+                count += set.remove(member) ? 1 : 0;
+            }
+            removeIfEmpty(key, set);
+            afterWrite();
+            return (count > 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get a copy of all the members of set
+     *
+     * @param key the key
+     * @return the members
+     */
+    private Set<Bytes> smembers(Bytes key) {
+        lock.readLock().lock();
+        try {
+            Set<Bytes> set = set(key, false);
+            return set == null ? new LinkedHashSet<Bytes>() : new LinkedHashSet<Bytes>(set);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#sscan(byte[], byte[], int)
+     */
+    public ScanResult<byte[]> sscan(byte[] key, byte[] cursor, int count) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Bytes> set = set(new Bytes(key), false);
+            List<byte[]> members = new ArrayList<byte[]>();
+            if (set == null) {
+                return new ScanResult<byte[]>(ScanParams.SCAN_POINTER_START_BINARY, members);
+            }
+            Iterator<Bytes> iterator = Arrays.equals(cursor, ScanParams.SCAN_POINTER_START_BINARY)
+                    ? set.iterator() : set.tailSet(new Bytes(Arrays.copyOfRange(cursor, 1, cursor.length)), false).iterator();
+            Bytes last = null;
+            while (members.size() < count && iterator.hasNext()) {
+                last = iterator.next();
+                members.add(last.data);
+            }
+            if (!iterator.hasNext()) {
+                return new ScanResult<byte[]>(ScanParams.SCAN_POINTER_START_BINARY, members);
+            }
+            byte[] next = new byte[last.data.length + 1];
+            next[0] = SET_CURSOR;
+            System.arraycopy(last.data, 0, next, 1, last.data.length);
+            return new ScanResult<byte[]>(next, members);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#sinter(java.lang.String[])
+     */
+    public Set<String> sinter(String... keys) {
+        return Bytes.toStrings(combine(Bytes.of(keys), SetOperation.INTER));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#sunion(java.lang.String[])
+     */
+    public Set<String> sunion(String... keys) {
+        return Bytes.toStrings(combine(Bytes.of(keys), SetOperation.UNION));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#sdiff(java.lang.String[])
+     */
+    public Set<String> sdiff(String... keys) {
+        return Bytes.toStrings(combine(Bytes.of(keys), SetOperation.DIFF));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#sinter(byte[][])
+     */
+    public Set<byte[]> sinter(byte[]... keys) {
+        return Bytes.toBinaries(combine(Bytes.of(keys), SetOperation.INTER));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#sunion(byte[][])
+     */
+    public Set<byte[]> sunion(byte[]... keys) {
+        return Bytes.toBinaries(combine(Bytes.of(keys), SetOperation.UNION));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#sdiff(byte[][])
+     */
+    public Set<byte[]> sdiff(byte[]... keys) {
+        return Bytes.toBinaries(combine(Bytes.of(keys), SetOperation.DIFF));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#sinterstore(java.lang.String, int, java.lang.String[])
+     */
+    public Long sinterstore(String destination, int seconds, String... keys) {
+        return store(Bytes.of(destination), seconds, Bytes.of(keys), SetOperation.INTER);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#sunionstore(java.lang.String, int, java.lang.String[])
+     */
+    public Long sunionstore(String destination, int seconds, String... keys) {
+        return store(Bytes.of(destination), seconds, Bytes.of(keys), SetOperation.UNION);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#sdiffstore(java.lang.String, int, java.lang.String[])
+     */
+    public Long sdiffstore(String destination, int seconds, String... keys) {
+        return store(Bytes.of(destination), seconds, Bytes.of(keys), SetOperation.DIFF);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#saddAndExpire(java.lang.String, int, java.lang.String[])
+     */
+    public Boolean saddAndExpire(String key, int seconds, String... members) {
+        return saddAndExpire(Bytes.of(key), seconds, Bytes.of(members));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#saddAndExpire(byte[], int, byte[][])
+     */
+    public Boolean saddAndExpire(byte[] key, int seconds, byte[]... members) {
+        return saddAndExpire(new Bytes(key), seconds, Bytes.of(members));
+    }
+
+    /**
+     * Add the members into set and set the expire time atomically
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds, no expire if not positive
+     * @param members the members
+     * @return true if any member is added
+     */
+    private Boolean saddAndExpire(Bytes key, int seconds, List<Bytes> members) {
+        lock.writeLock().lock();
+        try {
+            Boolean result = sadd(key, members);
+            expireIfPositive(key, seconds);
+            return result;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Combine the sets
+     *
+     * @param keys      the keys
+     * @param operation the set operation
+     * @return the result
+     */
+    private Set<Bytes> combine(List<Bytes> keys, SetOperation operation) {
+        lock.readLock().lock();
+        try {
+            Set<Bytes> first = set(keys.get(0), false);
+            Set<Bytes> result = first == null ? new LinkedHashSet<Bytes>() : new LinkedHashSet<Bytes>(first);
+            for (Bytes key : keys.subList(1, keys.size())) {
+                Set<Bytes> set = set(key, false);
+                if (operation == SetOperation.INTER) {
+                    if (set == null) {
+                        result.clear();
+                    } else {
+                        result.retainAll(set);
+                    }
+                } else if (set != null) {
+                    if (operation == SetOperation.UNION) {
+                        result.addAll(set);
+                    } else {
+                        result.removeAll(set);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Combine the sets and store the result into destination
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
+     * @param operation   the set operation
+     * @return the size of result
+     */
+    private Long store(Bytes destination, int seconds, List<Bytes> keys, SetOperation operation) {
+        lock.writeLock().lock();
+        try {
+            Set<Bytes> result = combine(keys, operation);
+            entries.remove(destination);
+            if (!result.isEmpty()) {
+                entries.put(destination, new Entry(new ConcurrentSkipListSet<Bytes>(result), seconds > 0 ? expireAt(seconds) : 0));
+            }
+            afterWrite();
+            return (long) result.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zadd(java.lang.String, java.lang.String, double)
+     */
+    public Boolean zadd(String key, String member, double score) {
+        return zadd(Bytes.of(key), Bytes.of(member), score);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrange(java.lang.String, int, int)
+     */
+    public Set<String> zrange(String key, int start, int end) {
+        return Bytes.toStrings(members(zrange(Bytes.of(key), start, end, false)));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrevrange(java.lang.String, int, int)
+     */
+    public Set<String> zrevrange(String key, int start, int end) {
+        return Bytes.toStrings(members(zrange(Bytes.of(key), start, end, true)));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrem(java.lang.String, java.lang.String)
+     */
+    public Boolean zrem(String key, String member) {
+        return zrem(Bytes.of(key), Bytes.of(member));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zscore(java.lang.String, java.lang.String)
+     */
+    public Double zscore(String key, String member) {
+        lock.readLock().lock();
+        try {
+            SortedSet set = sortedSet(Bytes.of(key), false);
+            return set == null ? null : set.scores.get(Bytes.of(member));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zcard(java.lang.String)
+     */
+    public Long zcard(String key) {
+        lock.readLock().lock();
+        try {
+            SortedSet set = sortedSet(Bytes.of(key), false);
+            return set == null ? 0L : set.scores.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zadd(byte[], byte[], double)
+     */
+    public Boolean zadd(byte[] key, byte[] member, double score) {
+        return zadd(new Bytes(key), new Bytes(member), score);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrange(byte[], int, int)
+     */
+    public Set<byte[]> zrange(byte[] key, int start, int end) {
+        return Bytes.toBinaries(members(zrange(new Bytes(key), start, end, false)));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrevrange(byte[], int, int)
+     */
+    public Set<byte[]> zrevrange(byte[] key, int start, int end) {
+        return Bytes.toBinaries(members(zrange(new Bytes(key), start, end, true)));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrem(byte[], byte[])
+     */
+    public Boolean zrem(byte[] key, byte[] member) {
+        return zrem(new Bytes(key), new Bytes(member));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrangeByScore(java.lang.String, double, double, int, int)
+     */
+    public Set<String> zrangeByScore(String key, double min, double max, int offset, int count) {
+        return Bytes.toStrings(members(zrangeByScore(Bytes.of(key), min, max, offset, count, false)));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrevrangeByScore(java.lang.String, double, double, int, int)
+     */
+    public Set<String> zrevrangeByScore(String key, double max, double min, int offset, int count) {
+        return Bytes.toStrings(members(zrangeByScore(Bytes.of(key), min, max, offset, count, true)));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrangeByScoreWithScores(java.lang.String, double, double, int, int)
+     */
+    public Set<Tuple> zrangeByScoreWithScores(String key, double min, double max, int offset, int count) {
+        return tuples(zrangeByScore(Bytes.of(key), min, max, offset, count, false));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrevrangeByScoreWithScores(java.lang.String, double, double, int, int)
+     */
+    public Set<Tuple> zrevrangeByScoreWithScores(String key, double max, double min, int offset, int count) {
+        return tuples(zrangeByScore(Bytes.of(key), min, max, offset, count, true));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrangeByScoreWithScores(byte[], double, double, int, int)
+     */
+    public Set<Tuple> zrangeByScoreWithScores(byte[] key, double min, double max, int offset, int count) {
+        return tuples(zrangeByScore(new Bytes(key), min, max, offset, count, false));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrevrangeByScoreWithScores(byte[], double, double, int, int)
+     */
+    public Set<Tuple> zrevrangeByScoreWithScores(byte[] key, double max, double min, int offset, int count) {
+        return tuples(zrangeByScore(new Bytes(key), min, max, offset, count, true));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zremrangeByScore(java.lang.String, double, double)
+     */
+    public Long zremrangeByScore(String key, double min, double max) {
+        lock.writeLock().lock();
+        try {
+            Bytes bkey = Bytes.of(key);
+            List<Scored> removed = zrangeByScore(bkey, min, max, 0, -1, false);
+            return zremAll(bkey, removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zremrangeByRank(java.lang.String, long, long)
+     */
+    public Long zremrangeByRank(String key, long start, long end) {
+        lock.writeLock().lock();
+        try {
+            Bytes bkey = Bytes.of(key);
+            List<Scored> removed = zrange(bkey, start, end, false);
+            return zremAll(bkey, removed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zscan(byte[], byte[], int)
+     */
+    public ScanResult<Tuple> zscan(byte[] key, byte[] cursor, int count) {
+        lock.readLock().lock();
+        try {
+            SortedSet set = sortedSet(new Bytes(key), false);
+            List<Tuple> tuples = new ArrayList<Tuple>();
+            if (set == null) {
+                return new ScanResult<Tuple>(ScanParams.SCAN_POINTER_START_BINARY, tuples);
+            }
+            Iterator<Scored> iterator;
+            if (Arrays.equals(cursor, ScanParams.SCAN_POINTER_START_BINARY)) {
+                iterator = set.ordered.iterator();
+            } else {
+                ByteBuffer buffer = ByteBuffer.wrap(cursor, 1, cursor.length - 1);
+                double score = buffer.getDouble();
+                byte[] member = new byte[buffer.remaining()];
+                buffer.get(member);
+                iterator = set.ordered.tailSet(new Scored(score, new Bytes(member)), false).iterator();
+            }
+            Scored last = null;
+            while (tuples.size() < count && iterator.hasNext()) {
+                last = iterator.next();
+                tuples.add(new Tuple(last.member.data, last.score));
+            }
+            if (!iterator.hasNext()) {
+                return new ScanResult<Tuple>(ScanParams.SCAN_POINTER_START_BINARY, tuples);
+            }
+            ByteBuffer next = ByteBuffer.allocate(9 + last.member.data.length);
+            next.put(SORTED_SET_CURSOR).putDouble(last.score).put(last.member.data);
+            return new ScanResult<Tuple>(next.array(), tuples);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zinterstore(java.lang.String, int, int[], java.lang.String[])
+     */
+    public Long zinterstore(String destination, int seconds, int[] weights, String... keys) {
+        return zstore(Bytes.of(destination), seconds, weights, Bytes.of(keys), SetOperation.INTER);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zunionstore(java.lang.String, int, int[], java.lang.String[])
+     */
+    public Long zunionstore(String destination, int seconds, int[] weights, String... keys) {
+        return zstore(Bytes.of(destination), seconds, weights, Bytes.of(keys), SetOperation.UNION);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zaddAndExpire(java.lang.String, int, java.lang.String, double)
+     */
+    public Boolean zaddAndExpire(String key, int seconds, String member, double score) {
+        return zaddAndExpire(Bytes.of(key), seconds, Bytes.of(member), score);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zaddAndExpire(byte[], int, byte[], double)
+     */
+    public Boolean zaddAndExpire(byte[] key, int seconds, byte[] member, double score) {
+        return zaddAndExpire(new Bytes(key), seconds, new Bytes(member), score);
+    }
+
+    /**
+     * Add the member into sorted set and set the expire time atomically
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds, no expire if not positive
+     * @param member  the member
+     * @param score   the score
+     * @return true if the member is new
+     */
+    private Boolean zaddAndExpire(Bytes key, int seconds, Bytes member, double score) {
+        lock.writeLock().lock();
+        try {
+            Boolean result = zadd(key, member, score);
+            expireIfPositive(key, seconds);
+            return result;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add the member into sorted set
+     *
+     * @param key    the key
+     * @param member the member
+     * @param score  the score
+     * @return true if the member is new
+     */
+    private Boolean zadd(Bytes key, Bytes member, double score) {
+        lock.writeLock().lock();
+        try {
+            Boolean result = sortedSet(key, true).add(member, score);
+            afterWrite();
+            return result;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the member from sorted set
+     *
+     * @param key    the key
+     * @param member the member
+     * @return true if the member is removed
+     */
+    private Boolean zrem(Bytes key, Bytes member) {
+        lock.writeLock().lock();
+        try {
+            SortedSet set = sortedSet(key, false);
+            if (set == null) {
+                return false;
+            }
+            boolean removed = set.remove(member);
+            removeIfEmpty(key, set.scores.keySet());
+            afterWrite();
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the scored members from sorted set, with write lock held
+     *
+     * @param key     the key
+     * @param members the scored members
+     * @return the count removed
+     */
+    private Long zremAll(Bytes key, List<Scored> members) {
+        SortedSet set = sortedSet(key, false);
+        if (set == null) {
+            return 0L;
+        }
+        for (Scored scored : members) {
+            set.remove(scored.member);
+        }
+        removeIfEmpty(key, set.scores.keySet());
+        afterWrite();
+        return (long) members.size();
+    }
+
+    /**
+     * Get the members of sorted set by rank
+     *
+     * @param key     the key
+     * @param start   the start rank, negative from the end
+     * @param end     the end rank, negative from the end
+     * @param reverse whether ordered by score desc
+     * @return the scored members
+     */
+    private List<Scored> zrange(Bytes key, long start, long end, boolean reverse) {
+        lock.readLock().lock();
+        try {
+            List<Scored> result = new ArrayList<Scored>();
+            SortedSet set = sortedSet(key, false);
+            if (set == null) {
+                return result;
+            }
+            long size = set.scores.size();
+            start = start < 0 ? Math.max(size + start, 0) : start;
+            end = end < 0 ? size + end : Math.min(end, size - 1);
+            long rank = 0;
+            for (Iterator<Scored> iterator = reverse ? set.ordered.descendingIterator() : set.ordered.iterator(); iterator.hasNext() && rank <= end; rank++) {
+                Scored scored = iterator.next();
+                if (rank >= start) {
+                    result.add(scored);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the members of sorted set by score
+     *
+     * @param key     the key
+     * @param min     the min score, inclusive
+     * @param max     the max score, inclusive
+     * @param offset  the offset of the first member to return
+     * @param count   the max count of members to return, negative for all
+     * @param reverse whether ordered by score desc
+     * @return the scored members
+     */
+    private List<Scored> zrangeByScore(Bytes key, double min, double max, int offset, int count, boolean reverse) {
+        lock.readLock().lock();
+        try {
+            List<Scored> result = new ArrayList<Scored>();
+            SortedSet set = sortedSet(key, false);
+            if (set == null) {
+                return result;
+            }
+            Iterator<Scored> iterator = reverse ? set.ordered.descendingIterator() : set.ordered.tailSet(new Scored(min, Bytes.EMPTY)).iterator();
+            int skipped = 0;
+            while (iterator.hasNext() && (count < 0 || result.size() < count)) {
+                Scored scored = iterator.next();
+                if (reverse ? scored.score > max : scored.score < min) {
+                    continue;
+                }
+                if (reverse ? scored.score < min : scored.score > max) {
+                    break;
+                }
+                if (skipped++ >= offset) {
+                    result.add(scored);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Combine the sorted sets with weighted sum of scores and store the result into destination
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param weights     the weights of keys, null for all 1
+     * @param keys        the keys
+     * @param operation   the set operation
+     * @return the size of result
+     */
+    private Long zstore(Bytes destination, int seconds, int[] weights, List<Bytes> keys, SetOperation operation) {
+        lock.writeLock().lock();
+        try {
+            Map<Bytes, Double> result = null;
+            for (int i = 0; i < keys.size(); i++) {
+                Map<Bytes, Double> scores = scores(keys.get(i));
+                int weight = weights == null ? 1 : weights[i];
+                if (result == null) {
+                    result = new LinkedHashMap<Bytes, Double>();
+                    for (Map.Entry<Bytes, Double> entry : scores.entrySet()) {
+                        result.put(entry.getKey(), entry.getValue() * weight);
+                    }
+                } else if (operation == SetOperation.INTER) {
+                    result.keySet().retainAll(scores.keySet());
+                    for (Map.Entry<Bytes, Double> entry : result.entrySet()) {
+                        entry.setValue(entry.getValue() + scores.get(entry.getKey()) * weight);
+                    }
+                } else {
+                    for (Map.Entry<Bytes, Double> entry : scores.entrySet()) {
+                        Double score = result.get(entry.getKey());
+                        result.put(entry.getKey(), (score == null ? 0 : score) + entry.getValue() * weight);
+                    }
+                }
+            }
+            entries.remove(destination);
+            if (!result.isEmpty()) {
+                SortedSet set = sortedSet(destination, true);
+                for (Map.Entry<Bytes, Double> entry : result.entrySet()) {
+                    set.add(entry.getKey(), entry.getValue());
+                }
+                expireIfPositive(destination, seconds);
+            }
+            afterWrite();
+            return (long) result.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the scores of sorted set, or of set with score 1 like redis does
+     *
+     * @param key the key
+     * @return the scores of members
+     */
+    private Map<Bytes, Double> scores(Bytes key) {
+        Entry entry = lookup(key);
+        if (entry == null) {
+            return new HashMap<Bytes, Double>();
+        } else if (entry.value instanceof SortedSet) {
+            return ((SortedSet) entry.value).scores;
+        }
+        Map<Bytes, Double> scores = new HashMap<Bytes, Double>();
+        for (Bytes member : set(key, false)) {
+            scores.put(member, 1.0);
+        }
+        return scores;
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zincrby(java.lang.String, java.lang.String, double)
+     */
+    public Double zincrby(String key, String member, double delta) {
+        return zincrbyAndExpire(key, 0, member, delta);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zincrbyAndExpire(java.lang.String, int, java.lang.String, double)
+     */
+    public Double zincrbyAndExpire(String key, int seconds, String member, double delta) {
+        lock.writeLock().lock();
+        try {
+            Bytes bkey = Bytes.of(key);
+            Bytes bmember = Bytes.of(member);
+            SortedSet set = sortedSet(bkey, true);
+            Double current = set.scores.get(bmember);
+            double score = (current == null ? 0 : current) + delta;
+            set.add(bmember, score);
+            expireIfPositive(bkey, seconds);
+            afterWrite();
+            return score;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrank(java.lang.String, java.lang.String)
+     */
+    public Long zrank(String key, String member) {
+        return zrank(Bytes.of(key), Bytes.of(member), false);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrevrank(java.lang.String, java.lang.String)
+     */
+    public Long zrevrank(String key, String member) {
+        return zrank(Bytes.of(key), Bytes.of(member), true);
+    }
+
+    /**
+     * Get the rank of member in sorted set
+     *
+     * @param key     the key
+     * @param member  the member
+     * @param reverse whether ordered by score desc
+     * @return the rank from 0, or null if the member does not exist
+     */
+    private Long zrank(Bytes key, Bytes member, boolean reverse) {
+        lock.readLock().lock();
+        try {
+            SortedSet set = sortedSet(key, false);
+            Double score = set == null ? null : set.scores.get(member);
+            if (score == null) {
+                return null;
+            }
+            Scored scored = new Scored(score, member);
+            return (long) (reverse ? set.ordered.tailSet(scored, false).size() : set.ordered.headSet(scored).size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrangeWithScores(java.lang.String, long, long)
+     */
+    public Set<Tuple> zrangeWithScores(String key, long start, long end) {
+        return tuples(zrange(Bytes.of(key), start, end, false));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrevrangeWithScores(java.lang.String, long, long)
+     */
+    public Set<Tuple> zrevrangeWithScores(String key, long start, long end) {
+        return tuples(zrange(Bytes.of(key), start, end, true));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zcardFromMaster(java.lang.String)
+     */
+    public Long zcardFromMaster(String key) {
+        return zcard(key);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrevrankFromMaster(java.lang.String, java.lang.String)
+     */
+    public Long zrevrankFromMaster(String key, String member) {
+        return zrevrank(key, member);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrevrangeWithScoresFromMaster(java.lang.String, long, long)
+     */
+    public Set<Tuple> zrevrangeWithScoresFromMaster(String key, long start, long end) {
+        return zrevrangeWithScores(key, start, end);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#expire(java.lang.String, int)
+     */
+    public Long expire(String key, int seconds) {
+        lock.writeLock().lock();
+        try {
+            Bytes bkey = Bytes.of(key);
+            Entry entry = lookup(bkey);
+            if (entry == null) {
+                return 0L;
+            }
+            if (seconds <= 0) {
+                entries.remove(bkey);
+            } else {
+                entry.expireAt = expireAt(seconds);
+            }
+            afterWrite();
+            return 1L;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#expireIfVolatile(java.lang.String, int)
+     */
+    public Boolean expireIfVolatile(String key, int seconds) {
+        return expireIfVolatile(Bytes.of(key), seconds);
+    }
+
+    /**
+     * Reset the expire time of key if the key has one
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds, the key is removed if not positive
+     * @return true if the expire time is reset
+     */
+    private boolean expireIfVolatile(Bytes key, int seconds) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = lookup(key);
+            if (entry == null || entry.expireAt == 0) {
+                return false;
+            }
+            if (seconds <= 0) {
+                entries.remove(key);
+            } else {
+                entry.expireAt = expireAt(seconds);
+            }
+            afterWrite();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#smembersAndRefresh(java.lang.String, int)
+     */
+    public Set<String> smembersAndRefresh(String key, int seconds) {
+        return refresh(Bytes.of(key), seconds, smembers(key));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#smembersAndRefresh(byte[], int)
+     */
+    public Set<byte[]> smembersAndRefresh(byte[] key, int seconds) {
+        return refresh(new Bytes(key), seconds, smembers(key));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrangeAndRefresh(java.lang.String, int, int, int)
+     */
+    public Set<String> zrangeAndRefresh(String key, int seconds, int start, int end) {
+        return refresh(Bytes.of(key), seconds, zrange(key, start, end));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrangeAndRefresh(byte[], int, int, int)
+     */
+    public Set<byte[]> zrangeAndRefresh(byte[] key, int seconds, int start, int end) {
+        return refresh(new Bytes(key), seconds, zrange(key, start, end));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrevrangeAndRefresh(java.lang.String, int, int, int)
+     */
+    public Set<String> zrevrangeAndRefresh(String key, int seconds, int start, int end) {
+        return refresh(Bytes.of(key), seconds, zrevrange(key, start, end));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrevrangeAndRefresh(byte[], int, int, int)
+     */
+    public Set<byte[]> zrevrangeAndRefresh(byte[] key, int seconds, int start, int end) {
+        return refresh(new Bytes(key), seconds, zrevrange(key, start, end));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrangeByScoreAndRefresh(java.lang.String, int, double, double, int, int)
+     */
+    public Set<String> zrangeByScoreAndRefresh(String key, int seconds, double min, double max, int offset, int count) {
+        return refresh(Bytes.of(key), seconds, zrangeByScore(key, min, max, offset, count));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrevrangeByScoreAndRefresh(java.lang.String, int, double, double, int, int)
+     */
+    public Set<String> zrevrangeByScoreAndRefresh(String key, int seconds, double max, double min, int offset, int count) {
+        return refresh(Bytes.of(key), seconds, zrevrangeByScore(key, max, min, offset, count));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrangeByScoreWithScoresAndRefresh(byte[], int, double, double, int, int)
+     */
+    public Set<Tuple> zrangeByScoreWithScoresAndRefresh(byte[] key, int seconds, double min, double max, int offset, int count) {
+        return refresh(new Bytes(key), seconds, zrangeByScoreWithScores(key, min, max, offset, count));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#zrevrangeByScoreWithScoresAndRefresh(byte[], int, double, double, int, int)
+     */
+    public Set<Tuple> zrevrangeByScoreWithScoresAndRefresh(byte[] key, int seconds, double max, double min, int offset, int count) {
+        return refresh(new Bytes(key), seconds, zrevrangeByScoreWithScores(key, max, min, offset, count));
+    }
+
+    /**
+     * Reset the expire time of key after a read hit, if the key has one
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds, no reset if not positive
+     * @param result  the result of read
+     * @return the result of read
+     */
+    private <C extends Collection<?>> C refresh(Bytes key, int seconds, C result) {
+        if (seconds > 0 && !result.isEmpty()) {
+            expireIfVolatile(key, seconds);
+        }
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#hset(java.lang.String, java.lang.String, java.lang.String)
+     */
+    public Boolean hset(String key, String field, String value) {
+        lock.writeLock().lock();
+        try {
+            Bytes previous = hash(Bytes.of(key), true).put(Bytes.of(field), Bytes.of(value));
+            afterWrite();
+            return previous == null ? true : false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#hget(java.lang.String, java.lang.String)
+     */
+    public String hget(String key, String field) {
+        lock.readLock().lock();
+        try {
+            Map<Bytes, Bytes> hash = hash(Bytes.of(key), false);
+            Bytes value = hash == null ? null : hash.get(Bytes.of(field));
+            return value == null ? null : value.toString();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#hmset(java.lang.String, java.util.Map)
+     */
+    public void hmset(String key, Map<String, String> fields) {
+        lock.writeLock().lock();
+        try {
+            Map<Bytes, Bytes> hash = hash(Bytes.of(key), true);
+            for (Map.Entry<String, String> field : fields.entrySet()) {
+                hash.put(Bytes.of(field.getKey()), Bytes.of(field.getValue()));
+            }
+            afterWrite();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#hmget(java.lang.String, java.lang.String[])
+     */
+    public List<String> hmget(String key, String... fields) {
+        lock.readLock().lock();
+        try {
+            Map<Bytes, Bytes> hash = hash(Bytes.of(key), false);
+            List<String> values = new ArrayList<String>(fields.length);
+            for (String field : fields) {
+                Bytes value = hash == null ? null : hash.get(Bytes.of(field));
+                values.add(value == null ? null : value.toString());
+            }
+            return values;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#hgetAll(java.lang.String)
+     */
+    public Map<String, String> hgetAll(String key) {
+        lock.readLock().lock();
+        try {
+            Map<Bytes, Bytes> hash = hash(Bytes.of(key), false);
+            Map<String, String> result = new HashMap<String, String>();
+            if (hash != null) {
+                for (Map.Entry<Bytes, Bytes> field : hash.entrySet()) {
+                    result.put(field.getKey().toString(), field.getValue().toString());
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#hincrBy(java.lang.String, java.lang.String, long)
+     */
+    public Long hincrBy(String key, String field, long delta) {
+        lock.writeLock().lock();
+        try {
+            Map<Bytes, Bytes> hash = hash(Bytes.of(key), true);
+            Bytes value = hash.get(Bytes.of(field));
+            long result = (value == null ? 0 : parseLong(value)) + delta;
+            hash.put(Bytes.of(field), Bytes.of(String.valueOf(result)));
+            afterWrite();
+            return result;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#hdel(java.lang.String, java.lang.String[])
+     */
+    public Long hdel(String key, String... fields) {
+        lock.writeLock().lock();
+        try {
+            Bytes bkey = Bytes.of(key);
+            Map<Bytes, Bytes> hash = hash(bkey, false);
+            if (hash == null) {
+                return 0L;
+            }
+            long count = 0;
+            for (String field : fields) {
+                count += hash.remove(Bytes.of(field)) == null ? 0 : 1;
+            }
+            removeIfEmpty(bkey, hash.keySet());
+            afterWrite();
+            return count;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#hmsetAndDel(java.lang.String, java.util.Map, java.lang.String[])
+     */
+    public void hmsetAndDel(String key, Map<String, String> fields, String... deletedFields) {
+        lock.writeLock().lock();
+        try {
+            Bytes bkey = Bytes.of(key);
+            Map<Bytes, Bytes> hash = hash(bkey, !fields.isEmpty());
+            if (hash == null) {
+                return;
+            }
+            for (String field : deletedFields) {
+                hash.remove(Bytes.of(field));
+            }
+            for (Map.Entry<String, String> field : fields.entrySet()) {
+                hash.put(Bytes.of(field.getKey()), Bytes.of(field.getValue()));
+            }
+            removeIfEmpty(bkey, hash.keySet());
+            afterWrite();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#pfadd(java.lang.String, java.lang.String[])
+     */
+    public Boolean pfadd(String key, String... elements) {
+        lock.writeLock().lock();
+        try {
+            Bytes bkey = Bytes.of(key);
+            HyperLogLog hyperLogLog = value(bkey, HyperLogLog.class);
+            boolean altered = hyperLogLog == null;
+            if (hyperLogLog == null) {
+                hyperLogLog = new HyperLogLog();
+                entries.put(bkey, new Entry(hyperLogLog, 0));
+            }
+            for (String element : elements) {
+                altered |= hyperLogLog.add(Bytes.of(element));
+            }
+            afterWrite();
+            return altered;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#pfcount(java.lang.String[])
+     */
+    public Long pfcount(String... keys) {
+        lock.readLock().lock();
+        try {
+            return merge(Bytes.of(keys)).count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#pfmerge(java.lang.String, int, java.lang.String[])
+     */
+    public Long pfmerge(String destination, int seconds, String... keys) {
+        lock.writeLock().lock();
+        try {
+            Bytes bdestination = Bytes.of(destination);
+            List<Bytes> bkeys = Bytes.of(keys);
+            bkeys.add(bdestination);
+            HyperLogLog merged = merge(bkeys);
+            entries.put(bdestination, new Entry(merged, 0));
+            expireIfPositive(bdestination, seconds);
+            afterWrite();
+            return merged.count();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Merge the HyperLogLogs into a new one, missing keys are taken as empty
+     *
+     * @param keys the keys
+     * @return the merged HyperLogLog
+     */
+    private HyperLogLog merge(List<Bytes> keys) {
+        HyperLogLog merged = new HyperLogLog();
+        for (Bytes key : keys) {
+            HyperLogLog hyperLogLog = value(key, HyperLogLog.class);
+            if (hyperLogLog != null) {
+                merged.merge(hyperLogLog);
+            }
+        }
+        return merged;
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#setbit(java.lang.String, long, boolean)
+     */
+    public Boolean setbit(String key, long offset, boolean value) {
+        if (offset < 0 || offset >= MAX_BIT_OFFSET) {
+            throw new JedisDataException(INVALID_BIT_OFFSET);
+        }
+        lock.writeLock().lock();
+        try {
+            Bytes bkey = Bytes.of(key);
+            Bytes current = string(bkey);
+            byte[] data = current == null ? new byte[0] : current.data;
+            int index = (int) (offset >>> 3);
+            int mask = 0x80 >>> (offset & 7);
+            boolean previous = index < data.length && (data[index] & mask) != 0;
+            byte[] updated = Arrays.copyOf(data, Math.max(data.length, index + 1));
+            updated[index] = (byte) (value ? updated[index] | mask : updated[index] & ~mask);
+            entries.put(bkey, new Entry(new Bytes(updated), current == null ? 0 : entries.get(bkey).expireAt));
+            afterWrite();
+            return previous;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#getbit(java.lang.String, long)
+     */
+    public Boolean getbit(String key, long offset) {
+        if (offset < 0 || offset >= MAX_BIT_OFFSET) {
+            throw new JedisDataException(INVALID_BIT_OFFSET);
+        }
+        lock.readLock().lock();
+        try {
+            Bytes value = string(Bytes.of(key));
+            int index = (int) (offset >>> 3);
+            return value != null && index < value.data.length && (value.data[index] & (0x80 >>> (offset & 7))) != 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#bitcount(java.lang.String)
+     */
+    public Long bitcount(String key) {
+        return bitcount(key, 0, -1);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#bitcount(java.lang.String, long, long)
+     */
+    public Long bitcount(String key, long start, long end) {
+        lock.readLock().lock();
+        try {
+            Bytes value = string(Bytes.of(key));
+            if (value == null) {
+                return 0L;
+            }
+            long length = value.data.length;
+            start = start < 0 ? Math.max(length + start, 0) : start;
+            end = end < 0 ? length + end : Math.min(end, length - 1);
+            long count = 0;
+            for (long i = start; i <= end; i++) {
+                count += Integer.bitCount(value.data[(int) i] & 0xff);
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.RedisOperations#bitop(redis.clients.jedis.BitOP, java.lang.String, int, java.lang.String[])
+     */
+    public Long bitop(BitOP operation, String destination, int seconds, String... keys) {
+        if (operation == BitOP.NOT && keys.length != 1) {
+            throw new JedisDataException("ERR BITOP NOT must be called with a single source key.");
+        }
+        lock.writeLock().lock();
+        try {
+            List<byte[]> values = new ArrayList<byte[]>(keys.length);
+            int length = 0;
+            for (String key : keys) {
+                Bytes value = string(Bytes.of(key));
+                values.add(value == null ? new byte[0] : value.data);
+                length = Math.max(length, values.get(values.size() - 1).length);
+            }
+            byte[] result = new byte[length];
+            for (int i = 0; i < length; i++) {
+                int bits = i < values.get(0).length ? values.get(0)[i] : 0;
+                for (byte[] value : values.subList(1, values.size())) {
+                    int other = i < value.length ? value[i] : 0;
+                    bits = operation == BitOP.AND ? bits & other : operation == BitOP.OR ? bits | other : bits ^ other;
+                }
+                result[i] = (byte) (operation == BitOP.NOT ? ~bits : bits);
+            }
+            Bytes bdestination = Bytes.of(destination);
+            entries.remove(bdestination);
+            if (length > 0) {
+                entries.put(bdestination, new Entry(new Bytes(result), 0));
+                expireIfPositive(bdestination, seconds);
+            }
+            afterWrite();
+            return (long) length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the live entry of key, removing it if expired
+     *
+     * @param key the key
+     * @return the entry, or null if missing or expired
+     */
+    private Entry lookup(Bytes key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Get the value of key with the expected type
+     *
+     * @param key  the key
+     * @param type the expected type
+     * @return the value, or null if missing
+     */
+    private <T> T value(Bytes key, Class<T> type) {
+        Entry entry = lookup(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!type.isInstance(entry.value)) {
+            throw new JedisDataException(WRONG_TYPE);
+        }
+        return type.cast(entry.value);
+    }
+
+    private Bytes string(Bytes key) {
+        return value(key, Bytes.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private LinkedList<Bytes> list(Bytes key, boolean create) {
+        LinkedList<Bytes> list = value(key, LinkedList.class);
+        if (list == null && create) {
+            list = new LinkedList<Bytes>();
+            entries.put(key, new Entry(list, 0));
+        }
+        return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    private NavigableSet<Bytes> set(Bytes key, boolean create) {
+        NavigableSet<Bytes> set = value(key, ConcurrentSkipListSet.class);
+        if (set == null && create) {
+            set = new ConcurrentSkipListSet<Bytes>();
+            entries.put(key, new Entry(set, 0));
+        }
+        return set;
+    }
+
+    private SortedSet sortedSet(Bytes key, boolean create) {
+        SortedSet set = value(key, SortedSet.class);
+        if (set == null && create) {
+            set = new SortedSet();
+            entries.put(key, new Entry(set, 0));
+        }
+        return set;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Bytes, Bytes> hash(Bytes key, boolean create) {
+        Map<Bytes, Bytes> hash = value(key, ConcurrentHashMap.class);
+        if (hash == null && create) {
+            hash = new ConcurrentHashMap<Bytes, Bytes>();
+            entries.put(key, new Entry(hash, 0));
+        }
+        return hash;
+    }
+
+    /**
+     * Set the expire time of existing key, with write lock held
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds, no expire if not positive
+     */
+    private void expireIfPositive(Bytes key, int seconds) {
+        Entry entry = entries.get(key);
+        if (entry != null && seconds > 0) {
+            entry.expireAt = expireAt(seconds);
+        }
+    }
+
+    /**
+     * Remove the key whose collection becomes empty, like redis does
+     *
+     * @param key        the key
+     * @param collection the collection
+     */
+    private void removeIfEmpty(Bytes key, Collection<?> collection) {
+        if (collection.isEmpty()) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Purge the expired keys every some writes
+     */
+    private void afterWrite() {
+        if (writes.incrementAndGet() % PURGE_INTERVAL == 0) {
+            purgeExpired();
+        }
+    }
+
+    private static long expireAt(int seconds) {
+        return System.currentTimeMillis() + seconds * 1000L;
+    }
+
+    private static long parseLong(Bytes value) {
+        try {
+            return Long.parseLong(value.toString());
+        } catch (NumberFormatException e) {
+            throw new JedisDataException(NOT_INTEGER);
+        }
+    }
+
+    private static List<Bytes> members(List<Scored> scoreds) {
+        List<Bytes> members = new ArrayList<Bytes>(scoreds.size());
+        for (Scored scored : scoreds) {
+            members.add(scored.member);
+        }
+        return members;
+    }
+
+    private static Set<Tuple> tuples(List<Scored> scoreds) {
+        Set<Tuple> tuples = new LinkedHashSet<Tuple>(scoreds.size() * 2);
+        for (Scored scored : scoreds) {
+            tuples.add(new Tuple(scored.member.data, scored.score));
+        }
+        return tuples;
+    }
+
+    /**
+     * Operation combining sets
+     */
+    private enum SetOperation {
+
+        INTER, UNION, DIFF
+    }
+
+    /**
+     * Value of key with its expire time
+     */
+    private static class Entry {
+
+        private final Object value;
+
+        private volatile long expireAt;
+
+        private Entry(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expireAt > 0 && expireAt <= now;
+        }
+    }
+
+    /**
+     * Sorted set kept as a map of scores and a skip list ordered by score then member
+     */
+    private static class SortedSet {
+
+        private final ConcurrentMap<Bytes, Double> scores = new ConcurrentHashMap<Bytes, Double>();
+
+        private final ConcurrentSkipListSet<Scored> ordered = new ConcurrentSkipListSet<Scored>();
+
+        private boolean add(Bytes member, double score) {
+            Double previous = scores.put(member, score);
+            if (previous != null) {
+                ordered.remove(new Scored(previous, member));
+            }
+            ordered.add(new Scored(score, member));
+            return previous == null;
+        }
+
+        private boolean remove(Bytes member) {
+            Double previous = scores.remove(member);
+            if (previous == null) {
+                return false;
+            }
+            ordered.remove(new Scored(previous, member));
+            return true;
+        }
+    }
+
+    /**
+     * Member of sorted set with its score
+     */
+    private static class Scored implements Comparable<Scored> {
+
+        private final double score;
+
+        private final Bytes member;
+
+        private Scored(double score, Bytes member) {
+            this.score = score;
+            this.member = member;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Comparable#compareTo(java.lang.Object)
+         */
+        public int compareTo(Scored other) {
+            int result = Double.compare(score, other.score);
+            return result != 0 ? result : member.compareTo(other.member);
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Scored && compareTo((Scored) object) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return member.hashCode();
+        }
+    }
+
+    /**
+     * HyperLogLog with 16384 registers like redis, the standard error is 0.81%
+     */
+    private static class HyperLogLog {
+
+        private static final int PRECISION = 14;
+
+        private static final int REGISTERS = 1 << PRECISION;
+
+        private static final int SEED = 0xadc83b19;
+
+        private final byte[] registers = new byte[REGISTERS];
+
+        private boolean add(Bytes element) {
+            long hash = MurmurHash.hash64A(element.data, SEED);
+            int index = (int) (hash & (REGISTERS - 1));
+            byte rank = (byte) (Long.numberOfTrailingZeros((hash >>> PRECISION) | (1L << (64 - PRECISION))) + 1);
+            if (rank <= registers[index]) {
+                return false;
+            }
+            registers[index] = rank;
+            return true;
+        }
+
+        private void merge(HyperLogLog other) {
+            for (int i = 0; i < REGISTERS; i++) {
+                registers[i] = (byte) Math.max(registers[i], other.registers[i]);
+            }
+        }
+
+        private long count() {
+            double sum = 0;
+            int zeros = 0;
+            for (byte register : registers) {
+                sum += 1.0 / (1L << register);
+                zeros += register == 0 ? 1 : 0;
+            }
+            double estimate = 0.7213 / (1 + 1.079 / REGISTERS) * REGISTERS * REGISTERS / sum;
+            if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+                // linear counting for small cardinalities
+                estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+            }
+            return Math.round(estimate);
+        }
+    }
+
+    /**
+     * Immutable bytes compared like redis compares strings
+     */
+    private static final class Bytes implements Comparable<Bytes> {
+
+        private static final Bytes EMPTY = new Bytes(new byte[0]);
+
+        private final byte[] data;
+
+        private final int hash;
+
+        private Bytes(byte[] data) {
+            this.data = data;
+            this.hash = Arrays.hashCode(data);
+        }
+
+        private static Bytes of(String value) {
+            return new Bytes(SafeEncoder.encode(value));
+        }
+
+        private static List<Bytes> of(String... values) {
+            List<Bytes> result = new ArrayList<Bytes>(values.length);
+            for (String value : values) {
+                result.add(of(value));
+            }
+            return result;
+        }
+
+        private static List<Bytes> of(byte[]... values) {
+            List<Bytes> result = new ArrayList<Bytes>(values.length);
+            for (byte[] value : values) {
+                result.add(new Bytes(value));
+            }
+            return result;
+        }
+
+        private static Set<String> toStrings(Collection<Bytes> values) {
+            Set<String> result = new LinkedHashSet<String>(values.size() * 2);
+            for (Bytes value : values) {
+                result.add(value.toString());
+            }
+            return result;
+        }
+
+        private static Set<byte[]> toBinaries(Collection<Bytes> values) {
+            Set<byte[]> result = new LinkedHashSet<byte[]>(values.size() * 2);
+            for (Bytes value : values) {
+                result.add(value.data);
+            }
+            return result;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Comparable#compareTo(java.lang.Object)
+         */
+        public int compareTo(Bytes other) {
+            int length = Math.min(data.length, other.data.length);
+            for (int i = 0; i < length; i++) {
+                int result = (data[i] & 0xff) - (other.data[i] & 0xff);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return data.length - other.data.length;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Bytes && Arrays.equals(data, ((Bytes) object).data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return SafeEncoder.encode(data);
+        }
+    }
+
+}
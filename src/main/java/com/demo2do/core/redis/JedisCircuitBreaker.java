@@ -0,0 +1,348 @@
+package com.demo2do.core.redis;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Circuit breaker around the commands of {@link JedisTemplate}
+ * <p/>
+ * The outcome of the last calls is counted in a sliding window of per second buckets, updated
+ * by atomic counters without locking. When the window holds enough calls and the rate of failed
+ * or slow calls reaches its threshold, the breaker opens and the calls fail fast with
+ * {@link CircuitBreakerOpenException}. After the open duration it lets a few trial calls through,
+ * closing again if all of them succeed in time, or opening again on the first bad one.
+ * <p/>
+ * Only connection and pool failures count, the errors replied by redis for a bad command don't.
+ *
+ * @author David
+ */
+public class JedisCircuitBreaker {
+
+    private static final Log logger = LogFactory.getLog(JedisCircuitBreaker.class);
+
+    /**
+     * The state of circuit breaker
+     */
+    public enum State {
+
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private int windowSeconds = 10;
+
+    private int minimumCalls = 20;
+
+    private int failureRateThreshold = 50;
+
+    private int slowCallRateThreshold = 80;
+
+    private long slowCallNanos = TimeUnit.SECONDS.toNanos(1);
+
+    private long openMillis = 5000L;
+
+    private int halfOpenCalls = 5;
+
+    private volatile State state = State.CLOSED;
+
+    private volatile long openedAt;
+
+    private volatile Window window = new Window(windowSeconds);
+
+    private final AtomicInteger trialsStarted = new AtomicInteger();
+
+    private final AtomicInteger trialsSucceeded = new AtomicInteger();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * @param windowSeconds the seconds of last calls the rates are computed from
+     */
+    public synchronized void setWindowSeconds(int windowSeconds) {
+        this.windowSeconds = windowSeconds;
+        window = new Window(windowSeconds);
+    }
+
+    /**
+     * @param minimumCalls the min count of calls in window before the breaker may open
+     */
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+
+    /**
+     * @param failureRateThreshold the percentage of failed calls which opens the breaker
+     */
+    public void setFailureRateThreshold(int failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    /**
+     * @param slowCallRateThreshold the percentage of slow calls which opens the breaker
+     */
+    public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+        this.slowCallRateThreshold = slowCallRateThreshold;
+    }
+
+    /**
+     * @param slowCallMillis the milliseconds from pool borrow to reply above which a call is slow
+     */
+    public void setSlowCallMillis(long slowCallMillis) {
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallMillis);
+    }
+
+    /**
+     * @param openMillis the milliseconds the breaker stays open before trial calls
+     */
+    public void setOpenMillis(long openMillis) {
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * @param halfOpenCalls the count of successful trial calls required to close the breaker
+     */
+    public void setHalfOpenCalls(int halfOpenCalls) {
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    /**
+     * Create a closed circuit breaker with the same settings, for another pool
+     *
+     * @return the new circuit breaker
+     */
+    public synchronized JedisCircuitBreaker copy() {
+        JedisCircuitBreaker copy = new JedisCircuitBreaker();
+        copy.setWindowSeconds(windowSeconds);
+        copy.minimumCalls = minimumCalls;
+        copy.failureRateThreshold = failureRateThreshold;
+        copy.slowCallRateThreshold = slowCallRateThreshold;
+        copy.slowCallNanos = slowCallNanos;
+        copy.openMillis = openMillis;
+        copy.halfOpenCalls = halfOpenCalls;
+        return copy;
+    }
+
+    /**
+     * Check whether the calls are rejected now, without taking a trial call
+     *
+     * @return true if open and the open duration has not elapsed
+     */
+    public boolean isOpen() {
+        return state == State.OPEN && System.currentTimeMillis() - openedAt < openMillis;
+    }
+
+    /**
+     * Check whether a call is permitted
+     *
+     * @return true if the call may go to redis
+     */
+    public boolean tryAcquire() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+                transitTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN && trialsStarted.get() < halfOpenCalls) {
+                trialsStarted.incrementAndGet();
+                return true;
+            }
+            if (state == State.CLOSED) {
+                return true;
+            }
+        }
+        rejectedCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Record the outcome of a permitted call. The call is counted in the bucket of current second
+     * without locking, only a change of state is synchronized.
+     *
+     * @param nanos  the nanoseconds the call took
+     * @param failed whether the call failed for connection or pool problems
+     */
+    public void record(long nanos, boolean failed) {
+        boolean slow = nanos >= slowCallNanos;
+        State current = state;
+        if (current == State.HALF_OPEN) {
+            if (failed || slow) {
+                transitFrom(State.HALF_OPEN, State.OPEN);
+            } else if (succeedTrial() >= halfOpenCalls) {
+                transitFrom(State.HALF_OPEN, State.CLOSED);
+            }
+            return;
+        }
+        if (current == State.OPEN) {
+            return;
+        }
+
+        Window counting = window;
+        counting.add(System.currentTimeMillis() / 1000, failed, slow);
+        if (failed || slow) {
+            long[] counts = counting.sum(System.currentTimeMillis() / 1000);
+            if (counts[0] >= minimumCalls
+                    && (counts[1] * 100 >= failureRateThreshold * counts[0] || counts[2] * 100 >= slowCallRateThreshold * counts[0])) {
+                transitFrom(State.CLOSED, State.OPEN);
+            }
+        }
+    }
+
+    /**
+     * Count a successful trial call, unless all the started trials have succeeded already
+     *
+     * @return the count of succeeded trials
+     */
+    private int succeedTrial() {
+        while (true) {
+            int succeeded = trialsSucceeded.get();
+            if (succeeded >= trialsStarted.get()) {
+                return succeeded;
+            }
+            if (trialsSucceeded.compareAndSet(succeeded, succeeded + 1)) {
+                return succeeded + 1;
+            }
+        }
+    }
+
+    /**
+     * Change the state if it is still the expected one
+     *
+     * @param expected the expected state
+     * @param target   the new state
+     */
+    private synchronized void transitFrom(State expected, State target) {
+        if (state == expected) {
+            transitTo(target);
+        }
+    }
+
+    /**
+     * Change the state and reset the counters of the new state
+     *
+     * @param target the new state
+     */
+    private void transitTo(State target) {
+        long[] counts = window.sum(System.currentTimeMillis() / 1000);
+        logger.warn("Jedis circuit breaker transits from " + state + " to " + target
+                + ", failed calls " + counts[1] + ", slow calls " + counts[2] + " of " + counts[0]);
+        if (target == State.OPEN) {
+            openedAt = System.currentTimeMillis();
+        }
+        trialsStarted.set(0);
+        trialsSucceeded.set(0);
+        window = new Window(windowSeconds);
+        state = target;
+    }
+
+    /**
+     * Force the breaker back to closed
+     */
+    public synchronized void reset() {
+        transitTo(State.CLOSED);
+        rejectedCount.set(0);
+    }
+
+    /**
+     * @return the state
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return the percentage of failed calls in window
+     */
+    public int getFailureRate() {
+        long[] counts = window.sum(System.currentTimeMillis() / 1000);
+        return counts[0] == 0 ? 0 : (int) (counts[1] * 100 / counts[0]);
+    }
+
+    /**
+     * @return the percentage of slow calls in window
+     */
+    public int getSlowCallRate() {
+        long[] counts = window.sum(System.currentTimeMillis() / 1000);
+        return counts[0] == 0 ? 0 : (int) (counts[2] * 100 / counts[0]);
+    }
+
+    /**
+     * @return the count of calls rejected since created or reset
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Sliding window of call counts, one bucket per second. A bucket is reused for a later second
+     * once the window has passed it, and the counts are approximate while it is being reset.
+     */
+    private static class Window {
+
+        private final int size;
+
+        private final AtomicLongArray seconds;
+
+        private final AtomicLongArray calls;
+
+        private final AtomicLongArray failures;
+
+        private final AtomicLongArray slows;
+
+        private Window(int size) {
+            this.size = size;
+            this.seconds = new AtomicLongArray(size);
+            this.calls = new AtomicLongArray(size);
+            this.failures = new AtomicLongArray(size);
+            this.slows = new AtomicLongArray(size);
+        }
+
+        /**
+         * Count a call in the bucket of the second
+         *
+         * @param second the second of call
+         * @param failed whether the call failed
+         * @param slow   whether the call is slow
+         */
+        private void add(long second, boolean failed, boolean slow) {
+            int index = (int) (second % size);
+            long bucketSecond = seconds.get(index);
+            if (bucketSecond != second && seconds.compareAndSet(index, bucketSecond, second)) {
+                calls.set(index, 0);
+                failures.set(index, 0);
+                slows.set(index, 0);
+            }
+            calls.incrementAndGet(index);
+            if (failed) {
+                failures.incrementAndGet(index);
+            }
+            if (slow) {
+                slows.incrementAndGet(index);
+            }
+        }
+
+        /**
+         * Sum the buckets within the window
+         *
+         * @param second the current second
+         * @return the counts of calls, failed calls and slow calls
+         */
+        private long[] sum(long second) {
+            long[] counts = new long[3];
+            for (int i = 0; i < size; i++) {
+                if (second - seconds.get(i) < size) {
+                    counts[0] += calls.get(i);
+                    counts[1] += failures.get(i);
+                    counts[2] += slows.get(i);
+                }
+            }
+            return counts;
+        }
+    }
+
+}
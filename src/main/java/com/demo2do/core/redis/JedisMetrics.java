@@ -0,0 +1,319 @@
+package com.demo2do.core.redis;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per command metrics of {@link JedisTemplate}, recording the time waiting on pool
+ * separately from the time executing command, the count of broken connections and the count
+ * of connections failed to borrow from pool.
+ * <p/>
+ * All the counters are lock free, the times are kept in histograms with power-of-two
+ * microsecond buckets.
+ *
+ * @author David
+ */
+public class JedisMetrics implements JedisMetricsMBean {
+
+    private final ConcurrentMap<String, CommandMetrics> commands = new ConcurrentHashMap<String, CommandMetrics>();
+
+    private final AtomicLong brokenConnections = new AtomicLong();
+
+    private final AtomicLong poolExhaustions = new AtomicLong();
+
+    /**
+     * Record one execution of command
+     *
+     * @param command        the command name
+     * @param waitNanos      the time waiting on pool in nanoseconds
+     * @param executionNanos the time executing command in nanoseconds
+     * @param failed         whether the execution is failed
+     */
+    public void record(String command, long waitNanos, long executionNanos, boolean failed) {
+        CommandMetrics metrics = commands.get(command);
+        if (metrics == null) {
+            CommandMetrics created = new CommandMetrics();
+            metrics = commands.putIfAbsent(command, created);
+            if (metrics == null) {
+                metrics = created;
+            }
+        }
+        metrics.record(waitNanos, executionNanos, failed);
+    }
+
+    /**
+     * Record one connection returned to pool as broken
+     */
+    public void recordBrokenConnection() {
+        brokenConnections.incrementAndGet();
+    }
+
+    /**
+     * Record one connection failed to borrow, the pool is exhausted or cannot connect
+     */
+    public void recordPoolExhaustion() {
+        poolExhaustions.incrementAndGet();
+    }
+
+    /**
+     * @param command the command name
+     * @return the metrics of command, or null if never recorded
+     */
+    public CommandMetrics getCommandMetrics(String command) {
+        return commands.get(command);
+    }
+
+    /**
+     * Register this metrics to the platform MBean server
+     *
+     * @param objectName the object name, e.g. com.demo2do:type=JedisMetrics
+     */
+    public void registerMBean(String objectName) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.registerMBean(this, new ObjectName(objectName));
+        } catch (JMException e) {
+            throw new IllegalStateException("Fail to register jedis metrics as " + objectName, e);
+        }
+    }
+
+    /**
+     * Unregister this metrics from the platform MBean server
+     *
+     * @param objectName the object name used when registering
+     */
+    public void unregisterMBean(String objectName) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(new ObjectName(objectName));
+        } catch (JMException e) {
+            throw new IllegalStateException("Fail to unregister jedis metrics " + objectName, e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisMetricsMBean#getCommandNames()
+     */
+    public String[] getCommandNames() {
+        Set<String> names = commands.keySet();
+        return names.toArray(new String[names.size()]);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisMetricsMBean#getCount(java.lang.String)
+     */
+    public long getCount(String command) {
+        CommandMetrics metrics = commands.get(command);
+        return metrics == null ? 0 : metrics.getCount();
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisMetricsMBean#getErrorCount(java.lang.String)
+     */
+    public long getErrorCount(String command) {
+        CommandMetrics metrics = commands.get(command);
+        return metrics == null ? 0 : metrics.getErrorCount();
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisMetricsMBean#getMeanWaitMicros(java.lang.String)
+     */
+    public double getMeanWaitMicros(String command) {
+        CommandMetrics metrics = commands.get(command);
+        return metrics == null ? 0 : metrics.getWait().getMeanMicros();
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisMetricsMBean#getMaxWaitMicros(java.lang.String)
+     */
+    public long getMaxWaitMicros(String command) {
+        CommandMetrics metrics = commands.get(command);
+        return metrics == null ? 0 : metrics.getWait().getMaxMicros();
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisMetricsMBean#getWaitPercentileMicros(java.lang.String, double)
+     */
+    public long getWaitPercentileMicros(String command, double percentile) {
+        CommandMetrics metrics = commands.get(command);
+        return metrics == null ? 0 : metrics.getWait().getPercentileMicros(percentile);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisMetricsMBean#getMeanExecutionMicros(java.lang.String)
+     */
+    public double getMeanExecutionMicros(String command) {
+        CommandMetrics metrics = commands.get(command);
+        return metrics == null ? 0 : metrics.getExecution().getMeanMicros();
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisMetricsMBean#getMaxExecutionMicros(java.lang.String)
+     */
+    public long getMaxExecutionMicros(String command) {
+        CommandMetrics metrics = commands.get(command);
+        return metrics == null ? 0 : metrics.getExecution().getMaxMicros();
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisMetricsMBean#getExecutionPercentileMicros(java.lang.String, double)
+     */
+    public long getExecutionPercentileMicros(String command, double percentile) {
+        CommandMetrics metrics = commands.get(command);
+        return metrics == null ? 0 : metrics.getExecution().getPercentileMicros(percentile);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisMetricsMBean#getBrokenConnectionCount()
+     */
+    public long getBrokenConnectionCount() {
+        return brokenConnections.get();
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisMetricsMBean#getPoolExhaustionCount()
+     */
+    public long getPoolExhaustionCount() {
+        return poolExhaustions.get();
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisMetricsMBean#reset()
+     */
+    public void reset() {
+        commands.clear();
+        brokenConnections.set(0);
+        poolExhaustions.set(0);
+    }
+
+    /**
+     * Metrics of one command
+     */
+    public static class CommandMetrics {
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong errorCount = new AtomicLong();
+
+        private final Histogram wait = new Histogram();
+
+        private final Histogram execution = new Histogram();
+
+        private void record(long waitNanos, long executionNanos, boolean failed) {
+            count.incrementAndGet();
+            if (failed) {
+                errorCount.incrementAndGet();
+            }
+            wait.record(waitNanos);
+            execution.record(executionNanos);
+        }
+
+        /**
+         * @return the count of executions
+         */
+        public long getCount() {
+            return count.get();
+        }
+
+        /**
+         * @return the count of failed executions
+         */
+        public long getErrorCount() {
+            return errorCount.get();
+        }
+
+        /**
+         * @return the histogram of time waiting on pool
+         */
+        public Histogram getWait() {
+            return wait;
+        }
+
+        /**
+         * @return the histogram of time executing command
+         */
+        public Histogram getExecution() {
+            return execution;
+        }
+    }
+
+    /**
+     * Lock free histogram of times, bucket i counts the times in [2^(i-1), 2^i) microseconds
+     */
+    public static class Histogram {
+
+        private static final int BUCKETS = 40;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        private final AtomicLong count = new AtomicLong();
+
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void record(long nanos) {
+            long micros = nanos / 1000;
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        /**
+         * @return the count of recorded times
+         */
+        public long getCount() {
+            return count.get();
+        }
+
+        /**
+         * @return the mean time in microseconds
+         */
+        public double getMeanMicros() {
+            long current = count.get();
+            return current == 0 ? 0 : totalNanos.get() / 1000.0 / current;
+        }
+
+        /**
+         * @return the max time in microseconds
+         */
+        public long getMaxMicros() {
+            return maxNanos.get() / 1000;
+        }
+
+        /**
+         * @param percentile the percentile between 0 and 100
+         * @return the upper bound in microseconds of the bucket the percentile falls in
+         */
+        public long getPercentileMicros(double percentile) {
+            long[] snapshot = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = buckets.get(i);
+                total += snapshot[i];
+            }
+            long threshold = (long) Math.ceil(total * percentile / 100);
+            long cumulative = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                cumulative += snapshot[i];
+                if (cumulative >= threshold && cumulative > 0) {
+                    return 1L << i;
+                }
+            }
+            return 0;
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.demo2do.core.redis;
+
+/**
+ * JMX view of {@link JedisMetrics}, all the times are in microseconds
+ *
+ * @author David
+ */
+public interface JedisMetricsMBean {
+
+    /**
+     * @return the names of all the recorded commands
+     */
+    public String[] getCommandNames();
+
+    /**
+     * @param command the command name
+     * @return the count of executions
+     */
+    public long getCount(String command);
+
+    /**
+     * @param command the command name
+     * @return the count of failed executions
+     */
+    public long getErrorCount(String command);
+
+    /**
+     * @param command the command name
+     * @return the mean time waiting on pool
+     */
+    public double getMeanWaitMicros(String command);
+
+    /**
+     * @param command the command name
+     * @return the max time waiting on pool
+     */
+    public long getMaxWaitMicros(String command);
+
+    /**
+     * @param command    the command name
+     * @param percentile the percentile between 0 and 100
+     * @return the upper bound of the time waiting on pool at the percentile
+     */
+    public long getWaitPercentileMicros(String command, double percentile);
+
+    /**
+     * @param command the command name
+     * @return the mean time executing command
+     */
+    public double getMeanExecutionMicros(String command);
+
+    /**
+     * @param command the command name
+     * @return the max time executing command
+     */
+    public long getMaxExecutionMicros(String command);
+
+    /**
+     * @param command    the command name
+     * @param percentile the percentile between 0 and 100
+     * @return the upper bound of the time executing command at the percentile
+     */
+    public long getExecutionPercentileMicros(String command, double percentile);
+
+    /**
+     * @return the count of connections returned to pool as broken
+     */
+    public long getBrokenConnectionCount();
+
+    /**
+     * @return the count of connections failed to borrow from pool
+     */
+    public long getPoolExhaustionCount();
+
+    /**
+     * clear all the recorded metrics
+     */
+    public void reset();
+}
@@ -1,25 +1,88 @@
 package com.demo2do.core.redis;
 
+import com.demo2do.core.redis.codec.DeflateCompressor;
+import com.demo2do.core.redis.script.RedisScript;
+import com.demo2do.core.redis.script.RedisScriptRegistry;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import redis.clients.jedis.BitOP;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.Tuple;
+import redis.clients.jedis.ZParams;
 import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
 import redis.clients.jedis.exceptions.JedisException;
 import redis.clients.util.Pool;
-
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Jedis模板
  *
  * @author David
  */
-public class JedisTemplate {
+public class JedisTemplate implements RedisOperations {
 
     private static final Log logger = LogFactory.getLog(JedisTemplate.class);
 
+    private static final String CUSTOM_COMMAND = "execute";
+
+    private static final String PIPELINE_COMMAND = "pipeline";
+
+    private static final String TRANSACTION_COMMAND = "transaction";
+
+    private static final Set<String> BLOCKING_COMMANDS = Collections.singleton("brpoplpush");
+
+    private static final RedisScript EXPIRE_IF_VOLATILE = RedisScriptRegistry.load(RedisScriptRegistry.EXPIRE_IF_VOLATILE);
+
+    private static final Set<String> WRITE_COMMANDS = new HashSet<String>(Arrays.asList(
+            CUSTOM_COMMAND, PIPELINE_COMMAND, TRANSACTION_COMMAND, "evalsha", "del", "flushdb",
+            "set", "setex", "setnx", "incr", "decr", "expire", "batch",
+            "lpush", "rpush", "rpop", "lrem", "rpoplpush", "brpoplpush",
+            "sadd", "srem", "zadd", "zrem", "zincrby", "zremrangebyscore", "zremrangebyrank",
+            "hset", "hmset", "hincrby", "hdel", "pfadd", "setbit"));
+
     private Pool<Jedis> jedisPool;
 
+    private List<Pool<Jedis>> replicaPools = Collections.emptyList();
+
+    private final AtomicInteger replicaIndex = new AtomicInteger();
+
+    private long readYourWritesMillis;
+
+    private final ThreadLocal<Long> lastWriteTime = new ThreadLocal<Long>();
+
+    private NearCache nearCache;
+
+    private JedisMetrics metrics;
+
+    private JedisCircuitBreaker circuitBreaker;
+
+    private final ConcurrentMap<Pool<Jedis>, JedisCircuitBreaker> circuitBreakers = new ConcurrentHashMap<Pool<Jedis>, JedisCircuitBreaker>();
+
+    private DeflateCompressor compressor;
+
+    /**
+     * The constructor for sub classes which route keys to pools by themselves
+     */
+    protected JedisTemplate() {
+    }
+
     /**
      * The constructor using jedis pool
      *
@@ -29,24 +92,253 @@ public class JedisTemplate {
         this.jedisPool = jedisPool;
     }
 
+    /**
+     * Enable load balancing the read commands across the replicas in round robin, the writes and
+     * the scans go to the master. Reads fall back to the master if the replica is unreachable.
+     * With near cache enabled, the cached reads load their misses from the master.
+     * <p/>
+     * Replicas lag behind the master, use {@link #setReadYourWritesMillis(long)} if a thread
+     * must see its own writes.
+     *
+     * @param replicaPools the pools of the replicas of the master
+     */
+    public void setReplicaPools(List<Pool<Jedis>> replicaPools) {
+        this.replicaPools = Collections.unmodifiableList(new ArrayList<Pool<Jedis>>(replicaPools));
+    }
+
+    /**
+     * Enable reading from the master for a while after the current thread writes,
+     * so that the thread always reads its own writes
+     *
+     * @param readYourWritesMillis the window in milliseconds after each write, 0 to disable
+     */
+    public void setReadYourWritesMillis(long readYourWritesMillis) {
+        this.readYourWritesMillis = readYourWritesMillis;
+    }
+
+    /**
+     * Enable the near cache in front of get, smembers, zrange and sismember, the writes
+     * through this template invalidate the written keys on all the nodes sharing the cache channel.
+     * Misses are loaded from the master, a lagging replica could return the value just invalidated.
+     * <p/>
+     * Values returned from near cache are shared and must not be modified.
+     *
+     * @param nearCache the nearCache to set
+     */
+    public void setNearCache(NearCache nearCache) {
+        this.nearCache = nearCache;
+        nearCache.start(getPool(nearCache.getChannel()));
+    }
+
+    /**
+     * Enable recording pool wait time and execution time of every command
+     *
+     * @param metrics the metrics to set
+     */
+    public void setMetrics(JedisMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return the metrics, or null if not enabled
+     */
+    public JedisMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Enable failing fast while redis is unhealthy, every command of a pool is rejected with
+     * {@link CircuitBreakerOpenException} when the circuit breaker of the pool is open
+     * <p/>
+     * The circuit breaker guards the master, every replica and shard gets its own copy, so that
+     * the failures of one node never open the circuit of another.
+     *
+     * @param circuitBreaker the circuitBreaker to set
+     */
+    public void setCircuitBreaker(JedisCircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+        this.circuitBreakers.clear();
+    }
+
+    /**
+     * @return the circuit breaker of master, or null if not enabled
+     */
+    public JedisCircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Get the circuit breaker of the pool, created from the settings of the configured one
+     *
+     * @param pool the Jedis pool
+     * @return the circuit breaker, or null if not enabled
+     */
+    public JedisCircuitBreaker getCircuitBreaker(Pool<Jedis> pool) {
+        if (circuitBreaker == null || pool == jedisPool) {
+            return circuitBreaker;
+        }
+        JedisCircuitBreaker breaker = circuitBreakers.get(pool);
+        if (breaker == null) {
+            JedisCircuitBreaker created = circuitBreaker.copy();
+            breaker = circuitBreakers.putIfAbsent(pool, created);
+            if (breaker == null) {
+                breaker = created;
+            }
+        }
+        return breaker;
+    }
+
+    /**
+     * Enable compressing the large values written by set and setex, get decompresses them
+     * automatically. Values are then read and written as bytes, so they should only be
+     * accessed through these commands.
+     *
+     * @param compressor the compressor to set
+     */
+    public void setCompressor(DeflateCompressor compressor) {
+        this.compressor = compressor;
+    }
+
+    /**
+     * @return the compressor, or null if not enabled
+     */
+    public DeflateCompressor getCompressor() {
+        return compressor;
+    }
+
+    /**
+     * Get the pool used by the actions without routing key
+     *
+     * @return the Jedis pool
+     */
+    protected Pool<Jedis> getPool() {
+        return jedisPool;
+    }
+
+    /**
+     * Get the pool which the key is routed to
+     *
+     * @param key the key
+     * @return the Jedis pool
+     */
+    protected Pool<Jedis> getPool(String key) {
+        return jedisPool;
+    }
+
+    /**
+     * Get the pool which the binary key is routed to
+     *
+     * @param key the binary key
+     * @return the Jedis pool
+     */
+    protected Pool<Jedis> getPool(byte[] key) {
+        return jedisPool;
+    }
+
+    /**
+     * Get the pool which all the keys of a multi-key command are routed to
+     *
+     * @param keys the keys
+     * @return the Jedis pool
+     * @throws JedisException if the keys are routed to different pools
+     */
+    protected Pool<Jedis> getSharedPool(String... keys) throws JedisException {
+        Pool<Jedis> pool = getPool(keys[0]);
+        for (int i = 1; i < keys.length; i++) {
+            if (getPool(keys[i]) != pool) {
+                throw new JedisException("Keys " + Arrays.toString(keys) + " are routed to different nodes, use a shared hash tag.");
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Get the pool which all the binary keys of a multi-key command are routed to
+     *
+     * @param keys the binary keys
+     * @return the Jedis pool
+     * @throws JedisException if the keys are routed to different pools
+     */
+    protected Pool<Jedis> getSharedPool(byte[]... keys) throws JedisException {
+        Pool<Jedis> pool = getPool(keys[0]);
+        for (int i = 1; i < keys.length; i++) {
+            if (getPool(keys[i]) != pool) {
+                throw new JedisException("Binary keys are routed to different nodes, use a shared hash tag.");
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Get the pool used by the read command of the key, a replica in round robin if any,
+     * or the master if the current thread is in its read-your-writes window
+     *
+     * @param key the key
+     * @return the Jedis pool
+     */
+    protected Pool<Jedis> getReadPool(String key) {
+        return isReadFromReplica() ? nextReplica(getPool(key)) : getPool(key);
+    }
+
+    /**
+     * Get the pool used by the read command of the binary key, a replica in round robin if any,
+     * or the master if the current thread is in its read-your-writes window
+     *
+     * @param key the binary key
+     * @return the Jedis pool
+     */
+    protected Pool<Jedis> getReadPool(byte[] key) {
+        return isReadFromReplica() ? nextReplica(getPool(key)) : getPool(key);
+    }
+
+    /**
+     * @return true if replicas are configured and the current thread has not written recently
+     */
+    private boolean isReadFromReplica() {
+        if (replicaPools.isEmpty()) {
+            return false;
+        }
+        if (readYourWritesMillis > 0) {
+            Long lastWrite = lastWriteTime.get();
+            return lastWrite == null || System.currentTimeMillis() - lastWrite >= readYourWritesMillis;
+        }
+        return true;
+    }
+
+    /**
+     * Start the read-your-writes window of the current thread, reads go to the master until it ends
+     */
+    void markWritten() {
+        if (readYourWritesMillis > 0 && !replicaPools.isEmpty()) {
+            lastWriteTime.set(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Get the next replica pool in round robin, skipping the replicas whose circuit breaker is open
+     *
+     * @param master the pool of master
+     * @return the replica pool, or the master if the circuit breakers of all replicas are open
+     */
+    private Pool<Jedis> nextReplica(Pool<Jedis> master) {
+        int index = replicaIndex.getAndIncrement() & Integer.MAX_VALUE;
+        for (int i = 0; i < replicaPools.size(); i++) {
+            Pool<Jedis> replica = replicaPools.get((index + i) % replicaPools.size());
+            JedisCircuitBreaker breaker = getCircuitBreaker(replica);
+            if (breaker == null || !breaker.isOpen()) {
+                return replica;
+            }
+        }
+        return master;
+    }
+
     /**
      * Template execute method with return value
      *
      * @param jedisAction The Jedis action
      */
     public <T> T execute(JedisAction<T> jedisAction) throws JedisException {
-        Jedis jedis = null;
-        boolean broken = false;
-        try {
-            jedis = jedisPool.getResource();
-            return jedisAction.action(jedis);
-        } catch (JedisConnectionException e) {
-            logger.error("Redis connection lost.", e);
-            broken = true;
-            throw e;
-        } finally {
-            closeResource(jedis, broken);
-        }
+        return execute(getPool(), jedisAction);
     }
 
     /**
@@ -55,504 +347,2579 @@ public class JedisTemplate {
      * @param jedisAction The Jedis action
      */
     public void execute(JedisActionNoResult jedisAction) throws JedisException {
+        execute(getPool(), jedisAction);
+    }
+
+    /**
+     * Template execute method with return value, on the connection the key is routed to
+     *
+     * @param key         the routing key
+     * @param jedisAction The Jedis action
+     */
+    public <T> T execute(String key, JedisAction<T> jedisAction) throws JedisException {
+        return execute(getPool(key), jedisAction);
+    }
+
+    /**
+     * Template execute method with no return value, on the connection the key is routed to
+     *
+     * @param key         the routing key
+     * @param jedisAction The Jedis action
+     */
+    public void execute(String key, JedisActionNoResult jedisAction) throws JedisException {
+        execute(getPool(key), jedisAction);
+    }
+
+    /**
+     * Template execute method with return value, on the connection the binary key is routed to
+     *
+     * @param key         the binary routing key
+     * @param jedisAction The Jedis action
+     */
+    public <T> T execute(byte[] key, JedisAction<T> jedisAction) throws JedisException {
+        return execute(getPool(key), jedisAction);
+    }
+
+    /**
+     * Template execute method with no return value, on the connection the binary key is routed to
+     *
+     * @param key         the binary routing key
+     * @param jedisAction The Jedis action
+     */
+    public void execute(byte[] key, JedisActionNoResult jedisAction) throws JedisException {
+        execute(getPool(key), jedisAction);
+    }
+
+    /**
+     * Template execute method with return value, the fallback is returned instead of calling
+     * redis while the circuit breaker is open
+     *
+     * @param jedisAction The Jedis action
+     * @param fallback    the value returned while the circuit breaker is open
+     */
+    public <T> T execute(JedisAction<T> jedisAction, T fallback) throws JedisException {
+        try {
+            return execute(jedisAction);
+        } catch (CircuitBreakerOpenException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Template execute method with return value, on the connection the key is routed to, the
+     * fallback is returned instead of calling redis while the circuit breaker is open
+     *
+     * @param key         the routing key
+     * @param jedisAction The Jedis action
+     * @param fallback    the value returned while the circuit breaker is open
+     */
+    public <T> T execute(String key, JedisAction<T> jedisAction, T fallback) throws JedisException {
+        try {
+            return execute(key, jedisAction);
+        } catch (CircuitBreakerOpenException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Template execute method with return value on the given pool
+     *
+     * @param pool        The Jedis pool
+     * @param jedisAction The Jedis action
+     */
+    protected <T> T execute(Pool<Jedis> pool, JedisAction<T> jedisAction) throws JedisException {
+        return execute(CUSTOM_COMMAND, pool, jedisAction);
+    }
+
+    /**
+     * Template execute method with no return value on the given pool
+     *
+     * @param pool        The Jedis pool
+     * @param jedisAction The Jedis action
+     */
+    protected void execute(Pool<Jedis> pool, JedisActionNoResult jedisAction) throws JedisException {
+        execute(CUSTOM_COMMAND, pool, jedisAction);
+    }
+
+    /**
+     * Template execute method with return value on the given pool, the pool wait time and
+     * execution time are recorded under the command name if metrics is enabled
+     *
+     * @param command     the command name
+     * @param pool        The Jedis pool
+     * @param jedisAction The Jedis action
+     */
+    protected <T> T execute(String command, Pool<Jedis> pool, JedisAction<T> jedisAction) throws JedisException {
+        JedisCircuitBreaker breaker = getCircuitBreaker(pool);
+        if (breaker != null && !breaker.tryAcquire()) {
+            throw new CircuitBreakerOpenException("Redis circuit breaker is open, " + command + " is rejected.");
+        }
+        if (WRITE_COMMANDS.contains(command)) {
+            // custom actions, pipelines, transactions and scripts may write as well
+            markWritten();
+        }
         Jedis jedis = null;
         boolean broken = false;
+        boolean failed = true;
+        boolean unhealthy = false;
+        long start = System.nanoTime();
+        long borrowed = start;
         try {
-            jedis = jedisPool.getResource();
-            jedisAction.action(jedis);
+            jedis = pool.getResource();
+            borrowed = System.nanoTime();
+            T result = jedisAction.action(jedis);
+            failed = false;
+            return result;
         } catch (JedisConnectionException e) {
             logger.error("Redis connection lost.", e);
             broken = true;
+            unhealthy = true;
+            throw e;
+        } catch (JedisDataException e) {
+            throw e;
+        } catch (JedisException e) {
+            unhealthy = true;
             throw e;
         } finally {
-            closeResource(jedis, broken);
+            closeResource(pool, jedis, broken);
+            if (breaker != null) {
+                // blocking commands are slow by design, only their failures count
+                breaker.record(BLOCKING_COMMANDS.contains(command) ? 0 : System.nanoTime() - start, unhealthy);
+            }
+            if (metrics != null) {
+                long end = System.nanoTime();
+                if (jedis == null) {
+                    metrics.record(command, end - start, 0, failed);
+                } else {
+                    metrics.record(command, borrowed - start, end - borrowed, failed);
+                }
+            }
         }
     }
 
     /**
-     * 根据连接是否已中断的标志，分别调用returnBrokenResource或returnResource
+     * Template execute method with no return value on the given pool
      *
-     * @param jedis            The Jedis object
-     * @param connectionBroken whether a connection is broken or not
+     * @param command     the command name
+     * @param pool        The Jedis pool
+     * @param jedisAction The Jedis action
      */
-    protected void closeResource(Jedis jedis, boolean connectionBroken) {
-        if (jedis != null) {
-            try {
-                if (connectionBroken) {
-                    jedisPool.returnBrokenResource(jedis);
-                } else {
-                    jedisPool.returnResource(jedis);
-                }
-            } catch (Exception e) {
-                logger.error("Error happen when return jedis to pool, try to close it directly.", e);
-                JedisUtils.closeJedis(jedis);
+    protected void execute(String command, Pool<Jedis> pool, final JedisActionNoResult jedisAction) throws JedisException {
+        execute(command, pool, new JedisAction<Object>() {
+
+            @Override
+            public Object action(Jedis jedis) {
+                jedisAction.action(jedis);
+                return null;
             }
-        }
+        });
     }
 
     /**
-     * 有返回结果的回调接口定义。
+     * Execute the named command on the connection the key is routed to
+     *
+     * @param command     the command name
+     * @param key         the key
+     * @param jedisAction The Jedis action
      */
-    public interface JedisAction<T> {
-        T action(Jedis jedis);
+    private <T> T executeCommand(String command, String key, JedisAction<T> jedisAction) {
+        return execute(command, getPool(key), jedisAction);
     }
 
     /**
-     * 无返回结果的回调接口定义。
+     * Execute the named command on the connection the key is routed to
+     *
+     * @param command     the command name
+     * @param key         the key
+     * @param jedisAction The Jedis action
      */
-    public interface JedisActionNoResult {
-        void action(Jedis jedis);
+    private void executeCommand(String command, String key, JedisActionNoResult jedisAction) {
+        execute(command, getPool(key), jedisAction);
+    }
+
+    /**
+     * Execute the named read command on a replica if any, falling back to the master
+     *
+     * @param command     the command name
+     * @param key         the key
+     * @param jedisAction The Jedis action
+     */
+    private <T> T executeRead(String command, String key, JedisAction<T> jedisAction) {
+        return executeRead(command, getReadPool(key), getPool(key), jedisAction);
+    }
+
+    /**
+     * Execute the named read command on a replica if any, falling back to the master
+     *
+     * @param command     the command name
+     * @param key         the binary key
+     * @param jedisAction The Jedis action
+     */
+    private <T> T executeRead(String command, byte[] key, JedisAction<T> jedisAction) {
+        return executeRead(command, getReadPool(key), getPool(key), jedisAction);
+    }
+
+    /**
+     * Execute the named read command of multiple keys on a replica if any, falling back to
+     * the master which all the keys are routed to
+     *
+     * @param command     the command name
+     * @param keys        the keys
+     * @param jedisAction The Jedis action
+     */
+    private <T> T executeRead(String command, String[] keys, JedisAction<T> jedisAction) {
+        Pool<Jedis> master = getSharedPool(keys);
+        return executeRead(command, isReadFromReplica() ? nextReplica(master) : master, master, jedisAction);
+    }
+
+    /**
+     * Execute the named read command of multiple binary keys on a replica if any, falling back
+     * to the master which all the keys are routed to
+     *
+     * @param command     the command name
+     * @param keys        the binary keys
+     * @param jedisAction The Jedis action
+     */
+    private <T> T executeRead(String command, byte[][] keys, JedisAction<T> jedisAction) {
+        Pool<Jedis> master = getSharedPool(keys);
+        return executeRead(command, isReadFromReplica() ? nextReplica(master) : master, master, jedisAction);
+    }
+
+    /**
+     * Execute the named read command on the given pool, falling back to the master if the pool
+     * is an unreachable replica
+     *
+     * @param command     the command name
+     * @param pool        The Jedis pool
+     * @param master      The Jedis pool of the master
+     * @param jedisAction The Jedis action
+     */
+    private <T> T executeRead(String command, Pool<Jedis> pool, Pool<Jedis> master, JedisAction<T> jedisAction) {
+        if (pool == master) {
+            return execute(command, pool, jedisAction);
+        }
+        try {
+            return execute(command, pool, jedisAction);
+        } catch (JedisConnectionException e) {
+            logger.warn("Redis replica unreachable, " + command + " falls back to master.");
+            return execute(command, master, jedisAction);
+        } catch (CircuitBreakerOpenException e) {
+            return execute(command, master, jedisAction);
+        }
+    }
+
+    /**
+     * Execute the named command on the connection the binary key is routed to
+     *
+     * @param command     the command name
+     * @param key         the binary key
+     * @param jedisAction The Jedis action
+     */
+    private <T> T executeCommand(String command, byte[] key, JedisAction<T> jedisAction) {
+        return execute(command, getPool(key), jedisAction);
+    }
+
+    /**
+     * Template execute method in pipeline mode, all the commands queued by the action
+     * are sent on one borrowed connection and flushed in one round trip.
+     * <p/>
+     * Each command queued on the pipeline returns a typed {@link redis.clients.jedis.Response},
+     * which can be read by the caller once this method returns.
+     *
+     * @param pipelineAction The pipeline action
+     * @return the replies of all the queued commands in queued order
+     */
+    public List<Object> executePipelined(JedisPipelineAction pipelineAction) throws JedisException {
+        return executePipelined(getPool(), pipelineAction);
+    }
+
+    /**
+     * Template execute method in pipeline mode, on the connection the routing key is routed to
+     *
+     * @param routingKey     the routing key
+     * @param pipelineAction The pipeline action
+     * @return the replies of all the queued commands in queued order
+     */
+    public List<Object> executePipelined(String routingKey, JedisPipelineAction pipelineAction) throws JedisException {
+        return executePipelined(getPool(routingKey), pipelineAction);
+    }
+
+    /**
+     * Template execute method in pipeline mode on the given pool
+     *
+     * @param pool           The Jedis pool
+     * @param pipelineAction The pipeline action
+     * @return the replies of all the queued commands in queued order
+     */
+    protected List<Object> executePipelined(Pool<Jedis> pool, final JedisPipelineAction pipelineAction) throws JedisException {
+        return execute(PIPELINE_COMMAND, pool, new JedisAction<List<Object>>() {
+
+            @Override
+            public List<Object> action(Jedis jedis) {
+                Pipeline pipeline = jedis.pipelined();
+                pipelineAction.action(pipeline);
+                return pipeline.syncAndReturnAll();
+            }
+        });
+    }
+
+    /**
+     * Template execute method in transaction mode, all the commands queued by the action
+     * are wrapped in MULTI/EXEC and applied atomically in one round trip.
+     * <p/>
+     * When watch keys are given they are WATCHed before MULTI, and the transaction is
+     * aborted if any of them is modified by another client before EXEC. The abort is
+     * reported by a null return value, so that the caller can retry optimistically.
+     *
+     * @param transactionAction The transaction action
+     * @param watchKeys         the keys to watch, may be empty
+     * @return the replies of all the queued commands in queued order, or null if the transaction is aborted
+     */
+    public List<Object> executeTransaction(JedisTransactionAction transactionAction, String... watchKeys) throws JedisException {
+        return executeTransaction(getPool(), transactionAction, watchKeys);
+    }
+
+    /**
+     * Template execute method in transaction mode, on the connection the routing key is routed to
+     *
+     * @param routingKey        the routing key
+     * @param transactionAction The transaction action
+     * @param watchKeys         the keys to watch, may be empty
+     * @return the replies of all the queued commands in queued order, or null if the transaction is aborted
+     */
+    public List<Object> executeTransaction(String routingKey, JedisTransactionAction transactionAction, String... watchKeys) throws JedisException {
+        return executeTransaction(getPool(routingKey), transactionAction, watchKeys);
+    }
+
+    /**
+     * Template execute method in transaction mode on the given pool
+     *
+     * @param pool              The Jedis pool
+     * @param transactionAction The transaction action
+     * @param watchKeys         the keys to watch, may be empty
+     * @return the replies of all the queued commands in queued order, or null if the transaction is aborted
+     */
+    protected List<Object> executeTransaction(Pool<Jedis> pool, final JedisTransactionAction transactionAction, final String... watchKeys) throws JedisException {
+        return execute(TRANSACTION_COMMAND, pool, new JedisAction<List<Object>>() {
+
+            @Override
+            public List<Object> action(Jedis jedis) {
+                if (watchKeys.length > 0) {
+                    jedis.watch(watchKeys);
+                }
+                Transaction transaction = jedis.multi();
+                transactionAction.action(transaction);
+                List<Object> result = transaction.exec();
+                if (result == null && logger.isDebugEnabled()) {
+                    logger.debug("Redis transaction aborted, watched keys were modified.");
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * Template execute method for read commands, served from near cache if enabled
+     *
+     * @param command     the command name
+     * @param key         the key
+     * @param field       the command and arguments identifying the value of the key
+     * @param jedisAction The Jedis action
+     */
+    private <T> T executeCached(String command, String key, String field, JedisAction<T> jedisAction) {
+        if (nearCache == null) {
+            return executeRead(command, key, jedisAction);
+        }
+        return executeCached(command, getPool(key), key, field, jedisAction);
+    }
+
+    /**
+     * Template execute method for binary read commands, served from near cache if enabled
+     *
+     * @param command     the command name
+     * @param key         the binary key
+     * @param field       the command and arguments identifying the value of the key
+     * @param jedisAction The Jedis action
+     */
+    private <T> T executeCached(String command, byte[] key, String field, JedisAction<T> jedisAction) {
+        if (nearCache == null) {
+            return executeRead(command, key, jedisAction);
+        }
+        return executeCached(command, getPool(key), SafeEncoder.encode(key), field, jedisAction);
+    }
+
+    /**
+     * Look up the near cache, and execute the read command on the master if missed. A replica
+     * may still return the value just invalidated, which would be cached until next write.
+     *
+     * @param command     the command name
+     * @param master      The Jedis pool of the master
+     * @param cacheKey    the key in near cache
+     * @param field       the command and arguments identifying the value of the key
+     * @param jedisAction The Jedis action
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T executeCached(String command, Pool<Jedis> master, String cacheKey, String field, JedisAction<T> jedisAction) {
+        Object cached = nearCache.get(cacheKey, field);
+        if (cached != null) {
+            return (T) cached;
+        }
+        long version = nearCache.getVersion(cacheKey);
+        T result = execute(command, master, jedisAction);
+        if (result instanceof Set) {
+            result = (T) Collections.unmodifiableSet((Set<?>) result);
+        }
+        nearCache.put(cacheKey, field, result, version);
+        return result;
+    }
+
+    /**
+     * Invalidate the keys in near cache of all nodes, if enabled
+     *
+     * @param keys the keys written
+     */
+    void invalidate(final String... keys) {
+        if (nearCache == null) {
+            return;
+        }
+        for (String key : keys) {
+            if (NearCache.CLEAR_ALL.equals(key)) {
+                nearCache.clear();
+            } else {
+                nearCache.invalidate(key);
+            }
+        }
+        executeCommand("publish", nearCache.getChannel(), new JedisActionNoResult() {
+
+            @Override
+            public void action(Jedis jedis) {
+                for (String key : keys) {
+                    jedis.publish(nearCache.getChannel(), key);
+                }
+            }
+        });
+    }
+
+    /**
+     * Invalidate the binary key in near cache of all nodes, if enabled
+     *
+     * @param key the binary key written
+     */
+    private void invalidate(byte[] key) {
+        if (nearCache != null) {
+            invalidate(SafeEncoder.encode(key));
+        }
+    }
+
+    /**
+     * 根据连接是否已中断的标志，分别调用returnBrokenResource或returnResource
+     *
+     * @param jedis            The Jedis object
+     * @param connectionBroken whether a connection is broken or not
+     */
+    protected void closeResource(Jedis jedis, boolean connectionBroken) {
+        closeResource(jedisPool, jedis, connectionBroken);
+    }
+
+    /**
+     * 根据连接是否已中断的标志，分别调用给定pool的returnBrokenResource或returnResource
+     *
+     * @param pool             The Jedis pool which the Jedis object is borrowed from
+     * @param jedis            The Jedis object
+     * @param connectionBroken whether a connection is broken or not
+     */
+    protected void closeResource(Pool<Jedis> pool, Jedis jedis, boolean connectionBroken) {
+        if (jedis == null) {
+            if (connectionBroken && metrics != null) {
+                // nothing was borrowed, the pool is exhausted or cannot connect
+                metrics.recordPoolExhaustion();
+            }
+        } else {
+            if (connectionBroken && metrics != null) {
+                metrics.recordBrokenConnection();
+            }
+            try {
+                if (connectionBroken) {
+                    pool.returnBrokenResource(jedis);
+                } else {
+                    pool.returnResource(jedis);
+                }
+            } catch (Exception e) {
+                logger.error("Error happen when return jedis to pool, try to close it directly.", e);
+                JedisUtils.closeJedis(jedis);
+            }
+        }
+    }
+
+    /**
+     * 有返回结果的回调接口定义。
+     */
+    public interface JedisAction<T> {
+        T action(Jedis jedis);
+    }
+
+    /**
+     * 无返回结果的回调接口定义。
+     */
+    public interface JedisActionNoResult {
+        void action(Jedis jedis);
+    }
+
+    /**
+     * Pipeline模式的回调接口定义，所有命令在回调返回后一次性提交。
+     */
+    public interface JedisPipelineAction {
+        void action(Pipeline pipeline);
+    }
+
+    /**
+     * 事务模式的回调接口定义，所有命令在MULTI/EXEC中原子执行。
+     */
+    public interface JedisTransactionAction {
+        void action(Transaction transaction);
+    }
+
+    /**
+     * 管道模式的读回调接口定义，返回排入管道的读命令的Response。
+     */
+    private interface JedisPipelinedRead<T> {
+        Response<T> read(Pipeline pipeline);
+    }
+
+    /**
+     * 删除key, 如果key存在返回true, 否则返回false。
+     *
+     * @param keys the key
+     */
+    public Boolean del(final String... keys) {
+        Boolean result = execute("del", getPool(), new JedisAction<Boolean>() {
+
+            @Override
+            public Boolean action(Jedis jedis) {
+                return jedis.del(keys) == 1 ? true : false;
+            }
+        });
+        invalidate(keys);
+        return result;
+    }
+
+    /**
+     * 刷新DB
+     */
+    public void flushDB() {
+        execute("flushdb", getPool(), new JedisActionNoResult() {
+
+            @Override
+            public void action(Jedis jedis) {
+                jedis.flushDB();
+            }
+        });
+        invalidate(NearCache.CLEAR_ALL);
+    }
+
+    /**
+     * 如果key不存在, 返回null.
+     *
+     * @param key the key
+     */
+    public String get(final String key) {
+        return executeCached("get", key, "get", getAction(key));
+    }
+
+    /**
+     * 从master读取, 不经过replica及near cache, 用于刚被其他节点写入的key. 如果key不存在, 返回null.
+     *
+     * @param key the key
+     */
+    public String getFromMaster(final String key) {
+        return executeCommand("get", key, getAction(key));
+    }
+
+    /**
+     * Create the action getting the value of key, decompressed if compression is enabled
+     *
+     * @param key the key
+     * @return the action
+     */
+    private JedisAction<String> getAction(final String key) {
+        return new JedisAction<String>() {
+
+            @Override
+            public String action(Jedis jedis) {
+                if (compressor == null) {
+                    return jedis.get(key);
+                }
+                byte[] value = jedis.get(SafeEncoder.encode(key));
+                return value == null ? null : SafeEncoder.encode(compressor.decompress(value));
+            }
+        };
+    }
+
+    /**
+     * 如果key不存在, 返回null.
+     *
+     * @param key the key
+     */
+    public Long getAsLong(final String key) {
+        String result = get(key);
+        return result != null ? Long.valueOf(result) : null;
+    }
+
+    /**
+     * 如果key不存在, 返回null.
+     *
+     * @param key the key
+     */
+    public Integer getAsInt(final String key) {
+        String result = get(key);
+        return result != null ? Integer.valueOf(result) : null;
+    }
+
+    /**
+     * 设置key/value
+     *
+     * @param key   the key to set
+     * @param value the value to set
+     */
+    public void set(final String key, final String value) {
+        executeCommand("set", key, new JedisActionNoResult() {
+
+            @Override
+            public void action(Jedis jedis) {
+                if (compressor == null) {
+                    jedis.set(key, value);
+                } else {
+                    jedis.set(SafeEncoder.encode(key), compressor.compress(SafeEncoder.encode(value)));
+                }
+            }
+        });
+        invalidate(key);
+    }
+
+    /**
+     * 设置key/value
+     *
+     * @param key     the key to set
+     * @param value   the value to set
+     * @param seconds the seconds
+     */
+    public void setex(final String key, final String value, final int seconds) {
+        executeCommand("setex", key, new JedisActionNoResult() {
+
+            @Override
+            public void action(Jedis jedis) {
+                if (compressor == null) {
+                    jedis.setex(key, seconds, value);
+                } else {
+                    jedis.setex(SafeEncoder.encode(key), seconds, compressor.compress(SafeEncoder.encode(value)));
+                }
+            }
+        });
+        invalidate(key);
+    }
+
+    /**
+     * 如果key还不存在则进行设置，返回true，否则返回false.
+     *
+     * @param key   the key to set
+     * @param value the value to set
+     */
+    public Boolean setnx(final String key, final String value) {
+        Boolean result = executeCommand("setnx", key, new JedisAction<Boolean>() {
+
+            @Override
+            public Boolean action(Jedis jedis) {
+                return jedis.setnx(key, value) == 1 ? true : false;
+            }
+        });
+        invalidate(key);
+        return result;
+    }
+
+    /**
+     * 综合setNX与setEx的效果。
+     *
+     * @param key     the key to set
+     * @param value   the value to set
+     * @param seconds the seconds
+     */
+    public Boolean setnxex(final String key, final String value, final int seconds) {
+        Boolean result = executeCommand("set", key, new JedisAction<Boolean>() {
+
+            @Override
+            public Boolean action(Jedis jedis) {
+                String result = jedis.set(key, value, "NX", "EX", seconds);
+                return JedisUtils.isStatusOk(result);
+            }
+        });
+        invalidate(key);
+        return result;
+    }
+
+    /**
+     * Increase key count
+     *
+     * @param key the key
+     * @return result
+     */
+    public Long incr(final String key) {
+        Long result = executeCommand("incr", key, new JedisAction<Long>() {
+            @Override
+            public Long action(Jedis jedis) {
+                return jedis.incr(key);
+            }
+        });
+        invalidate(key);
+        return result;
+    }
+
+    /**
+     * Decrease key count
+     *
+     * @param key the key
+     * @return result
+     */
+    public Long decr(final String key) {
+        Long result = executeCommand("decr", key, new JedisAction<Long>() {
+            @Override
+            public Long action(Jedis jedis) {
+                return jedis.decr(key);
+            }
+        });
+        invalidate(key);
+        return result;
+    }
+
+    // ////////////// 关于List ///////////////////////////
+
+    /**
+     * 设置key/value
+     *
+     * @param key    the key to set
+     * @param values the list values
+     */
+    public void lpush(final String key, final String... values) {
+        executeCommand("lpush", key, new JedisActionNoResult() {
+            @Override
+            public void action(Jedis jedis) {
+                jedis.lpush(key, values);
+            }
+        });
+    }
+
+    /**
+     * 获取value
+     *
+     * @param key the key
+     * @return result
+     */
+    public String rpop(final String key) {
+        return executeCommand("rpop", key, new JedisAction<String>() {
+
+            @Override
+            public String action(Jedis jedis) {
+                return jedis.rpop(key);
+            }
+        });
+    }
+
+    /**
+     * 返回List长度, key不存在时返回0，key类型不是list时抛出异常
+     *
+     * @param key the key
+     */
+    public Long llen(final String key) {
+        return executeRead("llen", key, new JedisAction<Long>() {
+
+            @Override
+            public Long action(Jedis jedis) {
+                return jedis.llen(key);
+            }
+        });
+    }
+
+    /**
+     * 删除List中的第一个等于value的元素，value不存在或key不存在时返回false
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public Boolean lremOne(final String key, final String value) {
+        return executeCommand("lrem", key, new JedisAction<Boolean>() {
+
+            @Override
+            public Boolean action(Jedis jedis) {
+                Long count = jedis.lrem(key, 1, value);
+                return (count == 1);
+            }
+        });
+    }
+
+    /**
+     * 删除List中的所有等于value的元素，value不存在或key不存在时返回false
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public Boolean lremAll(final String key, final String value) {
+        return executeCommand("lrem", key, new JedisAction<Boolean>() {
+
+            @Override
+            public Boolean action(Jedis jedis) {
+                Long count = jedis.lrem(key, 0, value);
+                return (count > 0);
+            }
+        });
+    }
+
+    /**
+     * 在List尾部加入values
+     *
+     * @param key    the key
+     * @param values the list values
+     */
+    public void rpush(final String key, final String... values) {
+        executeCommand("rpush", key, new JedisActionNoResult() {
+
+            @Override
+            public void action(Jedis jedis) {
+                jedis.rpush(key, values);
+            }
+        });
+    }
+
+    /**
+     * 从source尾部弹出元素并加入destination头部, source为空时返回null
+     *
+     * @param source      the source list
+     * @param destination the destination list
+     * @return the element moved
+     */
+    public String rpoplpush(final String source, final String destination) {
+        return execute("rpoplpush", getSharedPool(source, destination), new JedisAction<String>() {
+
+            @Override
+            public String action(Jedis jedis) {
+                return jedis.rpoplpush(source, destination);
+            }
+        });
+    }
+
+    /**
+     * 阻塞版本的rpoplpush, 等待超时时返回null
+     *
+     * @param source         the source list
+     * @param destination    the destination list
+     * @param timeoutSeconds the max seconds to block, 0 to block forever
+     * @return the element moved
+     */
+    public String brpoplpush(final String source, final String destination, final int timeoutSeconds) {
+        return execute("brpoplpush", getSharedPool(source, destination), new JedisAction<String>() {
+
+            @Override
+            public String action(Jedis jedis) {
+                return jedis.brpoplpush(source, destination, timeoutSeconds);
+            }
+        });
+    }
+
+    // ////////////// Set ///////////////////////////
+
+    /**
+     * add members to set according to key
+     *
+     * @param key     the key to set
+     * @param members the members to add
+     * @return result
+     */
+    public Boolean sadd(final String key, final String... members) {
+        Boolean result = executeCommand("sadd", key, new JedisAction<Boolean>() {
+
+            @Override
+            public Boolean action(Jedis jedis) {
+                Long count = jedis.sadd(key, members);
+                return (count > 0);
+            }
+        });
+        invalidate(key);
+        return result;
+    }
+
+    /**
+     * remove the specific member from set
+     *
+     * @param key     the key to set
+     * @param members the members to add
+     * @return result
+     */
+    public Boolean srem(final String key, final String... members) {
+        Boolean result = executeCommand("srem", key, new JedisAction<Boolean>() {
+
+            @Override
+            public Boolean action(Jedis jedis) {
+                Long count = jedis.srem(key, members);
+                return (count > 0);
+            }
+        });
+        invalidate(key);
+        return result;
+    }
+
+    /**
+     * determine the member is in set
+     *
+     * @param key    the key
+     * @param member the member value
+     * @return result
+     */
+    public Boolean sismember(final String key, final String member) {
+        return executeCached("sismember", key, "sismember:" + member, new JedisAction<Boolean>() {
+            @Override
+            public Boolean action(Jedis jedis) {
+                return jedis.sismember(key, member);
+            }
+        });
+    }
+
+    /**
+     * return the size of the set
+     *
+     * @param key the key
+     * @return set size
+     */
+    public Long scard(final String key) {
+        return executeRead("scard", key, new JedisAction<Long>() {
+            @Override
+            public Long action(Jedis jedis) {
+                return jedis.scard(key);
+            }
+        });
+    }
+
+    /**
+     * return all the members of the set
+     *
+     * @param key the key
+     * @return result
+     */
+    public Set<String> smembers(final String key) {
+        return executeCached("smembers", key, "smembers", new JedisAction<Set<String>>() {
+
+            @Override
+            public Set<String> action(Jedis jedis) {
+                return jedis.smembers(key);
+            }
+        });
+    }
+
+    /**
+     * add binary members to set according to key
+     *
+     * @param key     the key to set
+     * @param members the members to add
+     * @return result
+     */
+    public Boolean sadd(final byte[] key, final byte[]... members) {
+        Boolean result = executeCommand("sadd", key, new JedisAction<Boolean>() {
+
+            @Override
+            public Boolean action(Jedis jedis) {
+                Long count = jedis.sadd(key, members);
+                return (count > 0);
+            }
+        });
+        invalidate(key);
+        return result;
+    }
+
+    /**
+     * remove the specific binary members from set
+     *
+     * @param key     the key to set
+     * @param members the members to remove
+     * @return result
+     */
+    public Boolean srem(final byte[] key, final byte[]... members) {
+        Boolean result = executeCommand("srem", key, new JedisAction<Boolean>() {
+
+            @Override
+            public Boolean action(Jedis jedis) {
+                Long count = jedis.srem(key, members);
+                return (count > 0);
+            }
+        });
+        invalidate(key);
+        return result;
+    }
+
+    /**
+     * return all the binary members of the set
+     *
+     * @param key the key
+     * @return result
+     */
+    public Set<byte[]> smembers(final byte[] key) {
+        return executeCached("smembers", key, "binary:smembers", new JedisAction<Set<byte[]>>() {
+
+            @Override
+            public Set<byte[]> action(Jedis jedis) {
+                return jedis.smembers(key);
+            }
+        });
+    }
+
+
+    /**
+     * incrementally iterate the binary members of the set, return the next cursor and a batch of members.
+     * Scans run on the master, a cursor is valid only on the node which returned it.
+     *
+     * @param key    the key
+     * @param cursor the cursor returned by last call, or {@link ScanParams#SCAN_POINTER_START_BINARY} to start
+     * @param count  the hint of members count to return
+     * @return result
+     */
+    public ScanResult<byte[]> sscan(final byte[] key, final byte[] cursor, final int count) {
+        return executeCommand("sscan", key, new JedisAction<ScanResult<byte[]>>() {
+
+            @Override
+            public ScanResult<byte[]> action(Jedis jedis) {
+                return jedis.sscan(key, cursor, new ScanParams().count(count));
+            }
+        });
+    }
+
+    /**
+     * 返回keys的交集, keys需路由到同一节点, ShardedJedisTemplate下keys需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param keys the keys
+     */
+    public Set<String> sinter(final String... keys) {
+        return executeRead("sinter", keys, new JedisAction<Set<String>>() {
+
+            @Override
+            public Set<String> action(Jedis jedis) {
+                return jedis.sinter(keys);
+            }
+        });
+    }
+
+    /**
+     * 返回keys的并集, keys需路由到同一节点, ShardedJedisTemplate下keys需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param keys the keys
+     */
+    public Set<String> sunion(final String... keys) {
+        return executeRead("sunion", keys, new JedisAction<Set<String>>() {
+
+            @Override
+            public Set<String> action(Jedis jedis) {
+                return jedis.sunion(keys);
+            }
+        });
+    }
+
+    /**
+     * 返回第一个key与其余keys的差集, keys需路由到同一节点, ShardedJedisTemplate下keys需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param keys the keys
+     */
+    public Set<String> sdiff(final String... keys) {
+        return executeRead("sdiff", keys, new JedisAction<Set<String>>() {
+
+            @Override
+            public Set<String> action(Jedis jedis) {
+                return jedis.sdiff(keys);
+            }
+        });
+    }
+
+    /**
+     * 返回binary keys的交集, keys需路由到同一节点, ShardedJedisTemplate下keys需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param keys the binary keys
+     */
+    public Set<byte[]> sinter(final byte[]... keys) {
+        return executeRead("sinter", keys, new JedisAction<Set<byte[]>>() {
+
+            @Override
+            public Set<byte[]> action(Jedis jedis) {
+                return jedis.sinter(keys);
+            }
+        });
+    }
+
+    /**
+     * 返回binary keys的并集, keys需路由到同一节点, ShardedJedisTemplate下keys需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param keys the binary keys
+     */
+    public Set<byte[]> sunion(final byte[]... keys) {
+        return executeRead("sunion", keys, new JedisAction<Set<byte[]>>() {
+
+            @Override
+            public Set<byte[]> action(Jedis jedis) {
+                return jedis.sunion(keys);
+            }
+        });
+    }
+
+    /**
+     * 返回第一个binary key与其余keys的差集, keys需路由到同一节点, ShardedJedisTemplate下keys需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param keys the binary keys
+     */
+    public Set<byte[]> sdiff(final byte[]... keys) {
+        return executeRead("sdiff", keys, new JedisAction<Set<byte[]>>() {
+
+            @Override
+            public Set<byte[]> action(Jedis jedis) {
+                return jedis.sdiff(keys);
+            }
+        });
+    }
+
+    /**
+     * 将keys的交集存入destination, 并在同一事务中设置过期时间, 返回结果集大小
+     * <p/>
+     * destination与keys需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
+     */
+    public Long sinterstore(final String destination, final int seconds, final String... keys) {
+        return writeAndExpire(getSharedPool(withDestination(destination, keys)), destination, seconds, new JedisTransactionAction() {
+
+            @Override
+            public void action(Transaction transaction) {
+                transaction.sinterstore(destination, keys);
+            }
+        });
+    }
+
+    /**
+     * 将keys的并集存入destination, 并在同一事务中设置过期时间, 返回结果集大小
+     * <p/>
+     * destination与keys需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
+     */
+    public Long sunionstore(final String destination, final int seconds, final String... keys) {
+        return writeAndExpire(getSharedPool(withDestination(destination, keys)), destination, seconds, new JedisTransactionAction() {
+
+            @Override
+            public void action(Transaction transaction) {
+                transaction.sunionstore(destination, keys);
+            }
+        });
+    }
+
+    /**
+     * 将第一个key与其余keys的差集存入destination, 并在同一事务中设置过期时间, 返回结果集大小
+     * <p/>
+     * destination与keys需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
+     */
+    public Long sdiffstore(final String destination, final int seconds, final String... keys) {
+        return writeAndExpire(getSharedPool(withDestination(destination, keys)), destination, seconds, new JedisTransactionAction() {
+
+            @Override
+            public void action(Transaction transaction) {
+                transaction.sdiffstore(destination, keys);
+            }
+        });
+    }
+
+    /**
+     * 加入Set并在同一事务中设置过期时间, 一次往返完成, 如果有member被加入返回true
+     *
+     * @param key     the key to set
+     * @param seconds the expire time in seconds, no expire if not positive
+     * @param members the members to add
+     */
+    public Boolean saddAndExpire(final String key, final int seconds, final String... members) {
+        Long count = writeAndExpire(key, seconds, new JedisTransactionAction() {
+
+            @Override
+            public void action(Transaction transaction) {
+                transaction.sadd(key, members);
+            }
+        });
+        return (count > 0);
+    }
+
+    /**
+     * 加入二进制member到Set并在同一事务中设置过期时间, 一次往返完成, 如果有member被加入返回true
+     *
+     * @param key     the binary key to set
+     * @param seconds the expire time in seconds, no expire if not positive
+     * @param members the binary members to add
+     */
+    public Boolean saddAndExpire(final byte[] key, final int seconds, final byte[]... members) {
+        Long count = writeAndExpire(key, seconds, new JedisTransactionAction() {
+
+            @Override
+            public void action(Transaction transaction) {
+                transaction.sadd(key, members);
+            }
+        });
+        return (count > 0);
+    }
+
+    /**
+     * Run the write command of key and the expire of key in one transaction
+     *
+     * @param key          the key
+     * @param seconds      the expire time in seconds, no expire if not positive
+     * @param writeCommand the action queuing the write command
+     * @return the reply of write command
+     */
+    private <T> T writeAndExpire(String key, int seconds, JedisTransactionAction writeCommand) {
+        return writeAndExpire(getPool(key), key, seconds, writeCommand);
+    }
+
+    /**
+     * Run the write command of key and the expire of key in one transaction on the given pool
+     *
+     * @param pool         the pool which all the keys of write command are routed to
+     * @param key          the key
+     * @param seconds      the expire time in seconds, no expire if not positive
+     * @param writeCommand the action queuing the write command
+     * @return the reply of write command
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T writeAndExpire(Pool<Jedis> pool, final String key, final int seconds, final JedisTransactionAction writeCommand) {
+        List<Object> results = executeTransaction(pool, new JedisTransactionAction() {
+
+            @Override
+            public void action(Transaction transaction) {
+                writeCommand.action(transaction);
+                if (seconds > 0) {
+                    transaction.expire(key, seconds);
+                }
+            }
+        });
+        invalidate(key);
+        checkReplies(results);
+        return (T) results.get(0);
+    }
+
+    /**
+     * Run the write command of binary key and the expire of key in one transaction
+     *
+     * @param key          the binary key
+     * @param seconds      the expire time in seconds, no expire if not positive
+     * @param writeCommand the action queuing the write command
+     * @return the reply of write command
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T writeAndExpire(final byte[] key, final int seconds, final JedisTransactionAction writeCommand) {
+        List<Object> results = executeTransaction(getPool(key), new JedisTransactionAction() {
+
+            @Override
+            public void action(Transaction transaction) {
+                writeCommand.action(transaction);
+                if (seconds > 0) {
+                    transaction.expire(key, seconds);
+                }
+            }
+        });
+        invalidate(key);
+        checkReplies(results);
+        return (T) results.get(0);
+    }
+
+    /**
+     * Put the destination key before the source keys, to route all of them
+     *
+     * @param destination the destination key
+     * @param keys        the source keys
+     * @return the destination and source keys
+     */
+    private static String[] withDestination(String destination, String... keys) {
+        String[] result = new String[keys.length + 1];
+        result[0] = destination;
+        System.arraycopy(keys, 0, result, 1, keys.length);
+        return result;
+    }
+
+    /**
+     * Check the replies of a transaction, a command failed inside EXEC is replied by an error
+     * while the other commands are still applied
+     *
+     * @param results the replies of all the queued commands
+     * @throws JedisDataException the error replied by the first failed command
+     */
+    private static void checkReplies(List<Object> results) {
+        for (Object result : results) {
+            if (result instanceof JedisDataException) {
+                throw (JedisDataException) result;
+            }
+        }
+    }
+
+    // ////////////// 关于Sorted Set ///////////////////////////
+
+    /**
+     * 加入Sorted set, 如果member在Set里已存在, 只更新score并返回false, 否则返回true.
+     *
+     * @param key    the key to set
+     * @param member the member to add
+     * @param score  the score to add
+     */
+    public Boolean zadd(final String key, final String member, final double score) {
+        Boolean result = executeCommand("zadd", key, new JedisAction<Boolean>() {
+
+            @Override
+            public Boolean action(Jedis jedis) {
+                return jedis.zadd(key, score, member) == 1 ? true : false;
+            }
+        });
+        invalidate(key);
+        return result;
+    }
+
+    /**
+     * return the sorted set according to start and end index and ordered asce
+     *
+     * @param key   the key
+     * @param start the start index
+     * @param end   the end index
+     * @return result
+     */
+    public Set<String> zrange(final String key, final int start, final int end) {
+        return executeCached("zrange", key, "zrange:" + start + ":" + end, new JedisAction<Set<String>>() {
+
+            @Override
+            public Set<String> action(Jedis jedis) {
+                return jedis.zrange(key, start, end);
+            }
+
+        });
+    }
+
+    /**
+     * return the sorted set according to start and end index and ordered desc
+     *
+     * @param key   the key
+     * @param start the start index
+     * @param end   the end index
+     * @return result
+     */
+    public Set<String> zrevrange(final String key, final int start, final int end) {
+        return executeCached("zrevrange", key, "zrevrange:" + start + ":" + end, new JedisAction<Set<String>>() {
+
+            @Override
+            public Set<String> action(Jedis jedis) {
+                return jedis.zrevrange(key, start, end);
+            }
+        });
+    }
+
+    /**
+     * 删除sorted set中的元素，成功删除返回true，key或member不存在返回false
+     *
+     * @param key    the key
+     * @param member the member
+     */
+    public Boolean zrem(final String key, final String member) {
+        Boolean result = executeCommand("zrem", key, new JedisAction<Boolean>() {
+
+            @Override
+            public Boolean action(Jedis jedis) {
+                return jedis.zrem(key, member) == 1 ? true : false;
+            }
+        });
+        invalidate(key);
+        return result;
+    }
+
+    /**
+     * 当key不存在时返回null
+     *
+     * @param key    the key
+     * @param member the member
+     */
+    public Double zscore(final String key, final String member) {
+        return executeRead("zscore", key, new JedisAction<Double>() {
+
+            @Override
+            public Double action(Jedis jedis) {
+                return jedis.zscore(key, member);
+            }
+        });
+    }
+
+    /**
+     * 返回sorted set长度, key不存在时返回0
+     *
+     * @param key the key
+     * @return the size of set
+     */
+    public Long zcard(final String key) {
+        return executeRead("zcard", key, new JedisAction<Long>() {
+
+            @Override
+            public Long action(Jedis jedis) {
+                return jedis.zcard(key);
+            }
+        });
+    }
+
+    /**
+     * 加入binary member到Sorted set, 如果member在Set里已存在, 只更新score并返回false, 否则返回true.
+     *
+     * @param key    the key to set
+     * @param member the member to add
+     * @param score  the score to add
+     */
+    public Boolean zadd(final byte[] key, final byte[] member, final double score) {
+        Boolean result = executeCommand("zadd", key, new JedisAction<Boolean>() {
+
+            @Override
+            public Boolean action(Jedis jedis) {
+                return jedis.zadd(key, score, member) == 1 ? true : false;
+            }
+        });
+        invalidate(key);
+        return result;
+    }
+
+    /**
+     * return the binary sorted set according to start and end index and ordered asce
+     *
+     * @param key   the key
+     * @param start the start index
+     * @param end   the end index
+     * @return result
+     */
+    public Set<byte[]> zrange(final byte[] key, final int start, final int end) {
+        return executeCached("zrange", key, "binary:zrange:" + start + ":" + end, new JedisAction<Set<byte[]>>() {
+
+            @Override
+            public Set<byte[]> action(Jedis jedis) {
+                return jedis.zrange(key, start, end);
+            }
+        });
+    }
+
+    /**
+     * return the binary sorted set according to start and end index and ordered desc
+     *
+     * @param key   the key
+     * @param start the start index
+     * @param end   the end index
+     * @return result
+     */
+    public Set<byte[]> zrevrange(final byte[] key, final int start, final int end) {
+        return executeCached("zrevrange", key, "binary:zrevrange:" + start + ":" + end, new JedisAction<Set<byte[]>>() {
+
+            @Override
+            public Set<byte[]> action(Jedis jedis) {
+                return jedis.zrevrange(key, start, end);
+            }
+        });
+    }
+
+    /**
+     * 删除sorted set中的binary元素，成功删除返回true，key或member不存在返回false
+     *
+     * @param key    the key
+     * @param member the member
+     */
+    public Boolean zrem(final byte[] key, final byte[] member) {
+        Boolean result = executeCommand("zrem", key, new JedisAction<Boolean>() {
+
+            @Override
+            public Boolean action(Jedis jedis) {
+                return jedis.zrem(key, member) == 1 ? true : false;
+            }
+        });
+        invalidate(key);
+        return result;
+    }
+
+    /**
+     * return the members of sorted set whose score is between min and max, ordered asce and paged by offset and count
+     *
+     * @param key    the key
+     * @param min    the min score, inclusive
+     * @param max    the max score, inclusive
+     * @param offset the offset of the first member to return
+     * @param count  the max count of members to return
+     * @return result
+     */
+    public Set<String> zrangeByScore(final String key, final double min, final double max, final int offset, final int count) {
+        return executeRead("zrangebyscore", key, new JedisAction<Set<String>>() {
+
+            @Override
+            public Set<String> action(Jedis jedis) {
+                return jedis.zrangeByScore(key, min, max, offset, count);
+            }
+        });
+    }
+
+    /**
+     * return the members of sorted set whose score is between max and min, ordered desc and paged by offset and count
+     *
+     * @param key    the key
+     * @param max    the max score, inclusive
+     * @param min    the min score, inclusive
+     * @param offset the offset of the first member to return
+     * @param count  the max count of members to return
+     * @return result
+     */
+    public Set<String> zrevrangeByScore(final String key, final double max, final double min, final int offset, final int count) {
+        return executeRead("zrevrangebyscore", key, new JedisAction<Set<String>>() {
+
+            @Override
+            public Set<String> action(Jedis jedis) {
+                return jedis.zrevrangeByScore(key, max, min, offset, count);
+            }
+        });
+    }
+
+    /**
+     * return the members with scores of sorted set whose score is between min and max, ordered asce and paged
+     *
+     * @param key    the key
+     * @param min    the min score, inclusive
+     * @param max    the max score, inclusive
+     * @param offset the offset of the first member to return
+     * @param count  the max count of members to return
+     * @return result
+     */
+    public Set<Tuple> zrangeByScoreWithScores(final String key, final double min, final double max, final int offset, final int count) {
+        return executeRead("zrangebyscorewithscores", key, new JedisAction<Set<Tuple>>() {
+
+            @Override
+            public Set<Tuple> action(Jedis jedis) {
+                return jedis.zrangeByScoreWithScores(key, min, max, offset, count);
+            }
+        });
+    }
+
+    /**
+     * return the members with scores of sorted set whose score is between max and min, ordered desc and paged
+     *
+     * @param key    the key
+     * @param max    the max score, inclusive
+     * @param min    the min score, inclusive
+     * @param offset the offset of the first member to return
+     * @param count  the max count of members to return
+     * @return result
+     */
+    public Set<Tuple> zrevrangeByScoreWithScores(final String key, final double max, final double min, final int offset, final int count) {
+        return executeRead("zrevrangebyscorewithscores", key, new JedisAction<Set<Tuple>>() {
+
+            @Override
+            public Set<Tuple> action(Jedis jedis) {
+                return jedis.zrevrangeByScoreWithScores(key, max, min, offset, count);
+            }
+        });
+    }
+
+    /**
+     * return the binary members with scores of sorted set whose score is between min and max, ordered asce and paged
+     *
+     * @param key    the key
+     * @param min    the min score, inclusive
+     * @param max    the max score, inclusive
+     * @param offset the offset of the first member to return
+     * @param count  the max count of members to return
+     * @return result
+     */
+    public Set<Tuple> zrangeByScoreWithScores(final byte[] key, final double min, final double max, final int offset, final int count) {
+        return executeRead("zrangebyscorewithscores", key, new JedisAction<Set<Tuple>>() {
+
+            @Override
+            public Set<Tuple> action(Jedis jedis) {
+                return jedis.zrangeByScoreWithScores(key, min, max, offset, count);
+            }
+        });
+    }
+
+    /**
+     * return the binary members with scores of sorted set whose score is between max and min, ordered desc and paged
+     *
+     * @param key    the key
+     * @param max    the max score, inclusive
+     * @param min    the min score, inclusive
+     * @param offset the offset of the first member to return
+     * @param count  the max count of members to return
+     * @return result
+     */
+    public Set<Tuple> zrevrangeByScoreWithScores(final byte[] key, final double max, final double min, final int offset, final int count) {
+        return executeRead("zrevrangebyscorewithscores", key, new JedisAction<Set<Tuple>>() {
+
+            @Override
+            public Set<Tuple> action(Jedis jedis) {
+                return jedis.zrevrangeByScoreWithScores(key, max, min, offset, count);
+            }
+        });
+    }
+
+    /**
+     * 删除sorted set中score在min和max之间的元素，返回删除的元素个数
+     *
+     * @param key the key
+     * @param min the min score, inclusive
+     * @param max the max score, inclusive
+     * @return the count of removed members
+     */
+    public Long zremrangeByScore(final String key, final double min, final double max) {
+        Long result = executeCommand("zremrangebyscore", key, new JedisAction<Long>() {
+
+            @Override
+            public Long action(Jedis jedis) {
+                return jedis.zremrangeByScore(key, min, max);
+            }
+        });
+        invalidate(key);
+        return result;
+    }
+
+    /**
+     * 删除sorted set中排名在start和end之间的元素，返回删除的元素个数
+     *
+     * @param key   the key
+     * @param start the start rank, inclusive, negative means counting from the highest score
+     * @param end   the end rank, inclusive, negative means counting from the highest score
+     * @return the count of removed members
+     */
+    public Long zremrangeByRank(final String key, final long start, final long end) {
+        Long result = executeCommand("zremrangebyrank", key, new JedisAction<Long>() {
+
+            @Override
+            public Long action(Jedis jedis) {
+                return jedis.zremrangeByRank(key, start, end);
+            }
+        });
+        invalidate(key);
+        return result;
+    }
+
+    /**
+     * incrementally iterate the binary members with scores of the sorted set, return the next cursor
+     * and a batch of members, the members are not ordered by score. Scans run on the master, a cursor
+     * is valid only on the node which returned it.
+     *
+     * @param key    the key
+     * @param cursor the cursor returned by last call, or {@link ScanParams#SCAN_POINTER_START_BINARY} to start
+     * @param count  the hint of members count to return
+     * @return result
+     */
+    public ScanResult<Tuple> zscan(final byte[] key, final byte[] cursor, final int count) {
+        return executeCommand("zscan", key, new JedisAction<ScanResult<Tuple>>() {
+
+            @Override
+            public ScanResult<Tuple> action(Jedis jedis) {
+                return jedis.zscan(key, cursor, new ScanParams().count(count));
+            }
+        });
+    }
+
+    /**
+     * 将sorted sets的交集存入destination, score按权重求和, 并在同一事务中设置过期时间, 返回结果集大小
+     * <p/>
+     * destination与keys需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param weights     the weights of keys, null for all 1
+     * @param keys        the keys
+     */
+    public Long zinterstore(final String destination, final int seconds, final int[] weights, final String... keys) {
+        return writeAndExpire(getSharedPool(withDestination(destination, keys)), destination, seconds, new JedisTransactionAction() {
+
+            @Override
+            public void action(Transaction transaction) {
+                if (weights == null) {
+                    transaction.zinterstore(destination, keys);
+                } else {
+                    transaction.zinterstore(destination, new ZParams().weights(weights), keys);
+                }
+            }
+        });
+    }
+
+    /**
+     * 将sorted sets的并集存入destination, score按权重求和, 并在同一事务中设置过期时间, 返回结果集大小
+     * <p/>
+     * destination与keys需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param weights     the weights of keys, null for all 1
+     * @param keys        the keys
+     */
+    public Long zunionstore(final String destination, final int seconds, final int[] weights, final String... keys) {
+        return writeAndExpire(getSharedPool(withDestination(destination, keys)), destination, seconds, new JedisTransactionAction() {
+
+            @Override
+            public void action(Transaction transaction) {
+                if (weights == null) {
+                    transaction.zunionstore(destination, keys);
+                } else {
+                    transaction.zunionstore(destination, new ZParams().weights(weights), keys);
+                }
+            }
+        });
+    }
+
+    /**
+     * 加入Sorted set并在同一事务中设置过期时间, 一次往返完成, 如果member在Set里已存在, 只更新score并返回false, 否则返回true.
+     *
+     * @param key     the key to set
+     * @param seconds the expire time in seconds, no expire if not positive
+     * @param member  the member to add
+     * @param score   the score to add
+     */
+    public Boolean zaddAndExpire(final String key, final int seconds, final String member, final double score) {
+        Long count = writeAndExpire(key, seconds, new JedisTransactionAction() {
+
+            @Override
+            public void action(Transaction transaction) {
+                transaction.zadd(key, score, member);
+            }
+        });
+        return count == 1 ? true : false;
+    }
+
+    /**
+     * 加入二进制member到Sorted set并在同一事务中设置过期时间, 一次往返完成, 如果member在Set里已存在, 只更新score并返回false, 否则返回true.
+     *
+     * @param key     the binary key to set
+     * @param seconds the expire time in seconds, no expire if not positive
+     * @param member  the binary member to add
+     * @param score   the score to add
+     */
+    public Boolean zaddAndExpire(final byte[] key, final int seconds, final byte[] member, final double score) {
+        Long count = writeAndExpire(key, seconds, new JedisTransactionAction() {
+
+            @Override
+            public void action(Transaction transaction) {
+                transaction.zadd(key, score, member);
+            }
+        });
+        return count == 1 ? true : false;
+    }
+
+    /**
+     * 将member的score增加delta, member不存在时加入, 返回增加后的score
+     *
+     * @param key    the key
+     * @param member the member
+     * @param delta  the delta of score
+     */
+    public Double zincrby(final String key, final String member, final double delta) {
+        Double result = executeCommand("zincrby", key, new JedisAction<Double>() {
+
+            @Override
+            public Double action(Jedis jedis) {
+                return jedis.zincrby(key, delta, member);
+            }
+        });
+        invalidate(key);
+        return result;
+    }
+
+    /**
+     * 将member的score增加delta并在同一事务中设置过期时间, 一次往返完成, 返回增加后的score
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds, no expire if not positive
+     * @param member  the member
+     * @param delta   the delta of score
+     */
+    public Double zincrbyAndExpire(final String key, final int seconds, final String member, final double delta) {
+        return writeAndExpire(key, seconds, new JedisTransactionAction() {
+
+            @Override
+            public void action(Transaction transaction) {
+                transaction.zincrby(key, delta, member);
+            }
+        });
+    }
+
+    /**
+     * 返回member按score升序的排名, 从0开始, member不存在时返回null
+     *
+     * @param key    the key
+     * @param member the member
+     */
+    public Long zrank(final String key, final String member) {
+        return executeRead("zrank", key, new JedisAction<Long>() {
+
+            @Override
+            public Long action(Jedis jedis) {
+                return jedis.zrank(key, member);
+            }
+        });
+    }
+
+    /**
+     * 返回member按score降序的排名, 从0开始, member不存在时返回null
+     *
+     * @param key    the key
+     * @param member the member
+     */
+    public Long zrevrank(final String key, final String member) {
+        return executeRead("zrevrank", key, new JedisAction<Long>() {
+
+            @Override
+            public Long action(Jedis jedis) {
+                return jedis.zrevrank(key, member);
+            }
+        });
+    }
+
+    /**
+     * 返回排名在start与end之间的member及score, 按score升序, 负数表示从末尾倒数
+     *
+     * @param key   the key
+     * @param start the start rank
+     * @param end   the end rank
+     */
+    public Set<Tuple> zrangeWithScores(final String key, final long start, final long end) {
+        return executeRead("zrangewithscores", key, new JedisAction<Set<Tuple>>() {
+
+            @Override
+            public Set<Tuple> action(Jedis jedis) {
+                return jedis.zrangeWithScores(key, start, end);
+            }
+        });
+    }
+
+    /**
+     * 返回排名在start与end之间的member及score, 按score降序, 负数表示从末尾倒数
+     *
+     * @param key   the key
+     * @param start the start rank
+     * @param end   the end rank
+     */
+    public Set<Tuple> zrevrangeWithScores(final String key, final long start, final long end) {
+        return executeRead("zrevrangewithscores", key, new JedisAction<Set<Tuple>>() {
+
+            @Override
+            public Set<Tuple> action(Jedis jedis) {
+                return jedis.zrevrangeWithScores(key, start, end);
+            }
+        });
+    }
+
+    /**
+     * 从master返回sorted set长度, 不经过replica, 用于刚被写入的key. key不存在时返回0
+     *
+     * @param key the key
+     * @return the size of set
+     */
+    public Long zcardFromMaster(final String key) {
+        return executeCommand("zcard", key, new JedisAction<Long>() {
+
+            @Override
+            public Long action(Jedis jedis) {
+                return jedis.zcard(key);
+            }
+        });
+    }
+
+    /**
+     * 从master返回member按score降序的排名, 不经过replica, 用于刚被写入的key. member不存在时返回null
+     *
+     * @param key    the key
+     * @param member the member
+     */
+    public Long zrevrankFromMaster(final String key, final String member) {
+        return executeCommand("zrevrank", key, new JedisAction<Long>() {
+
+            @Override
+            public Long action(Jedis jedis) {
+                return jedis.zrevrank(key, member);
+            }
+        });
+    }
+
+    /**
+     * 从master返回排名在start与end之间的member及score, 按score降序, 不经过replica, 用于刚被写入的key
+     *
+     * @param key   the key
+     * @param start the start rank
+     * @param end   the end rank
+     */
+    public Set<Tuple> zrevrangeWithScoresFromMaster(final String key, final long start, final long end) {
+        return executeCommand("zrevrangewithscores", key, new JedisAction<Set<Tuple>>() {
+
+            @Override
+            public Set<Tuple> action(Jedis jedis) {
+                return jedis.zrevrangeWithScores(key, start, end);
+            }
+        });
+    }
+
+    /**
+     * set key expire in given seconds time
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @return result
+     */
+    public Long expire(final String key, final int seconds) {
+        return executeCommand("expire", key, new JedisAction<Long>() {
+
+            @Override
+            public Long action(Jedis jedis) {
+                return jedis.expire(key, seconds);
+            }
+        });
+    }
+
+    /**
+     * key已设置过期时间时重置为seconds秒后过期, 永久key保持不变, 重置返回true
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     */
+    public Boolean expireIfVolatile(final String key, final int seconds) {
+        return executeCommand("expire", key, new JedisAction<Boolean>() {
+
+            @Override
+            public Boolean action(Jedis jedis) {
+                Object result = evalsha(jedis, EXPIRE_IF_VOLATILE.getSha1(), EXPIRE_IF_VOLATILE.getSource(),
+                        Collections.singletonList(key), Collections.singletonList(String.valueOf(seconds)));
+                return Long.valueOf(1).equals(result);
+            }
+        });
+    }
+
+    /**
+     * return all the members of the set, and reset the expire time
+     * of key in the same round trip if the key has one
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @return result
+     */
+    public Set<String> smembersAndRefresh(final String key, final int seconds) {
+        return readAndRefresh("smembers", key, seconds, new JedisPipelinedRead<Set<String>>() {
+
+            @Override
+            public Response<Set<String>> read(Pipeline pipeline) {
+                return pipeline.smembers(key);
+            }
+        });
+    }
+
+    /**
+     * return all the binary members of the set, and reset the expire time
+     * of key in the same round trip if the key has one
+     *
+     * @param key     the binary key
+     * @param seconds the expire time in seconds
+     * @return result
+     */
+    public Set<byte[]> smembersAndRefresh(final byte[] key, final int seconds) {
+        return readAndRefresh("smembers", key, seconds, new JedisPipelinedRead<Set<byte[]>>() {
+
+            @Override
+            public Response<Set<byte[]>> read(Pipeline pipeline) {
+                return pipeline.smembers(key);
+            }
+        });
     }
 
     /**
-     * 删除key, 如果key存在返回true, 否则返回false。
+     * return the sorted set according to start and end index and ordered asce, and reset the expire time
+     * of key in the same round trip if the key has one
      *
-     * @param keys the key
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @param start   the start index
+     * @param end     the end index
+     * @return result
      */
-    public Boolean del(final String... keys) {
-        return execute(new JedisAction<Boolean>() {
+    public Set<String> zrangeAndRefresh(final String key, final int seconds, final int start, final int end) {
+        return readAndRefresh("zrange", key, seconds, new JedisPipelinedRead<Set<String>>() {
 
             @Override
-            public Boolean action(Jedis jedis) {
-                return jedis.del(keys) == 1 ? true : false;
+            public Response<Set<String>> read(Pipeline pipeline) {
+                return pipeline.zrange(key, start, end);
             }
         });
     }
 
     /**
-     * 刷新DB
+     * return the binary sorted set according to start and end index and ordered asce, and reset the expire time
+     * of key in the same round trip if the key has one
+     *
+     * @param key     the binary key
+     * @param seconds the expire time in seconds
+     * @param start   the start index
+     * @param end     the end index
+     * @return result
      */
-    public void flushDB() {
-        execute(new JedisActionNoResult() {
+    public Set<byte[]> zrangeAndRefresh(final byte[] key, final int seconds, final int start, final int end) {
+        return readAndRefresh("zrange", key, seconds, new JedisPipelinedRead<Set<byte[]>>() {
 
             @Override
-            public void action(Jedis jedis) {
-                jedis.flushDB();
+            public Response<Set<byte[]>> read(Pipeline pipeline) {
+                return pipeline.zrange(key, start, end);
             }
         });
     }
 
     /**
-     * 如果key不存在, 返回null.
+     * return the sorted set according to start and end index and ordered desc, and reset the expire time
+     * of key in the same round trip if the key has one
      *
-     * @param key the key
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @param start   the start index
+     * @param end     the end index
+     * @return result
      */
-    public String get(final String key) {
-        return execute(new JedisAction<String>() {
+    public Set<String> zrevrangeAndRefresh(final String key, final int seconds, final int start, final int end) {
+        return readAndRefresh("zrevrange", key, seconds, new JedisPipelinedRead<Set<String>>() {
 
             @Override
-            public String action(Jedis jedis) {
-                return jedis.get(key);
+            public Response<Set<String>> read(Pipeline pipeline) {
+                return pipeline.zrevrange(key, start, end);
             }
         });
-
     }
 
     /**
-     * 如果key不存在, 返回null.
+     * return the binary sorted set according to start and end index and ordered desc, and reset the expire time
+     * of key in the same round trip if the key has one
      *
-     * @param key the key
+     * @param key     the binary key
+     * @param seconds the expire time in seconds
+     * @param start   the start index
+     * @param end     the end index
+     * @return result
      */
-    public Long getAsLong(final String key) {
-        String result = get(key);
-        return result != null ? Long.valueOf(result) : null;
+    public Set<byte[]> zrevrangeAndRefresh(final byte[] key, final int seconds, final int start, final int end) {
+        return readAndRefresh("zrevrange", key, seconds, new JedisPipelinedRead<Set<byte[]>>() {
+
+            @Override
+            public Response<Set<byte[]>> read(Pipeline pipeline) {
+                return pipeline.zrevrange(key, start, end);
+            }
+        });
     }
 
     /**
-     * 如果key不存在, 返回null.
+     * return the members of sorted set whose score is between min and max, ordered asce and paged by offset and count, and reset the expire time
+     * of key in the same round trip if the key has one
      *
-     * @param key the key
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @param min     the min score, inclusive
+     * @param max     the max score, inclusive
+     * @param offset  the offset of the first member to return
+     * @param count   the max count of members to return
+     * @return result
      */
-    public Integer getAsInt(final String key) {
-        String result = get(key);
-        return result != null ? Integer.valueOf(result) : null;
+    public Set<String> zrangeByScoreAndRefresh(final String key, final int seconds, final double min, final double max, final int offset, final int count) {
+        return readAndRefresh("zrangebyscore", key, seconds, new JedisPipelinedRead<Set<String>>() {
+
+            @Override
+            public Response<Set<String>> read(Pipeline pipeline) {
+                return pipeline.zrangeByScore(key, min, max, offset, count);
+            }
+        });
     }
 
     /**
-     * 设置key/value
+     * return the members of sorted set whose score is between max and min, ordered desc and paged by offset and count, and reset the expire time
+     * of key in the same round trip if the key has one
      *
-     * @param key   the key to set
-     * @param value the value to set
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @param max     the max score, inclusive
+     * @param min     the min score, inclusive
+     * @param offset  the offset of the first member to return
+     * @param count   the max count of members to return
+     * @return result
      */
-    public void set(final String key, final String value) {
-        execute(new JedisActionNoResult() {
+    public Set<String> zrevrangeByScoreAndRefresh(final String key, final int seconds, final double max, final double min, final int offset, final int count) {
+        return readAndRefresh("zrevrangebyscore", key, seconds, new JedisPipelinedRead<Set<String>>() {
 
             @Override
-            public void action(Jedis jedis) {
-                jedis.set(key, value);
+            public Response<Set<String>> read(Pipeline pipeline) {
+                return pipeline.zrevrangeByScore(key, max, min, offset, count);
             }
         });
     }
 
     /**
-     * 设置key/value
+     * return the binary members with scores of sorted set whose score is between min and max, ordered asce and paged, and reset the expire time
+     * of key in the same round trip if the key has one
      *
-     * @param key     the key to set
-     * @param value   the value to set
-     * @param seconds the seconds
+     * @param key     the binary key
+     * @param seconds the expire time in seconds
+     * @param min     the min score, inclusive
+     * @param max     the max score, inclusive
+     * @param offset  the offset of the first member to return
+     * @param count   the max count of members to return
+     * @return result
      */
-    public void setex(final String key, final String value, final int seconds) {
-        execute(new JedisActionNoResult() {
+    public Set<Tuple> zrangeByScoreWithScoresAndRefresh(final byte[] key, final int seconds, final double min, final double max, final int offset, final int count) {
+        return readAndRefresh("zrangebyscorewithscores", key, seconds, new JedisPipelinedRead<Set<Tuple>>() {
 
             @Override
-            public void action(Jedis jedis) {
-                jedis.setex(key, seconds, value);
+            public Response<Set<Tuple>> read(Pipeline pipeline) {
+                return pipeline.zrangeByScoreWithScores(key, min, max, offset, count);
             }
         });
     }
 
     /**
-     * 如果key还不存在则进行设置，返回true，否则返回false.
+     * return the binary members with scores of sorted set whose score is between max and min, ordered desc and paged, and reset the expire time
+     * of key in the same round trip if the key has one
      *
-     * @param key   the key to set
-     * @param value the value to set
+     * @param key     the binary key
+     * @param seconds the expire time in seconds
+     * @param max     the max score, inclusive
+     * @param min     the min score, inclusive
+     * @param offset  the offset of the first member to return
+     * @param count   the max count of members to return
+     * @return result
      */
-    public Boolean setnx(final String key, final String value) {
-        return execute(new JedisAction<Boolean>() {
+    public Set<Tuple> zrevrangeByScoreWithScoresAndRefresh(final byte[] key, final int seconds, final double max, final double min, final int offset, final int count) {
+        return readAndRefresh("zrevrangebyscorewithscores", key, seconds, new JedisPipelinedRead<Set<Tuple>>() {
 
             @Override
-            public Boolean action(Jedis jedis) {
-                return jedis.setnx(key, value) == 1 ? true : false;
+            public Response<Set<Tuple>> read(Pipeline pipeline) {
+                return pipeline.zrevrangeByScoreWithScores(key, max, min, offset, count);
             }
         });
     }
 
     /**
-     * 综合setNX与setEx的效果。
+     * Execute the read command on the master, pipelined with the reset of the expire time of key
+     * if the key has one, so that both take one round trip. The near cache is bypassed.
      *
-     * @param key     the key to set
-     * @param value   the value to set
-     * @param seconds the seconds
+     * @param command the command name
+     * @param key     the key
+     * @param seconds the expire time in seconds, no reset if not positive
+     * @param read    the read queued into the pipeline
+     * @return the reply of read
      */
-    public Boolean setnxex(final String key, final String value, final int seconds) {
-        return execute(new JedisAction<Boolean>() {
+    private <T> T readAndRefresh(String command, final String key, final int seconds, final JedisPipelinedRead<T> read) {
+        return execute(command, getPool(key), new JedisAction<T>() {
 
             @Override
-            public Boolean action(Jedis jedis) {
-                String result = jedis.set(key, value, "NX", "EX", seconds);
-                return JedisUtils.isStatusOk(result);
+            public T action(Jedis jedis) {
+                Pipeline pipeline = jedis.pipelined();
+                Response<T> response = read.read(pipeline);
+                if (seconds > 0) {
+                    // the reply of EVALSHA in pipeline can not be read as integer, nor fall back on NOSCRIPT
+                    pipeline.eval(EXPIRE_IF_VOLATILE.getSource(), Collections.singletonList(key),
+                            Collections.singletonList(String.valueOf(seconds)));
+                }
+                pipeline.sync();
+                return response.get();
             }
         });
     }
 
     /**
-     * Increase key count
+     * Execute the read command of binary key on the master, pipelined with the reset of the expire
+     * time of key if the key has one, so that both take one round trip. The near cache is bypassed.
      *
-     * @param key the key
-     * @return result
+     * @param command the command name
+     * @param key     the binary key
+     * @param seconds the expire time in seconds, no reset if not positive
+     * @param read    the read queued into the pipeline
+     * @return the reply of read
      */
-    public Long incr(final String key) {
-        return execute(new JedisAction<Long>() {
+    private <T> T readAndRefresh(String command, byte[] key, int seconds, JedisPipelinedRead<T> read) {
+        return readAndRefresh(command, SafeEncoder.encode(key), seconds, read);
+    }
+
+    /**
+     * Publish the message on channel
+     *
+     * @param channel the channel
+     * @param message the message
+     * @return the count of clients received the message
+     */
+    public Long publish(final String channel, final String message) {
+        return executeCommand("publish", channel, new JedisAction<Long>() {
+
             @Override
             public Long action(Jedis jedis) {
-                return jedis.incr(key);
+                return jedis.publish(channel, message);
             }
         });
     }
 
+    // ////////////// Hash ///////////////////////////
+
     /**
-     * Decrease key count
+     * 设置Hash的field, field为新加入时返回true, 更新已有field时返回false
      *
-     * @param key the key
-     * @return result
+     * @param key   the key
+     * @param field the field
+     * @param value the value
      */
-    public Long decr(final String key) {
-        return execute(new JedisAction<Long>() {
+    public Boolean hset(final String key, final String field, final String value) {
+        Boolean result = executeCommand("hset", key, new JedisAction<Boolean>() {
+
             @Override
-            public Long action(Jedis jedis) {
-                return jedis.decr(key);
+            public Boolean action(Jedis jedis) {
+                return jedis.hset(key, field, value) == 1 ? true : false;
             }
         });
+        invalidate(key);
+        return result;
     }
 
-    // ////////////// 关于List ///////////////////////////
-
     /**
-     * 设置key/value
+     * 获取Hash的field, field或key不存在时返回null
      *
-     * @param key    the key to set
-     * @param values the list values
+     * @param key   the key
+     * @param field the field
      */
-    public void lpush(final String key, final String... values) {
-        execute(new JedisActionNoResult() {
+    public String hget(final String key, final String field) {
+        return executeRead("hget", key, new JedisAction<String>() {
+
             @Override
-            public void action(Jedis jedis) {
-                jedis.lpush(key, values);
+            public String action(Jedis jedis) {
+                return jedis.hget(key, field);
             }
         });
     }
 
     /**
-     * 获取value
+     * 设置Hash的多个field, 不在fields中的已有field保持不变
      *
-     * @param key the key
-     * @return result
+     * @param key    the key
+     * @param fields the fields and values
      */
-    public String rpop(final String key) {
-        return execute(new JedisAction<String>() {
+    public void hmset(final String key, final Map<String, String> fields) {
+        executeCommand("hmset", key, new JedisActionNoResult() {
 
             @Override
-            public String action(Jedis jedis) {
-                return jedis.rpop(key);
+            public void action(Jedis jedis) {
+                jedis.hmset(key, fields);
             }
         });
+        invalidate(key);
     }
 
     /**
-     * 返回List长度, key不存在时返回0，key类型不是list时抛出异常
+     * 获取Hash的多个field, 按fields顺序返回, 不存在的field对应null
      *
-     * @param key the key
+     * @param key    the key
+     * @param fields the fields
      */
-    public Long llen(final String key) {
-        return execute(new JedisAction<Long>() {
+    public List<String> hmget(final String key, final String... fields) {
+        return executeRead("hmget", key, new JedisAction<List<String>>() {
 
             @Override
-            public Long action(Jedis jedis) {
-                return jedis.llen(key);
+            public List<String> action(Jedis jedis) {
+                return jedis.hmget(key, fields);
             }
         });
     }
 
     /**
-     * 删除List中的第一个等于value的元素，value不存在或key不存在时返回false
+     * 获取Hash的所有field, key不存在时返回空Map
      *
-     * @param key   the key
-     * @param value the value
+     * @param key the key
      */
-    public Boolean lremOne(final String key, final String value) {
-        return execute(new JedisAction<Boolean>() {
+    public Map<String, String> hgetAll(final String key) {
+        return executeRead("hgetall", key, new JedisAction<Map<String, String>>() {
 
             @Override
-            public Boolean action(Jedis jedis) {
-                Long count = jedis.lrem(key, 1, value);
-                return (count == 1);
+            public Map<String, String> action(Jedis jedis) {
+                return jedis.hgetAll(key);
             }
         });
     }
 
     /**
-     * 删除List中的所有等于value的元素，value不存在或key不存在时返回false
+     * Increase the field of hash by delta
      *
      * @param key   the key
-     * @param value the value
+     * @param field the field
+     * @param delta the delta
+     * @return the value after increased
      */
-    public Boolean lremAll(final String key, final String value) {
-        return execute(new JedisAction<Boolean>() {
+    public Long hincrBy(final String key, final String field, final long delta) {
+        Long result = executeCommand("hincrby", key, new JedisAction<Long>() {
 
             @Override
-            public Boolean action(Jedis jedis) {
-                Long count = jedis.lrem(key, 0, value);
-                return (count > 0);
+            public Long action(Jedis jedis) {
+                return jedis.hincrBy(key, field, delta);
             }
         });
+        invalidate(key);
+        return result;
     }
 
-    // ////////////// Set ///////////////////////////
-
     /**
-     * add members to set according to key
+     * 删除Hash的fields, 返回实际删除的field数
      *
-     * @param key     the key to set
-     * @param members the members to add
-     * @return result
+     * @param key    the key
+     * @param fields the fields
      */
-    public Boolean sadd(final String key, final String... members) {
-        return execute(new JedisAction<Boolean>() {
+    public Long hdel(final String key, final String... fields) {
+        Long result = executeCommand("hdel", key, new JedisAction<Long>() {
 
             @Override
-            public Boolean action(Jedis jedis) {
-                Long count = jedis.sadd(key, members);
-                return (count > 0);
+            public Long action(Jedis jedis) {
+                return jedis.hdel(key, fields);
             }
         });
-
+        invalidate(key);
+        return result;
     }
 
     /**
-     * remove the specific member from set
+     * 在一个事务中设置Hash的多个field并删除另外的fields, 其余field保持不变
      *
-     * @param key     the key to set
-     * @param members the members to add
-     * @return result
+     * @param key           the key
+     * @param fields        the fields and values to set
+     * @param deletedFields the fields to delete
      */
-    public Boolean srem(final String key, final String... members) {
-        return execute(new JedisAction<Boolean>() {
+    public void hmsetAndDel(final String key, final Map<String, String> fields, final String... deletedFields) {
+        List<Object> results = executeTransaction(key, new JedisTransactionAction() {
 
             @Override
-            public Boolean action(Jedis jedis) {
-                Long count = jedis.srem(key, members);
-                return (count > 0);
+            public void action(Transaction transaction) {
+                if (deletedFields.length > 0) {
+                    transaction.hdel(key, deletedFields);
+                }
+                if (!fields.isEmpty()) {
+                    transaction.hmset(key, fields);
+                }
             }
         });
+        invalidate(key);
+        checkReplies(results);
     }
 
+    // ////////////// HyperLogLog ///////////////////////////
+
     /**
-     * determine the member is in set
+     * 加入HyperLogLog, 基数估计值发生变化时返回true
      *
-     * @param key    the key
-     * @param member the member value
-     * @return result
+     * @param key      the key
+     * @param elements the elements
      */
-    public Boolean sismember(final String key, final String member) {
-        return execute(new JedisAction<Boolean>() {
+    public Boolean pfadd(final String key, final String... elements) {
+        Boolean result = executeCommand("pfadd", key, new JedisAction<Boolean>() {
+
             @Override
             public Boolean action(Jedis jedis) {
-                return jedis.sismember(key, member);
+                return jedis.pfadd(key, elements) == 1 ? true : false;
             }
         });
+        invalidate(key);
+        return result;
     }
 
     /**
-     * return the size of the set
+     * 返回HyperLogLog的基数估计值, 多个key时返回并集的基数估计值, key不存在时返回0
+     * <p/>
+     * 多个key需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 如按天的key <code>uv:{page}:20140301</code>, 否则抛出JedisException
      *
-     * @param key the key
-     * @return set size
+     * @param keys the keys
      */
-    public Long scard(final String key) {
-        return execute(new JedisAction<Long>() {
+    public Long pfcount(final String... keys) {
+        return executeRead("pfcount", keys, new JedisAction<Long>() {
+
             @Override
             public Long action(Jedis jedis) {
-                return jedis.scard(key);
+                return jedis.pfcount(keys);
             }
         });
     }
 
     /**
-     * return all the members of the set
+     * 将多个HyperLogLog合并存入destination, 并在同一事务中设置过期时间, 返回合并后的基数估计值
+     * <p/>
+     * destination与keys需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 否则抛出JedisException
      *
-     * @param key the key
-     * @return result
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
      */
-    public Set<String> smembers(final String key) {
-        return execute(new JedisAction<Set<String>>() {
+    public Long pfmerge(final String destination, final int seconds, final String... keys) {
+        List<Object> results = executeTransaction(getSharedPool(withDestination(destination, keys)), new JedisTransactionAction() {
 
             @Override
-            public Set<String> action(Jedis jedis) {
-                return jedis.smembers(key);
+            public void action(Transaction transaction) {
+                transaction.pfmerge(destination, keys);
+                if (seconds > 0) {
+                    transaction.expire(destination, seconds);
+                }
+                transaction.pfcount(destination);
             }
         });
+        invalidate(destination);
+        checkReplies(results);
+        return (Long) results.get(results.size() - 1);
     }
 
-
-    // ////////////// 关于Sorted Set ///////////////////////////
+    // ////////////// Bitmap ///////////////////////////
 
     /**
-     * 加入Sorted set, 如果member在Set里已存在, 只更新score并返回false, 否则返回true.
+     * 设置offset位的值, 返回该位原来的值
      *
-     * @param key    the key to set
-     * @param member the member to add
-     * @param score  the score to add
+     * @param key    the key
+     * @param offset the bit offset
+     * @param value  the bit value
      */
-    public Boolean zadd(final String key, final String member, final double score) {
-        return execute(new JedisAction<Boolean>() {
+    public Boolean setbit(final String key, final long offset, final boolean value) {
+        Boolean result = executeCommand("setbit", key, new JedisAction<Boolean>() {
 
             @Override
             public Boolean action(Jedis jedis) {
-                return jedis.zadd(key, score, member) == 1 ? true : false;
+                return jedis.setbit(key, offset, value);
             }
         });
+        invalidate(key);
+        return result;
     }
 
     /**
-     * return the sorted set according to start and end index and ordered asce
+     * 返回offset位的值, key不存在或offset超出长度时返回false
      *
-     * @param key   the key
-     * @param start the start index
-     * @param end   the end index
-     * @return result
+     * @param key    the key
+     * @param offset the bit offset
      */
-    public Set<String> zrange(final String key, final int start, final int end) {
-        return execute(new JedisAction<Set<String>>() {
+    public Boolean getbit(final String key, final long offset) {
+        return executeRead("getbit", key, new JedisAction<Boolean>() {
 
             @Override
-            public Set<String> action(Jedis jedis) {
-                return jedis.zrange(key, start, end);
+            public Boolean action(Jedis jedis) {
+                return jedis.getbit(key, offset);
             }
-
         });
     }
 
     /**
-     * return the sorted set according to start and end index and ordered desc
+     * 返回值为1的位数
      *
-     * @param key   the key
-     * @param start the start index
-     * @param end   the end index
-     * @return result
+     * @param key the key
      */
-    public Set<String> zrevrange(final String key, final int start, final int end) {
-        return execute(new JedisAction<Set<String>>() {
+    public Long bitcount(final String key) {
+        return executeRead("bitcount", key, new JedisAction<Long>() {
 
             @Override
-            public Set<String> action(Jedis jedis) {
-                return jedis.zrevrange(key, start, end);
+            public Long action(Jedis jedis) {
+                return jedis.bitcount(key);
             }
         });
     }
 
     /**
-     * 删除sorted set中的元素，成功删除返回true，key或member不存在返回false
+     * 返回start到end字节之间值为1的位数, 负数表示从末尾倒数
      *
-     * @param key    the key
-     * @param member the member
+     * @param key   the key
+     * @param start the start byte, inclusive
+     * @param end   the end byte, inclusive
      */
-    public Boolean zrem(final String key, final String member) {
-        return execute(new JedisAction<Boolean>() {
+    public Long bitcount(final String key, final long start, final long end) {
+        return executeRead("bitcount", key, new JedisAction<Long>() {
 
             @Override
-            public Boolean action(Jedis jedis) {
-                return jedis.zrem(key, member) == 1 ? true : false;
+            public Long action(Jedis jedis) {
+                return jedis.bitcount(key, start, end);
             }
         });
     }
 
     /**
-     * 当key不存在时返回null
+     * 将keys按位运算的结果存入destination, 并在同一事务中设置过期时间, 返回结果的字节长度
+     * <p/>
+     * destination与keys需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 否则抛出JedisException
      *
-     * @param key    the key
-     * @param member the member
+     * @param operation   the bit operation, NOT takes only one key
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
      */
-    public Double zscore(final String key, final String member) {
-        return execute(new JedisAction<Double>() {
+    public Long bitop(final BitOP operation, final String destination, final int seconds, final String... keys) {
+        return writeAndExpire(getSharedPool(withDestination(destination, keys)), destination, seconds, new JedisTransactionAction() {
 
             @Override
-            public Double action(Jedis jedis) {
-                return jedis.zscore(key, member);
+            public void action(Transaction transaction) {
+                transaction.bitop(operation, destination, keys);
             }
         });
     }
 
+    // ////////////// Script ///////////////////////////
+
     /**
-     * 返回sorted set长度, key不存在时返回0
+     * Load the Lua script into script cache of redis
      *
-     * @param key the key
-     * @return the size of set
+     * @param script the Lua script
+     * @return the SHA1 digest of script
      */
-    public Long zcard(final String key) {
-        return execute(new JedisAction<Long>() {
+    public String scriptLoad(final String script) {
+        return execute("script", getPool(), new JedisAction<String>() {
 
             @Override
-            public Long action(Jedis jedis) {
-                return jedis.zcard(key);
+            public String action(Jedis jedis) {
+                return jedis.scriptLoad(script);
             }
         });
     }
 
     /**
-     * set key expire in given seconds time
+     * Evaluate the cached Lua script by EVALSHA, and fall back to EVAL with the script
+     * source if it is not cached on the server. The script runs on the connection all the keys
+     * are routed to, and all the keys are invalidated in near cache afterwards.
      *
-     * @param key     the key
-     * @param seconds the expire time in seconds
-     * @return result
+     * @param sha1   the SHA1 digest of script
+     * @param script the Lua script
+     * @param keys   the keys accessed by the script
+     * @param args   the arguments of the script
+     * @return the reply of the script
      */
-    public Long expire(final String key, final int seconds) {
-        return execute(new JedisAction<Long>() {
+    public Object evalsha(final String sha1, final String script, final List<String> keys, final List<String> args) {
+        Pool<Jedis> pool = keys.isEmpty() ? getPool() : getSharedPool(keys.toArray(new String[keys.size()]));
+        Object result = execute("evalsha", pool, new JedisAction<Object>() {
 
             @Override
-            public Long action(Jedis jedis) {
-                return jedis.expire(key, seconds);
+            public Object action(Jedis jedis) {
+                return evalsha(jedis, sha1, script, keys, args);
             }
         });
+        invalidate(keys.toArray(new String[keys.size()]));
+        return result;
+    }
+
+    /**
+     * Evaluate the cached Lua script by EVALSHA on the connection, falling back to EVAL
+     *
+     * @param jedis  The Jedis object
+     * @param sha1   the SHA1 digest of script
+     * @param script the Lua script
+     * @param keys   the keys accessed by the script
+     * @param args   the arguments of the script
+     * @return the reply of the script
+     */
+    private static Object evalsha(Jedis jedis, String sha1, String script, List<String> keys, List<String> args) {
+        try {
+            return jedis.evalsha(sha1, keys, args);
+        } catch (JedisDataException e) {
+            if (e.getMessage() == null || !e.getMessage().startsWith("NOSCRIPT")) {
+                throw e;
+            }
+            return jedis.eval(script, keys, args);
+        }
     }
 
 }
@@ -0,0 +1,352 @@
+package com.demo2do.core.redis;
+
+import com.demo2do.core.redis.RedisChannelSubscriber.MessageListener;
+import redis.clients.jedis.Jedis;
+import redis.clients.util.Pool;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-JVM near cache in front of the read commands of {@link JedisTemplate}
+ * <p/>
+ * Values are cached per redis key, bounded by entry count and estimated bytes, and
+ * expire after the configured TTL. Every write through a template using this cache
+ * publishes the written key on the invalidation channel, and every node subscribing
+ * the channel evicts the key, so that the cache stays coherent across the cluster.
+ * <p/>
+ * Keys are spread over segments, each one a LRU map with its own lock and its share of
+ * the bounds. Invalidations are versioned per key stripe, so that a value loaded before
+ * the invalidation of its key is not cached, while loads of other keys are not affected.
+ * Nothing is cached while the invalidation channel is not subscribed, since invalidations
+ * may be missed in the meantime.
+ *
+ * @author David
+ */
+public class NearCache {
+
+    /**
+     * The message published to clear the whole cache
+     */
+    static final String CLEAR_ALL = "";
+
+    private static final int SEGMENT_BITS = 4;
+
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    private static final int VERSION_STRIPE_BITS = 10;
+
+    private static final int VERSION_STRIPES = 1 << VERSION_STRIPE_BITS;
+
+    private int maxEntries = 10000;
+
+    private long maxBytes = 64L * 1024 * 1024;
+
+    private long ttlMillis = 60 * 1000L;
+
+    private String channel = "near-cache:invalidation";
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private volatile boolean subscribed;
+
+    private RedisChannelSubscriber subscriber;
+
+    /**
+     * The default constructor
+     */
+    public NearCache() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * @param maxEntries the max count of cached redis keys
+     */
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @param maxBytes the max estimated bytes of cached values
+     */
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param ttlSeconds the time to live of cached values in seconds
+     */
+    public void setTtlSeconds(int ttlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000L;
+    }
+
+    /**
+     * @param channel the pub/sub channel used to broadcast invalidations
+     */
+    public void setChannel(String channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * @return the pub/sub channel used to broadcast invalidations
+     */
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * Get the current invalidation version of the key, which should be read before loading
+     * a value from redis and passed to {@link #put(String, String, Object, long)}
+     *
+     * @param key the redis key
+     * @return the version
+     */
+    public long getVersion(String key) {
+        return versions.get(stripe(key));
+    }
+
+    /**
+     * Get the cached value
+     *
+     * @param key   the redis key
+     * @param field the command and arguments the value is read by
+     * @return the value, or null if not cached
+     */
+    public Object get(String key, String field) {
+        Segment segment = segment(key);
+        synchronized (segment) {
+            Entry entry = segment.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            Value value = entry.values.get(field);
+            if (value == null) {
+                return null;
+            }
+            if (value.expireAt < System.currentTimeMillis()) {
+                entry.values.remove(field);
+                entry.bytes -= value.bytes;
+                segment.bytes -= value.bytes;
+                return null;
+            }
+            return value.object;
+        }
+    }
+
+    /**
+     * Cache the value, unless the key has been invalidated since the version was read, or
+     * the invalidation channel is not subscribed
+     *
+     * @param key     the redis key
+     * @param field   the command and arguments the value is read by
+     * @param object  the value, null is not cached
+     * @param version the version read before loading the value
+     */
+    public void put(String key, String field, Object object, long version) {
+        if (object == null || !subscribed) {
+            return;
+        }
+        long size = estimate(key) + estimate(field) + estimate(object);
+        Segment segment = segment(key);
+        synchronized (segment) {
+            if (!subscribed || version != versions.get(stripe(key))) {
+                return;
+            }
+            Entry entry = segment.entries.get(key);
+            if (entry == null) {
+                entry = new Entry();
+                segment.entries.put(key, entry);
+            }
+            Value previous = entry.values.put(field, new Value(object, size, System.currentTimeMillis() + ttlMillis));
+            if (previous != null) {
+                entry.bytes -= previous.bytes;
+                segment.bytes -= previous.bytes;
+            }
+            entry.bytes += size;
+            segment.bytes += size;
+            evict(segment);
+        }
+    }
+
+    /**
+     * Evict the key from local cache
+     *
+     * @param key the redis key
+     */
+    public void invalidate(String key) {
+        Segment segment = segment(key);
+        synchronized (segment) {
+            versions.incrementAndGet(stripe(key));
+            Entry entry = segment.entries.remove(key);
+            if (entry != null) {
+                segment.bytes -= entry.bytes;
+            }
+        }
+    }
+
+    /**
+     * Clear the local cache
+     */
+    public void clear() {
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+                segment.bytes = 0;
+            }
+        }
+    }
+
+    /**
+     * Evict the least recently used keys of the segment until both its bounds are met
+     *
+     * @param segment the segment
+     */
+    private void evict(Segment segment) {
+        int segmentEntries = Math.max(maxEntries / SEGMENTS, 1);
+        long segmentBytes = maxBytes / SEGMENTS;
+        Iterator<Entry> iterator = segment.entries.values().iterator();
+        while ((segment.entries.size() > segmentEntries || segment.bytes > segmentBytes) && iterator.hasNext()) {
+            segment.bytes -= iterator.next().bytes;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * @param key the redis key
+     * @return the segment holding the key
+     */
+    private Segment segment(String key) {
+        return segments[mix(key) >>> (32 - SEGMENT_BITS)];
+    }
+
+    /**
+     * @param key the redis key
+     * @return the version stripe of the key
+     */
+    private static int stripe(String key) {
+        return mix(key) >>> (32 - VERSION_STRIPE_BITS);
+    }
+
+    /**
+     * @param key the redis key
+     * @return the hash code of key with bits mixed into the high bits
+     */
+    private static int mix(String key) {
+        return key.hashCode() * 0x9E3779B9;
+    }
+
+    /**
+     * Roughly estimate the heap size of a cached object
+     *
+     * @param object the object
+     * @return the estimated bytes
+     */
+    private static long estimate(Object object) {
+        if (object instanceof String) {
+            return 40 + 2L * ((String) object).length();
+        } else if (object instanceof byte[]) {
+            return 16 + ((byte[]) object).length;
+        } else if (object instanceof Collection) {
+            long size = 32;
+            for (Object element : (Collection<?>) object) {
+                size += 16 + estimate(element);
+            }
+            return size;
+        }
+        return 16;
+    }
+
+    /**
+     * Start subscribing the invalidation channel in a daemon thread
+     *
+     * @param pool the pool to borrow the subscribing connection from
+     */
+    synchronized void start(Pool<Jedis> pool) {
+        if (subscriber != null) {
+            return;
+        }
+        subscriber = new RedisChannelSubscriber("near-cache-subscriber", pool, channel, new MessageListener() {
+
+            @Override
+            public void onSubscribe() {
+                clear();
+                subscribed = true;
+            }
+
+            @Override
+            public void onMessage(String message) {
+                if (CLEAR_ALL.equals(message)) {
+                    clear();
+                } else {
+                    invalidate(message);
+                }
+            }
+
+            @Override
+            public void onLost() {
+                subscribed = false;
+                clear();
+            }
+        });
+        subscriber.start();
+    }
+
+    /**
+     * Stop subscribing the invalidation channel
+     */
+    public synchronized void destroy() {
+        if (subscriber != null) {
+            subscriber.destroy();
+        }
+    }
+
+    /**
+     * LRU map of the keys in one segment, guarded by the segment itself
+     */
+    private static class Segment {
+
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+        private long bytes;
+    }
+
+    /**
+     * Cached values of one redis key
+     */
+    private static class Entry {
+
+        private final Map<String, Value> values = new HashMap<String, Value>(4);
+
+        private long bytes;
+    }
+
+    /**
+     * Cached value of one read command
+     */
+    private static class Value {
+
+        private final Object object;
+
+        private final long bytes;
+
+        private final long expireAt;
+
+        private Value(Object object, long bytes, long expireAt) {
+            this.object = object;
+            this.bytes = bytes;
+            this.expireAt = expireAt;
+        }
+    }
+
+}
@@ -0,0 +1,181 @@
+package com.demo2do.core.redis;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.util.Pool;
+
+/**
+ * Subscriber of one pub/sub channel in a daemon thread, which keeps the subscription alive
+ * <p/>
+ * The subscribing connection is borrowed from the pool and held until the subscription ends.
+ * When the connection is lost, the listener is told so and the channel is subscribed again
+ * after a short interval, until the subscriber is destroyed.
+ *
+ * @author David
+ */
+public class RedisChannelSubscriber {
+
+    private static final Log logger = LogFactory.getLog(RedisChannelSubscriber.class);
+
+    private static final long RECONNECT_INTERVAL = 1000L;
+
+    private final String name;
+
+    private final Pool<Jedis> pool;
+
+    private final String channel;
+
+    private final MessageListener listener;
+
+    private volatile boolean running;
+
+    private volatile MessageSubscriber subscriber;
+
+    /**
+     * The constructor using pool, channel and listener
+     *
+     * @param name     the name of subscribing thread
+     * @param pool     the pool to borrow the subscribing connection from
+     * @param channel  the channel to subscribe
+     * @param listener the listener of messages
+     */
+    public RedisChannelSubscriber(String name, Pool<Jedis> pool, String channel, MessageListener listener) {
+        this.name = name;
+        this.pool = pool;
+        this.channel = channel;
+        this.listener = listener;
+    }
+
+    /**
+     * @return true if started and not destroyed
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Start subscribing the channel in a daemon thread
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(new SubscribeTask(), name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop subscribing the channel
+     */
+    public synchronized void destroy() {
+        running = false;
+        MessageSubscriber current = subscriber;
+        if (current != null && current.isSubscribed()) {
+            current.unsubscribe();
+        }
+    }
+
+    /**
+     * Listener of the subscribed channel, called by the subscribing thread
+     */
+    public interface MessageListener {
+
+        /**
+         * Called when the channel is subscribed, and subscribed again after lost
+         */
+        void onSubscribe();
+
+        /**
+         * Called for every message published on the channel
+         *
+         * @param message the message
+         */
+        void onMessage(String message);
+
+        /**
+         * Called when the subscription ends, messages published until next subscribe are missed
+         */
+        void onLost();
+    }
+
+    /**
+     * Task keeping the subscription alive, reconnecting when the connection is lost
+     */
+    private class SubscribeTask implements Runnable {
+
+        /* (non-Javadoc)
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+            while (running) {
+                Jedis jedis = null;
+                boolean broken = false;
+                try {
+                    jedis = pool.getResource();
+                    subscriber = new MessageSubscriber();
+                    jedis.subscribe(subscriber, channel);
+                } catch (JedisConnectionException e) {
+                    logger.error("Subscription of " + channel + " lost.", e);
+                    broken = true;
+                } catch (RuntimeException e) {
+                    logger.error("Subscription of " + channel + " failed.", e);
+                } finally {
+                    listener.onLost();
+                    if (jedis != null) {
+                        if (broken) {
+                            pool.returnBrokenResource(jedis);
+                        } else {
+                            pool.returnResource(jedis);
+                        }
+                    }
+                }
+                if (running) {
+                    try {
+                        Thread.sleep(RECONNECT_INTERVAL);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Subscriber passing the messages to the listener
+     */
+    private class MessageSubscriber extends JedisPubSub {
+
+        @Override
+        public void onMessage(String channel, String message) {
+            listener.onMessage(message);
+        }
+
+        @Override
+        public void onPMessage(String pattern, String channel, String message) {
+        }
+
+        @Override
+        public void onSubscribe(String channel, int subscribedChannels) {
+            listener.onSubscribe();
+        }
+
+        @Override
+        public void onUnsubscribe(String channel, int subscribedChannels) {
+        }
+
+        @Override
+        public void onPUnsubscribe(String pattern, int subscribedChannels) {
+        }
+
+        @Override
+        public void onPSubscribe(String pattern, int subscribedChannels) {
+        }
+    }
+
+}
@@ -0,0 +1,329 @@
+package com.demo2do.core.redis;
+
+import com.demo2do.core.redis.JedisTemplate.JedisActionNoResult;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.Pool;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Write-combining counters in front of redis INCRBY
+ * <p/>
+ * Deltas are accumulated locally in striped cells per key, and flushed to redis by pipelined
+ * INCRBY, one round trip per shard. A flush happens every flush interval, as soon as the
+ * pending delta of some key reaches the flush threshold, and on {@link #destroy()}. So the
+ * increments lost on a crash are bounded by one interval, and at most about the threshold
+ * per key. Deltas sent without reply are flushed again by default, so counts are at least
+ * once unless configured otherwise.
+ *
+ * @author David
+ */
+public class RedisCounterService {
+
+    private static final Log logger = LogFactory.getLog(RedisCounterService.class);
+
+    /**
+     * Distance between two used cells, to keep them on different cache lines
+     */
+    private static final int PADDING = 8;
+
+    private static final int STRIPES = stripes();
+
+    private final JedisTemplate jedisTemplate;
+
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private long flushThreshold = 1000;
+
+    private boolean retryUnacknowledged = true;
+
+    /**
+     * The constructor using jedis template and the flush interval
+     *
+     * @param jedisTemplate       the jedis template
+     * @param flushIntervalMillis the max milliseconds an increment is kept locally
+     */
+    public RedisCounterService(JedisTemplate jedisTemplate, long flushIntervalMillis) {
+        this.jedisTemplate = jedisTemplate;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "redis-counter-flusher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.scheduler.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                flushQuietly();
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param flushThreshold the pending delta of one key which triggers a flush
+     */
+    public void setFlushThreshold(long flushThreshold) {
+        this.flushThreshold = flushThreshold;
+    }
+
+    /**
+     * Choose between at-least-once and at-most-once counts. When the connection is lost after
+     * the deltas are sent, redis may or may not have applied them. They are added back to be
+     * flushed again if true, which may count them twice, or dropped if false, which may lose
+     * them. True by default.
+     *
+     * @param retryUnacknowledged true to add back the deltas sent without reply
+     */
+    public void setRetryUnacknowledged(boolean retryUnacknowledged) {
+        this.retryUnacknowledged = retryUnacknowledged;
+    }
+
+    /**
+     * Stop the scheduled flush and flush the pending deltas
+     */
+    public void destroy() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * Increase key count by one
+     *
+     * @param key the key
+     */
+    public void incr(String key) {
+        add(key, 1);
+    }
+
+    /**
+     * Decrease key count by one
+     *
+     * @param key the key
+     */
+    public void decr(String key) {
+        add(key, -1);
+    }
+
+    /**
+     * Add the delta to key count
+     *
+     * @param key   the key
+     * @param delta the delta
+     */
+    public void add(String key, long delta) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            Counter created = new Counter();
+            counter = counters.putIfAbsent(key, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        long pending = counter.add(delta);
+        if (counter.retired) {
+            // the counter has been removed by flush, move what may be left to a live one
+            long left = counter.drain();
+            if (left != 0) {
+                add(key, left);
+            }
+            return;
+        }
+        if (Math.abs(pending) * STRIPES >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        flushQuietly();
+                    }
+                });
+            } catch (RuntimeException e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    /**
+     * Get key count, including the local deltas not flushed yet
+     *
+     * @param key the key
+     * @return the count
+     */
+    public Long get(String key) {
+        Long count = jedisTemplate.getAsLong(key);
+        Counter counter = counters.get(key);
+        long pending = counter == null ? 0 : counter.sum();
+        return count == null ? pending : count + pending;
+    }
+
+    /**
+     * Flush the deltas and log the failure
+     */
+    private void flushQuietly() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Fail to flush redis counters, deltas are kept for next flush.", e);
+        }
+    }
+
+    /**
+     * Flush all the pending deltas to redis by pipelined INCRBY. The deltas of a shard which
+     * are not sent are added back to local counters, while those sent without reply are added
+     * back or dropped according to {@link #setRetryUnacknowledged(boolean)}. Idle counters are
+     * removed.
+     */
+    public synchronized void flush() {
+        Map<Pool<Jedis>, Map<String, Long>> shardDeltas = new LinkedHashMap<Pool<Jedis>, Map<String, Long>>();
+        for (Map.Entry<String, Counter> entry : counters.entrySet()) {
+            String key = entry.getKey();
+            Counter counter = entry.getValue();
+            long delta = counter.drain();
+            if (delta == 0) {
+                counter.retired = true;
+                counters.remove(key, counter);
+                delta = counter.drain();
+                if (delta == 0) {
+                    continue;
+                }
+            }
+            Pool<Jedis> pool = jedisTemplate.getPool(key);
+            Map<String, Long> deltas = shardDeltas.get(pool);
+            if (deltas == null) {
+                deltas = new LinkedHashMap<String, Long>();
+                shardDeltas.put(pool, deltas);
+            }
+            deltas.put(key, delta);
+        }
+
+        JedisException failure = null;
+        for (Map.Entry<Pool<Jedis>, Map<String, Long>> entry : shardDeltas.entrySet()) {
+            final Map<String, Long> deltas = entry.getValue();
+            final Map<String, Response<Long>> responses = new LinkedHashMap<String, Response<Long>>();
+            try {
+                jedisTemplate.execute("pipeline", entry.getKey(), new JedisActionNoResult() {
+
+                    @Override
+                    public void action(Jedis jedis) {
+                        Pipeline pipeline = jedis.pipelined();
+                        for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+                            responses.put(delta.getKey(), pipeline.incrBy(delta.getKey(), delta.getValue()));
+                        }
+                        pipeline.sync();
+                    }
+                });
+                for (Map.Entry<String, Response<Long>> response : responses.entrySet()) {
+                    try {
+                        response.getValue().get();
+                    } catch (JedisDataException e) {
+                        logger.error("Fail to flush delta " + deltas.get(response.getKey()) + " of " + response.getKey() + ", it is dropped.", e);
+                    }
+                }
+                List<String> keys = new ArrayList<String>(deltas.keySet());
+                jedisTemplate.invalidate(keys.toArray(new String[keys.size()]));
+            } catch (JedisException e) {
+                for (Map.Entry<String, Long> delta : deltas.entrySet()) {
+                    if (!responses.containsKey(delta.getKey()) || retryUnacknowledged) {
+                        add(delta.getKey(), delta.getValue());
+                    } else {
+                        logger.error("Delta " + delta.getValue() + " of " + delta.getKey() + " may not be flushed, it is dropped.");
+                    }
+                }
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Get the count of cells, the power of two not less than the count of processors
+     *
+     * @return the count of cells
+     */
+    private static int stripes() {
+        int stripes = 1;
+        while (stripes < Runtime.getRuntime().availableProcessors()) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+
+    /**
+     * Local delta of one key, striped by thread to reduce contention
+     */
+    private static class Counter {
+
+        private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+        private volatile boolean retired;
+
+        /**
+         * Add the delta to the cell of current thread
+         *
+         * @param delta the delta
+         * @return the delta of the cell
+         */
+        private long add(long delta) {
+            int index = ((int) Thread.currentThread().getId() & (STRIPES - 1)) * PADDING;
+            return cells.addAndGet(index, delta);
+        }
+
+        /**
+         * @return the sum of all cells
+         */
+        private long sum() {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += cells.get(i * PADDING);
+            }
+            return sum;
+        }
+
+        /**
+         * Take the sum of all cells and reset them
+         *
+         * @return the sum
+         */
+        private long drain() {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; i++) {
+                sum += cells.getAndSet(i * PADDING, 0);
+            }
+            return sum;
+        }
+    }
+
+}
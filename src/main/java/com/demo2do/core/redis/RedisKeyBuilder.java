@@ -0,0 +1,203 @@
+package com.demo2do.core.redis;
+
+import redis.clients.util.SafeEncoder;
+
+/**
+ * Redis key builder, which prefixes every key with namespace
+ * <p/>
+ * The namespace prefix is encoded only once, binary keys are encoded straight into
+ * the final byte array handed to Jedis, without intermediate String or copy.
+ * <p/>
+ * Only the binary keys avoid the String garbage. {@link #build(String)} still concatenates
+ * the prefix, and Jedis encodes the concatenated key again, because the {@link RedisOperations}
+ * methods on string values, hashes, counters, bitmaps and hyperloglogs take String keys only.
+ * {@link GenericRedisSupport} uses binary keys for the codec based set and sorted set methods.
+ *
+ * @author David
+ */
+public class RedisKeyBuilder {
+
+    private static final char SEPARATOR = ':';
+
+    private final String namespace;
+
+    private final String prefix;
+
+    private final byte[] binaryPrefix;
+
+    /**
+     * The constructor using namespace
+     *
+     * @param namespace the namespace
+     */
+    public RedisKeyBuilder(String namespace) {
+        this.namespace = namespace;
+        this.prefix = namespace + SEPARATOR;
+        this.binaryPrefix = SafeEncoder.encode(prefix);
+    }
+
+    /**
+     * @return the namespace
+     */
+    public String getNamespace() {
+        return namespace;
+    }
+
+    /**
+     * build key as namespace:key, for the operations without binary key variant
+     * <p/>
+     * The key is concatenated as String and encoded again by Jedis, prefer
+     * {@link #buildBinary(String)} where a binary operation exists.
+     *
+     * @param key the key
+     * @return the key with namespace
+     */
+    public String build(String key) {
+        return prefix.concat(key);
+    }
+
+    /**
+     * build binary key as namespace:key
+     *
+     * @param key the key
+     * @return the binary key with namespace
+     */
+    public byte[] buildBinary(String key) {
+        byte[] bytes = new byte[binaryPrefix.length + utf8Length(key)];
+        System.arraycopy(binaryPrefix, 0, bytes, 0, binaryPrefix.length);
+        writeUtf8(key, bytes, binaryPrefix.length);
+        return bytes;
+    }
+
+    /**
+     * build structured binary key as namespace:type:id
+     *
+     * @param type the key type
+     * @param id   the id
+     * @return the binary key with namespace
+     */
+    public byte[] buildBinary(String type, String id) {
+        int typeLength = utf8Length(type);
+        byte[] bytes = new byte[binaryPrefix.length + typeLength + 1 + utf8Length(id)];
+        System.arraycopy(binaryPrefix, 0, bytes, 0, binaryPrefix.length);
+        int offset = writeUtf8(type, bytes, binaryPrefix.length);
+        bytes[offset++] = (byte) SEPARATOR;
+        writeUtf8(id, bytes, offset);
+        return bytes;
+    }
+
+    /**
+     * build structured binary key as namespace:type:id
+     *
+     * @param type the key type
+     * @param id   the id
+     * @return the binary key with namespace
+     */
+    public byte[] buildBinary(String type, long id) {
+        if (id == Long.MIN_VALUE) {
+            return buildBinary(type, String.valueOf(id));
+        }
+        int typeLength = utf8Length(type);
+        byte[] bytes = new byte[binaryPrefix.length + typeLength + 1 + digitLength(id)];
+        System.arraycopy(binaryPrefix, 0, bytes, 0, binaryPrefix.length);
+        int offset = writeUtf8(type, bytes, binaryPrefix.length);
+        bytes[offset] = (byte) SEPARATOR;
+        writeDigits(id, bytes, bytes.length);
+        return bytes;
+    }
+
+    /**
+     * Calculate the length of the UTF-8 encoded string
+     *
+     * @param value the string value
+     * @return the length in bytes
+     */
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Write the string as UTF-8 into bytes, unpaired surrogates are written as '?'
+     * the same way as java encoder does
+     *
+     * @param value  the string value
+     * @param bytes  the target bytes
+     * @param offset the start offset
+     * @return the offset after written
+     */
+    private static int writeUtf8(String value, byte[] bytes, int offset) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                bytes[offset++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[offset++] = (byte) (0xC0 | (c >> 6));
+                bytes[offset++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[offset++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[offset++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[offset++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[offset++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                bytes[offset++] = '?';
+            } else {
+                bytes[offset++] = (byte) (0xE0 | (c >> 12));
+                bytes[offset++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[offset++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Calculate the count of decimal characters of the number, sign included
+     *
+     * @param number the number, must not be Long.MIN_VALUE
+     * @return the count of characters
+     */
+    private static int digitLength(long number) {
+        int length = number < 0 ? 2 : 1;
+        long value = Math.abs(number);
+        while (value >= 10) {
+            value /= 10;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Write the decimal characters of the number backwards, ending at the given offset
+     *
+     * @param number the number, must not be Long.MIN_VALUE
+     * @param bytes  the target bytes
+     * @param end    the end offset (exclusive)
+     */
+    private static void writeDigits(long number, byte[] bytes, int end) {
+        long value = Math.abs(number);
+        do {
+            bytes[--end] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+        if (number < 0) {
+            bytes[--end] = '-';
+        }
+    }
+
+}
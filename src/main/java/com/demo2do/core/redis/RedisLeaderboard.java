@@ -0,0 +1,190 @@
+package com.demo2do.core.redis;
+
+import com.demo2do.core.utils.DateUtils;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Leaderboard over redis sorted set, members are ranked by score desc
+ * <p/>
+ * Scores are kept in an all-time board, and in daily buckets as well if enabled. The buckets of
+ * recent days are merged by ZUNIONSTORE on the master into a board which is reused for a short while,
+ * and read from the master as well, since replicas may not have it yet. Ranks and
+ * pages are computed by redis, so only the members shown are read. All the boards of a leaderboard
+ * share the hash tag of its name, which keeps them on the same shard of {@link ShardedJedisTemplate}.
+ *
+ * @author David
+ */
+public class RedisLeaderboard {
+
+    private static final String DAY_PATTERN = "yyyyMMdd";
+
+    private static final int DAY_SECONDS = (int) (DateUtils.DAY_IN_MILLISECOND / 1000);
+
+    private final GenericRedisSupport redisSupport;
+
+    private final String key;
+
+    private int bucketDays;
+
+    private int mergedSeconds = 60;
+
+    /**
+     * The constructor using redis support and the name of leaderboard
+     *
+     * @param redisSupport the redis support
+     * @param name         the name of leaderboard
+     */
+    public RedisLeaderboard(GenericRedisSupport redisSupport, String name) {
+        this.redisSupport = redisSupport;
+        this.key = "leaderboard:{" + name + "}";
+    }
+
+    /**
+     * Enable the daily buckets, which are required by the boards of recent days
+     *
+     * @param bucketDays the days to keep the buckets, 0 to disable
+     */
+    public void setBucketDays(int bucketDays) {
+        this.bucketDays = bucketDays;
+    }
+
+    /**
+     * @param mergedSeconds the seconds to reuse the merged board of recent days, 60 by default
+     */
+    public void setMergedSeconds(int mergedSeconds) {
+        this.mergedSeconds = mergedSeconds;
+    }
+
+    /**
+     * Increase the score of member, in the all-time board and the bucket of today if enabled
+     *
+     * @param member the member
+     * @param delta  the delta of score
+     * @return the all-time score after increased
+     */
+    public Double increment(String member, double delta) {
+        if (bucketDays > 0) {
+            redisSupport.incrementScoreOfSortedSetWithExpire(getBucketKey(new Date()), bucketDays * DAY_SECONDS, member, delta);
+        }
+        return redisSupport.incrementScoreOfSortedSet(key, member, delta);
+    }
+
+    /**
+     * @param member the member
+     * @return the all-time score, or null if the member is not ranked
+     */
+    public Double getScore(String member) {
+        return redisSupport.getScoreOfSortedSet(key, member);
+    }
+
+    /**
+     * @param member the member
+     * @return the all-time rank from 0 for the top, or null if the member is not ranked
+     */
+    public Long getRank(String member) {
+        return redisSupport.getReverseRankOfSortedSet(key, member);
+    }
+
+    /**
+     * @return the count of members ranked
+     */
+    public Long getSize() {
+        return redisSupport.getSizeOfSortedSet(key);
+    }
+
+    /**
+     * @param count the count of members
+     * @return the top members with all-time scores, empty if count is not positive
+     */
+    public List<ScoredMember<String>> getTop(int count) {
+        if (count <= 0) {
+            return Collections.emptyList();
+        }
+        return redisSupport.getReverseScoredMembersForSortedSetByRank(key, 0, count - 1);
+    }
+
+    /**
+     * @param member the member
+     * @param radius the count of members shown above and below the member
+     * @return the members around the member with all-time scores, empty if the member is not ranked
+     */
+    public List<ScoredMember<String>> getAround(String member, int radius) {
+        Long rank = redisSupport.getReverseRankOfSortedSet(key, member);
+        if (rank == null) {
+            return Collections.emptyList();
+        }
+        return redisSupport.getReverseScoredMembersForSortedSetByRank(key, Math.max(rank - radius, 0), rank + radius);
+    }
+
+    /**
+     * @param days  the count of recent days, today included
+     * @param count the count of members
+     * @return the top members with scores summed in recent days, empty if count is not positive
+     */
+    public List<ScoredMember<String>> getTopOfRecentDays(int days, int count) {
+        String recentKey = getRecentKey(days);
+        if (count <= 0) {
+            return Collections.emptyList();
+        }
+        return redisSupport.getReverseScoredMembersForSortedSetByRankFromMaster(recentKey, 0, count - 1);
+    }
+
+    /**
+     * @param member the member
+     * @param days   the count of recent days, today included
+     * @return the rank in recent days from 0 for the top, or null if the member is not ranked
+     */
+    public Long getRankOfRecentDays(String member, int days) {
+        return redisSupport.getReverseRankOfSortedSetFromMaster(getRecentKey(days), member);
+    }
+
+    /**
+     * @param member the member
+     * @param days   the count of recent days, today included
+     * @param radius the count of members shown above and below the member
+     * @return the members around the member with scores summed in recent days, empty if the member is not ranked
+     */
+    public List<ScoredMember<String>> getAroundOfRecentDays(String member, int days, int radius) {
+        String recentKey = getRecentKey(days);
+        Long rank = redisSupport.getReverseRankOfSortedSetFromMaster(recentKey, member);
+        if (rank == null) {
+            return Collections.emptyList();
+        }
+        return redisSupport.getReverseScoredMembersForSortedSetByRankFromMaster(recentKey, Math.max(rank - radius, 0), rank + radius);
+    }
+
+    /**
+     * Get the board merged from the buckets of recent days, merging them if not merged recently.
+     * The board is checked on the master, where it is merged
+     *
+     * @param days the count of recent days, today included
+     * @return the key of merged board
+     */
+    private String getRecentKey(int days) {
+        if (days < 1 || days > bucketDays) {
+            throw new IllegalArgumentException("Days must be between 1 and bucket days " + bucketDays + ".");
+        }
+        Date today = new Date();
+        String recentKey = key + ":recent" + days + ":" + DateUtils.format(today, DAY_PATTERN);
+        if (redisSupport.getSizeOfSortedSetFromMaster(recentKey) == 0) {
+            String[] bucketKeys = new String[days];
+            for (int i = 0; i < days; i++) {
+                bucketKeys[i] = getBucketKey(DateUtils.addDays(today, -i));
+            }
+            redisSupport.storeUnionOfSortedSets(recentKey, mergedSeconds, null, bucketKeys);
+        }
+        return recentKey;
+    }
+
+    /**
+     * @param date the date
+     * @return the key of daily bucket
+     */
+    private String getBucketKey(Date date) {
+        return key + ":" + DateUtils.format(date, DAY_PATTERN);
+    }
+
+}
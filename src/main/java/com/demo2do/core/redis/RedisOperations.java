@@ -0,0 +1,935 @@
+package com.demo2do.core.redis;
+
+import redis.clients.jedis.BitOP;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Redis commands offered by {@link JedisTemplate}, which can also be served by
+ * {@link InMemoryRedisOperations} without a redis server
+ *
+ * @author David
+ */
+public interface RedisOperations {
+
+    /**
+     * 删除key, 如果key存在返回true, 否则返回false。
+     *
+     * @param keys the key
+     */
+    public Boolean del(String... keys);
+
+    /**
+     * 刷新DB
+     */
+    public void flushDB();
+
+    /**
+     * 如果key不存在, 返回null.
+     *
+     * @param key the key
+     */
+    public String get(String key);
+
+    /**
+     * 如果key不存在, 返回null.
+     *
+     * @param key the key
+     */
+    public Long getAsLong(String key);
+
+    /**
+     * 如果key不存在, 返回null.
+     *
+     * @param key the key
+     */
+    public Integer getAsInt(String key);
+
+    /**
+     * 设置key/value
+     *
+     * @param key   the key to set
+     * @param value the value to set
+     */
+    public void set(String key, String value);
+
+    /**
+     * 设置key/value
+     *
+     * @param key     the key to set
+     * @param value   the value to set
+     * @param seconds the seconds
+     */
+    public void setex(String key, String value, int seconds);
+
+    /**
+     * 如果key还不存在则进行设置，返回true，否则返回false.
+     *
+     * @param key   the key to set
+     * @param value the value to set
+     */
+    public Boolean setnx(String key, String value);
+
+    /**
+     * 综合setNX与setEx的效果。
+     *
+     * @param key     the key to set
+     * @param value   the value to set
+     * @param seconds the seconds
+     */
+    public Boolean setnxex(String key, String value, int seconds);
+
+    /**
+     * Increase key count
+     *
+     * @param key the key
+     * @return result
+     */
+    public Long incr(String key);
+
+    /**
+     * Decrease key count
+     *
+     * @param key the key
+     * @return result
+     */
+    public Long decr(String key);
+
+    /**
+     * 设置key/value
+     *
+     * @param key    the key to set
+     * @param values the list values
+     */
+    public void lpush(String key, String... values);
+
+    /**
+     * 获取value
+     *
+     * @param key the key
+     * @return result
+     */
+    public String rpop(String key);
+
+    /**
+     * 返回List长度, key不存在时返回0，key类型不是list时抛出异常
+     *
+     * @param key the key
+     */
+    public Long llen(String key);
+
+    /**
+     * 删除List中的第一个等于value的元素，value不存在或key不存在时返回false
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public Boolean lremOne(String key, String value);
+
+    /**
+     * 删除List中的所有等于value的元素，value不存在或key不存在时返回false
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public Boolean lremAll(String key, String value);
+
+    /**
+     * 在List尾部加入values
+     *
+     * @param key    the key
+     * @param values the list values
+     */
+    public void rpush(String key, String... values);
+
+    /**
+     * 从source尾部弹出元素并加入destination头部, source为空时返回null
+     *
+     * @param source      the source list
+     * @param destination the destination list
+     * @return the element moved
+     */
+    public String rpoplpush(String source, String destination);
+
+    /**
+     * 阻塞版本的rpoplpush, 等待超时时返回null
+     *
+     * @param source         the source list
+     * @param destination    the destination list
+     * @param timeoutSeconds the max seconds to block, 0 to block forever
+     * @return the element moved
+     */
+    public String brpoplpush(String source, String destination, int timeoutSeconds);
+
+    /**
+     * add members to set according to key
+     *
+     * @param key     the key to set
+     * @param members the members to add
+     * @return result
+     */
+    public Boolean sadd(String key, String... members);
+
+    /**
+     * remove the specific member from set
+     *
+     * @param key     the key to set
+     * @param members the members to add
+     * @return result
+     */
+    public Boolean srem(String key, String... members);
+
+    /**
+     * determine the member is in set
+     *
+     * @param key    the key
+     * @param member the member value
+     * @return result
+     */
+    public Boolean sismember(String key, String member);
+
+    /**
+     * return the size of the set
+     *
+     * @param key the key
+     * @return set size
+     */
+    public Long scard(String key);
+
+    /**
+     * return all the members of the set
+     *
+     * @param key the key
+     * @return result
+     */
+    public Set<String> smembers(String key);
+
+    /**
+     * add binary members to set according to key
+     *
+     * @param key     the key to set
+     * @param members the members to add
+     * @return result
+     */
+    public Boolean sadd(byte[] key, byte[]... members);
+
+    /**
+     * remove the specific binary members from set
+     *
+     * @param key     the key to set
+     * @param members the members to remove
+     * @return result
+     */
+    public Boolean srem(byte[] key, byte[]... members);
+
+    /**
+     * return all the binary members of the set
+     *
+     * @param key the key
+     * @return result
+     */
+    public Set<byte[]> smembers(byte[] key);
+
+    /**
+     * incrementally iterate the binary members of the set, return the next cursor and a batch of members
+     *
+     * @param key    the key
+     * @param cursor the cursor returned by last call, or {@link ScanParams#SCAN_POINTER_START_BINARY} to start
+     * @param count  the hint of members count to return
+     * @return result
+     */
+    public ScanResult<byte[]> sscan(byte[] key, byte[] cursor, int count);
+
+    /**
+     * 返回keys的交集, keys需路由到同一节点, ShardedJedisTemplate下keys需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param keys the keys
+     */
+    public Set<String> sinter(String... keys);
+
+    /**
+     * 返回keys的并集, keys需路由到同一节点, ShardedJedisTemplate下keys需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param keys the keys
+     */
+    public Set<String> sunion(String... keys);
+
+    /**
+     * 返回第一个key与其余keys的差集, keys需路由到同一节点, ShardedJedisTemplate下keys需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param keys the keys
+     */
+    public Set<String> sdiff(String... keys);
+
+    /**
+     * 返回binary keys的交集, keys需路由到同一节点, ShardedJedisTemplate下keys需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param keys the binary keys
+     */
+    public Set<byte[]> sinter(byte[]... keys);
+
+    /**
+     * 返回binary keys的并集, keys需路由到同一节点, ShardedJedisTemplate下keys需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param keys the binary keys
+     */
+    public Set<byte[]> sunion(byte[]... keys);
+
+    /**
+     * 返回第一个binary key与其余keys的差集, keys需路由到同一节点, ShardedJedisTemplate下keys需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param keys the binary keys
+     */
+    public Set<byte[]> sdiff(byte[]... keys);
+
+    /**
+     * 将keys的交集存入destination, 并在同一事务中设置过期时间, 返回结果集大小
+     * <p/>
+     * destination与keys需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
+     */
+    public Long sinterstore(String destination, int seconds, String... keys);
+
+    /**
+     * 将keys的并集存入destination, 并在同一事务中设置过期时间, 返回结果集大小
+     * <p/>
+     * destination与keys需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
+     */
+    public Long sunionstore(String destination, int seconds, String... keys);
+
+    /**
+     * 将第一个key与其余keys的差集存入destination, 并在同一事务中设置过期时间, 返回结果集大小
+     * <p/>
+     * destination与keys需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
+     */
+    public Long sdiffstore(String destination, int seconds, String... keys);
+
+    /**
+     * 加入Set并在同一事务中设置过期时间, 一次往返完成, 如果有member被加入返回true
+     *
+     * @param key     the key to set
+     * @param seconds the expire time in seconds, no expire if not positive
+     * @param members the members to add
+     */
+    public Boolean saddAndExpire(String key, int seconds, String... members);
+
+    /**
+     * 加入二进制member到Set并在同一事务中设置过期时间, 一次往返完成, 如果有member被加入返回true
+     *
+     * @param key     the binary key to set
+     * @param seconds the expire time in seconds, no expire if not positive
+     * @param members the binary members to add
+     */
+    public Boolean saddAndExpire(byte[] key, int seconds, byte[]... members);
+
+    /**
+     * 加入Sorted set, 如果member在Set里已存在, 只更新score并返回false, 否则返回true.
+     *
+     * @param key    the key to set
+     * @param member the member to add
+     * @param score  the score to add
+     */
+    public Boolean zadd(String key, String member, double score);
+
+    /**
+     * return the sorted set according to start and end index and ordered asce
+     *
+     * @param key   the key
+     * @param start the start index
+     * @param end   the end index
+     * @return result
+     */
+    public Set<String> zrange(String key, int start, int end);
+
+    /**
+     * return the sorted set according to start and end index and ordered desc
+     *
+     * @param key   the key
+     * @param start the start index
+     * @param end   the end index
+     * @return result
+     */
+    public Set<String> zrevrange(String key, int start, int end);
+
+    /**
+     * 删除sorted set中的元素，成功删除返回true，key或member不存在返回false
+     *
+     * @param key    the key
+     * @param member the member
+     */
+    public Boolean zrem(String key, String member);
+
+    /**
+     * 当key不存在时返回null
+     *
+     * @param key    the key
+     * @param member the member
+     */
+    public Double zscore(String key, String member);
+
+    /**
+     * 返回sorted set长度, key不存在时返回0
+     *
+     * @param key the key
+     * @return the size of set
+     */
+    public Long zcard(String key);
+
+    /**
+     * 加入binary member到Sorted set, 如果member在Set里已存在, 只更新score并返回false, 否则返回true.
+     *
+     * @param key    the key to set
+     * @param member the member to add
+     * @param score  the score to add
+     */
+    public Boolean zadd(byte[] key, byte[] member, double score);
+
+    /**
+     * return the binary sorted set according to start and end index and ordered asce
+     *
+     * @param key   the key
+     * @param start the start index
+     * @param end   the end index
+     * @return result
+     */
+    public Set<byte[]> zrange(byte[] key, int start, int end);
+
+    /**
+     * return the binary sorted set according to start and end index and ordered desc
+     *
+     * @param key   the key
+     * @param start the start index
+     * @param end   the end index
+     * @return result
+     */
+    public Set<byte[]> zrevrange(byte[] key, int start, int end);
+
+    /**
+     * 删除sorted set中的binary元素，成功删除返回true，key或member不存在返回false
+     *
+     * @param key    the key
+     * @param member the member
+     */
+    public Boolean zrem(byte[] key, byte[] member);
+
+    /**
+     * return the members of sorted set whose score is between min and max, ordered asce and paged by offset and count
+     *
+     * @param key    the key
+     * @param min    the min score, inclusive
+     * @param max    the max score, inclusive
+     * @param offset the offset of the first member to return
+     * @param count  the max count of members to return
+     * @return result
+     */
+    public Set<String> zrangeByScore(String key, double min, double max, int offset, int count);
+
+    /**
+     * return the members of sorted set whose score is between max and min, ordered desc and paged by offset and count
+     *
+     * @param key    the key
+     * @param max    the max score, inclusive
+     * @param min    the min score, inclusive
+     * @param offset the offset of the first member to return
+     * @param count  the max count of members to return
+     * @return result
+     */
+    public Set<String> zrevrangeByScore(String key, double max, double min, int offset, int count);
+
+    /**
+     * return the members with scores of sorted set whose score is between min and max, ordered asce and paged
+     *
+     * @param key    the key
+     * @param min    the min score, inclusive
+     * @param max    the max score, inclusive
+     * @param offset the offset of the first member to return
+     * @param count  the max count of members to return
+     * @return result
+     */
+    public Set<Tuple> zrangeByScoreWithScores(String key, double min, double max, int offset, int count);
+
+    /**
+     * return the members with scores of sorted set whose score is between max and min, ordered desc and paged
+     *
+     * @param key    the key
+     * @param max    the max score, inclusive
+     * @param min    the min score, inclusive
+     * @param offset the offset of the first member to return
+     * @param count  the max count of members to return
+     * @return result
+     */
+    public Set<Tuple> zrevrangeByScoreWithScores(String key, double max, double min, int offset, int count);
+
+    /**
+     * return the binary members with scores of sorted set whose score is between min and max, ordered asce and paged
+     *
+     * @param key    the key
+     * @param min    the min score, inclusive
+     * @param max    the max score, inclusive
+     * @param offset the offset of the first member to return
+     * @param count  the max count of members to return
+     * @return result
+     */
+    public Set<Tuple> zrangeByScoreWithScores(byte[] key, double min, double max, int offset, int count);
+
+    /**
+     * return the binary members with scores of sorted set whose score is between max and min, ordered desc and paged
+     *
+     * @param key    the key
+     * @param max    the max score, inclusive
+     * @param min    the min score, inclusive
+     * @param offset the offset of the first member to return
+     * @param count  the max count of members to return
+     * @return result
+     */
+    public Set<Tuple> zrevrangeByScoreWithScores(byte[] key, double max, double min, int offset, int count);
+
+    /**
+     * 删除sorted set中score在min和max之间的元素，返回删除的元素个数
+     *
+     * @param key the key
+     * @param min the min score, inclusive
+     * @param max the max score, inclusive
+     * @return the count of removed members
+     */
+    public Long zremrangeByScore(String key, double min, double max);
+
+    /**
+     * 删除sorted set中排名在start和end之间的元素，返回删除的元素个数
+     *
+     * @param key   the key
+     * @param start the start rank, inclusive, negative means counting from the highest score
+     * @param end   the end rank, inclusive, negative means counting from the highest score
+     * @return the count of removed members
+     */
+    public Long zremrangeByRank(String key, long start, long end);
+
+    /**
+     * incrementally iterate the binary members with scores of the sorted set, return the next cursor
+     * and a batch of members, the members are not ordered by score
+     *
+     * @param key    the key
+     * @param cursor the cursor returned by last call, or {@link ScanParams#SCAN_POINTER_START_BINARY} to start
+     * @param count  the hint of members count to return
+     * @return result
+     */
+    public ScanResult<Tuple> zscan(byte[] key, byte[] cursor, int count);
+
+    /**
+     * 将sorted sets的交集存入destination, score按权重求和, 并在同一事务中设置过期时间, 返回结果集大小
+     * <p/>
+     * destination与keys需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param weights     the weights of keys, null for all 1
+     * @param keys        the keys
+     */
+    public Long zinterstore(String destination, int seconds, int[] weights, String... keys);
+
+    /**
+     * 将sorted sets的并集存入destination, score按权重求和, 并在同一事务中设置过期时间, 返回结果集大小
+     * <p/>
+     * destination与keys需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param weights     the weights of keys, null for all 1
+     * @param keys        the keys
+     */
+    public Long zunionstore(String destination, int seconds, int[] weights, String... keys);
+
+    /**
+     * 加入Sorted set并在同一事务中设置过期时间, 一次往返完成, 如果member在Set里已存在, 只更新score并返回false, 否则返回true.
+     *
+     * @param key     the key to set
+     * @param seconds the expire time in seconds, no expire if not positive
+     * @param member  the member to add
+     * @param score   the score to add
+     */
+    public Boolean zaddAndExpire(String key, int seconds, String member, double score);
+
+    /**
+     * 加入二进制member到Sorted set并在同一事务中设置过期时间, 一次往返完成, 如果member在Set里已存在, 只更新score并返回false, 否则返回true.
+     *
+     * @param key     the binary key to set
+     * @param seconds the expire time in seconds, no expire if not positive
+     * @param member  the binary member to add
+     * @param score   the score to add
+     */
+    public Boolean zaddAndExpire(byte[] key, int seconds, byte[] member, double score);
+
+    /**
+     * 将member的score增加delta, member不存在时加入, 返回增加后的score
+     *
+     * @param key    the key
+     * @param member the member
+     * @param delta  the delta of score
+     */
+    public Double zincrby(String key, String member, double delta);
+
+    /**
+     * 将member的score增加delta并在同一事务中设置过期时间, 一次往返完成, 返回增加后的score
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds, no expire if not positive
+     * @param member  the member
+     * @param delta   the delta of score
+     */
+    public Double zincrbyAndExpire(String key, int seconds, String member, double delta);
+
+    /**
+     * 返回member按score升序的排名, 从0开始, member不存在时返回null
+     *
+     * @param key    the key
+     * @param member the member
+     */
+    public Long zrank(String key, String member);
+
+    /**
+     * 返回member按score降序的排名, 从0开始, member不存在时返回null
+     *
+     * @param key    the key
+     * @param member the member
+     */
+    public Long zrevrank(String key, String member);
+
+    /**
+     * 返回排名在start与end之间的member及score, 按score升序, 负数表示从末尾倒数
+     *
+     * @param key   the key
+     * @param start the start rank
+     * @param end   the end rank
+     */
+    public Set<Tuple> zrangeWithScores(String key, long start, long end);
+
+    /**
+     * 返回排名在start与end之间的member及score, 按score降序, 负数表示从末尾倒数
+     *
+     * @param key   the key
+     * @param start the start rank
+     * @param end   the end rank
+     */
+    public Set<Tuple> zrevrangeWithScores(String key, long start, long end);
+
+    /**
+     * 从master返回sorted set长度, 不经过replica, 用于刚被写入的key. key不存在时返回0
+     *
+     * @param key the key
+     * @return the size of set
+     */
+    public Long zcardFromMaster(String key);
+
+    /**
+     * 从master返回member按score降序的排名, 不经过replica, 用于刚被写入的key. member不存在时返回null
+     *
+     * @param key    the key
+     * @param member the member
+     */
+    public Long zrevrankFromMaster(String key, String member);
+
+    /**
+     * 从master返回排名在start与end之间的member及score, 按score降序, 不经过replica, 用于刚被写入的key
+     *
+     * @param key   the key
+     * @param start the start rank
+     * @param end   the end rank
+     */
+    public Set<Tuple> zrevrangeWithScoresFromMaster(String key, long start, long end);
+
+    /**
+     * set key expire in given seconds time
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @return result
+     */
+    public Long expire(String key, int seconds);
+
+    /**
+     * key已设置过期时间时重置为seconds秒后过期, 永久key保持不变, 重置返回true
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     */
+    public Boolean expireIfVolatile(String key, int seconds);
+
+    /**
+     * return all the members of the set, and reset the expire time
+     * of key in the same round trip if the key has one
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @return result
+     */
+    public Set<String> smembersAndRefresh(String key, int seconds);
+
+    /**
+     * return all the binary members of the set, and reset the expire time
+     * of key in the same round trip if the key has one
+     *
+     * @param key     the binary key
+     * @param seconds the expire time in seconds
+     * @return result
+     */
+    public Set<byte[]> smembersAndRefresh(byte[] key, int seconds);
+
+    /**
+     * return the sorted set according to start and end index and ordered asce, and reset the expire time
+     * of key in the same round trip if the key has one
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @param start   the start index
+     * @param end     the end index
+     * @return result
+     */
+    public Set<String> zrangeAndRefresh(String key, int seconds, int start, int end);
+
+    /**
+     * return the binary sorted set according to start and end index and ordered asce, and reset the expire time
+     * of key in the same round trip if the key has one
+     *
+     * @param key     the binary key
+     * @param seconds the expire time in seconds
+     * @param start   the start index
+     * @param end     the end index
+     * @return result
+     */
+    public Set<byte[]> zrangeAndRefresh(byte[] key, int seconds, int start, int end);
+
+    /**
+     * return the sorted set according to start and end index and ordered desc, and reset the expire time
+     * of key in the same round trip if the key has one
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @param start   the start index
+     * @param end     the end index
+     * @return result
+     */
+    public Set<String> zrevrangeAndRefresh(String key, int seconds, int start, int end);
+
+    /**
+     * return the binary sorted set according to start and end index and ordered desc, and reset the expire time
+     * of key in the same round trip if the key has one
+     *
+     * @param key     the binary key
+     * @param seconds the expire time in seconds
+     * @param start   the start index
+     * @param end     the end index
+     * @return result
+     */
+    public Set<byte[]> zrevrangeAndRefresh(byte[] key, int seconds, int start, int end);
+
+    /**
+     * return the members of sorted set whose score is between min and max, ordered asce and paged by offset and count, and reset the expire time
+     * of key in the same round trip if the key has one
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @param min     the min score, inclusive
+     * @param max     the max score, inclusive
+     * @param offset  the offset of the first member to return
+     * @param count   the max count of members to return
+     * @return result
+     */
+    public Set<String> zrangeByScoreAndRefresh(String key, int seconds, double min, double max, int offset, int count);
+
+    /**
+     * return the members of sorted set whose score is between max and min, ordered desc and paged by offset and count, and reset the expire time
+     * of key in the same round trip if the key has one
+     *
+     * @param key     the key
+     * @param seconds the expire time in seconds
+     * @param max     the max score, inclusive
+     * @param min     the min score, inclusive
+     * @param offset  the offset of the first member to return
+     * @param count   the max count of members to return
+     * @return result
+     */
+    public Set<String> zrevrangeByScoreAndRefresh(String key, int seconds, double max, double min, int offset, int count);
+
+    /**
+     * return the binary members with scores of sorted set whose score is between min and max, ordered asce and paged, and reset the expire time
+     * of key in the same round trip if the key has one
+     *
+     * @param key     the binary key
+     * @param seconds the expire time in seconds
+     * @param min     the min score, inclusive
+     * @param max     the max score, inclusive
+     * @param offset  the offset of the first member to return
+     * @param count   the max count of members to return
+     * @return result
+     */
+    public Set<Tuple> zrangeByScoreWithScoresAndRefresh(byte[] key, int seconds, double min, double max, int offset, int count);
+
+    /**
+     * return the binary members with scores of sorted set whose score is between max and min, ordered desc and paged, and reset the expire time
+     * of key in the same round trip if the key has one
+     *
+     * @param key     the binary key
+     * @param seconds the expire time in seconds
+     * @param max     the max score, inclusive
+     * @param min     the min score, inclusive
+     * @param offset  the offset of the first member to return
+     * @param count   the max count of members to return
+     * @return result
+     */
+    public Set<Tuple> zrevrangeByScoreWithScoresAndRefresh(byte[] key, int seconds, double max, double min, int offset, int count);
+
+    /**
+     * 设置Hash的field, field为新加入时返回true, 更新已有field时返回false
+     *
+     * @param key   the key
+     * @param field the field
+     * @param value the value
+     */
+    public Boolean hset(String key, String field, String value);
+
+    /**
+     * 获取Hash的field, field或key不存在时返回null
+     *
+     * @param key   the key
+     * @param field the field
+     */
+    public String hget(String key, String field);
+
+    /**
+     * 设置Hash的多个field, 不在fields中的已有field保持不变
+     *
+     * @param key    the key
+     * @param fields the fields and values
+     */
+    public void hmset(String key, Map<String, String> fields);
+
+    /**
+     * 获取Hash的多个field, 按fields顺序返回, 不存在的field对应null
+     *
+     * @param key    the key
+     * @param fields the fields
+     */
+    public List<String> hmget(String key, String... fields);
+
+    /**
+     * 获取Hash的所有field, key不存在时返回空Map
+     *
+     * @param key the key
+     */
+    public Map<String, String> hgetAll(String key);
+
+    /**
+     * Increase the field of hash by delta
+     *
+     * @param key   the key
+     * @param field the field
+     * @param delta the delta
+     * @return the value after increased
+     */
+    public Long hincrBy(String key, String field, long delta);
+
+    /**
+     * 删除Hash的fields, 返回实际删除的field数
+     *
+     * @param key    the key
+     * @param fields the fields
+     */
+    public Long hdel(String key, String... fields);
+
+    /**
+     * 在一个事务中设置Hash的多个field并删除另外的fields, 其余field保持不变
+     *
+     * @param key           the key
+     * @param fields        the fields and values to set
+     * @param deletedFields the fields to delete
+     */
+    public void hmsetAndDel(String key, Map<String, String> fields, String... deletedFields);
+
+    /**
+     * 加入HyperLogLog, 基数估计值发生变化时返回true
+     *
+     * @param key      the key
+     * @param elements the elements
+     */
+    public Boolean pfadd(String key, String... elements);
+
+    /**
+     * 返回HyperLogLog的基数估计值, 多个key时返回并集的基数估计值, key不存在时返回0
+     * <p/>
+     * 多个key需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 如按天的key <code>uv:{page}:20140301</code>, 否则抛出JedisException
+     *
+     * @param keys the keys
+     */
+    public Long pfcount(String... keys);
+
+    /**
+     * 将多个HyperLogLog合并存入destination, 并在同一事务中设置过期时间, 返回合并后的基数估计值
+     * <p/>
+     * destination与keys需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
+     */
+    public Long pfmerge(String destination, int seconds, String... keys);
+
+    /**
+     * 设置offset位的值, 返回该位原来的值
+     *
+     * @param key    the key
+     * @param offset the bit offset
+     * @param value  the bit value
+     */
+    public Boolean setbit(String key, long offset, boolean value);
+
+    /**
+     * 返回offset位的值, key不存在或offset超出长度时返回false
+     *
+     * @param key    the key
+     * @param offset the bit offset
+     */
+    public Boolean getbit(String key, long offset);
+
+    /**
+     * 返回值为1的位数
+     *
+     * @param key the key
+     */
+    public Long bitcount(String key);
+
+    /**
+     * 返回start到end字节之间值为1的位数, 负数表示从末尾倒数
+     *
+     * @param key   the key
+     * @param start the start byte, inclusive
+     * @param end   the end byte, inclusive
+     */
+    public Long bitcount(String key, long start, long end);
+
+    /**
+     * 将keys按位运算的结果存入destination, 并在同一事务中设置过期时间, 返回结果的字节长度
+     * <p/>
+     * destination与keys需路由到同一节点, ShardedJedisTemplate下需使用相同的hash tag, 否则抛出JedisException
+     *
+     * @param operation   the bit operation, NOT takes only one key
+     * @param destination the destination key
+     * @param seconds     the expire time in seconds, no expire if not positive
+     * @param keys        the keys
+     */
+    public Long bitop(BitOP operation, String destination, int seconds, String... keys);
+}
@@ -0,0 +1,380 @@
+package com.demo2do.core.redis;
+
+import com.demo2do.core.redis.JedisTemplate.JedisPipelineAction;
+import com.demo2do.core.redis.JedisTemplate.JedisTransactionAction;
+import com.demo2do.core.redis.script.RedisScript;
+import com.demo2do.core.redis.script.RedisScriptRegistry;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Transaction;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reliable consumer of the queue produced by {@link JedisTemplate#lpush(String, String...)}
+ * <p/>
+ * Messages are moved from the queue to the processing list of this consumer by BRPOPLPUSH,
+ * followed by pipelined RPOPLPUSH for the rest of a batch, and handled by a pool of workers in
+ * parallel. A message handled successfully is acked by removing it from the processing list,
+ * a failed one is moved back to the queue. A message whose ack fails stays in the processing
+ * list until recovered, it is not moved back at once. Failures are counted per message, and a message
+ * failed more than the max retries is moved to the dead-letter list instead, so that a poison
+ * message does not come back forever. Messages left in the processing list by a crashed
+ * consumer with the same id are moved back to the queue on {@link #start()}.
+ * <p/>
+ * The processing list, the retry counts and the dead-letter list are named after the queue
+ * key, so that a hash tag in the queue key keeps them all on the same shard.
+ *
+ * @author David
+ */
+public class RedisQueueConsumer {
+
+    private static final Log logger = LogFactory.getLog(RedisQueueConsumer.class);
+
+    private static final long RETRY_INTERVAL = 1000L;
+
+    private static final RedisScript REQUEUE = RedisScriptRegistry.load(RedisScriptRegistry.REQUEUE);
+
+    private final JedisTemplate jedisTemplate;
+
+    private final String queueKey;
+
+    private final MessageHandler messageHandler;
+
+    private String consumerId = "default";
+
+    private int workers = 4;
+
+    private int batchSize = 10;
+
+    private int blockSeconds = 5;
+
+    private int maxRetries = 3;
+
+    private volatile boolean running;
+
+    private ExecutorService executorService;
+
+    private Semaphore permits;
+
+    private Thread poller;
+
+    /**
+     * The constructor using jedis template, queue key and message handler
+     *
+     * @param jedisTemplate  the jedis template
+     * @param queueKey       the key of queue
+     * @param messageHandler the message handler
+     */
+    public RedisQueueConsumer(JedisTemplate jedisTemplate, String queueKey, MessageHandler messageHandler) {
+        this.jedisTemplate = jedisTemplate;
+        this.queueKey = queueKey;
+        this.messageHandler = messageHandler;
+    }
+
+    /**
+     * @param consumerId the id of consumer, which should stay the same across restarts to recover its messages
+     */
+    public void setConsumerId(String consumerId) {
+        this.consumerId = consumerId;
+    }
+
+    /**
+     * @param workers the count of threads handling messages in parallel
+     */
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * @param batchSize the max count of messages popped in one round trip
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param blockSeconds the max seconds to block on an empty queue before checking stop
+     */
+    public void setBlockSeconds(int blockSeconds) {
+        this.blockSeconds = blockSeconds;
+    }
+
+    /**
+     * @param maxRetries the max times a failed message is moved back to queue before moved to dead-letter list
+     */
+    public void setMaxRetries(int maxRetries) {
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * @return the key of processing list of this consumer
+     */
+    public String getProcessingKey() {
+        return queueKey + ":processing:" + consumerId;
+    }
+
+    /**
+     * @return the key of hash counting the failures of messages
+     */
+    public String getRetriesKey() {
+        return queueKey + ":retries";
+    }
+
+    /**
+     * @return the key of dead-letter list, holding the messages failed more than the max retries
+     */
+    public String getDeadLetterKey() {
+        return queueKey + ":dead";
+    }
+
+    /**
+     * Recover the messages left in processing list and start consuming
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        recover();
+        running = true;
+        permits = new Semaphore(workers * 2);
+        executorService = Executors.newFixedThreadPool(workers, new WorkerThreadFactory());
+        poller = new Thread(new PollTask(), "redis-queue-poller-" + queueKey);
+        poller.setDaemon(true);
+        poller.start();
+    }
+
+    /**
+     * Stop consuming and wait for the messages being handled
+     */
+    public synchronized void destroy() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            poller.join(TimeUnit.SECONDS.toMillis(blockSeconds + 1));
+            executorService.shutdown();
+            executorService.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Move all the messages in processing list back to queue
+     *
+     * @return the count of messages recovered
+     */
+    public int recover() {
+        int count = 0;
+        while (jedisTemplate.rpoplpush(getProcessingKey(), queueKey) != null) {
+            count++;
+        }
+        if (count > 0) {
+            logger.warn("Recovered " + count + " unacked messages to queue " + queueKey);
+        }
+        return count;
+    }
+
+    /**
+     * Pop a batch of messages, blocking until the first one arrives
+     *
+     * @param max the max count of messages
+     * @return the messages, empty if the queue stays empty until timeout
+     */
+    private List<String> pop(final int max) {
+        List<String> messages = new ArrayList<String>(max);
+        String first = jedisTemplate.brpoplpush(queueKey, getProcessingKey(), blockSeconds);
+        if (first == null) {
+            return messages;
+        }
+        messages.add(first);
+        if (max > 1) {
+            List<Object> replies = jedisTemplate.executePipelined(queueKey, new JedisPipelineAction() {
+
+                @Override
+                public void action(Pipeline pipeline) {
+                    for (int i = 1; i < max; i++) {
+                        pipeline.rpoplpush(queueKey, getProcessingKey());
+                    }
+                }
+            });
+            for (Object reply : replies) {
+                if (reply != null) {
+                    messages.add((String) reply);
+                }
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Ack the message handled successfully, and clear its failure count
+     *
+     * @param message the message
+     */
+    private void ack(final String message) {
+        jedisTemplate.executeTransaction(queueKey, new JedisTransactionAction() {
+
+            @Override
+            public void action(Transaction transaction) {
+                transaction.lrem(getProcessingKey(), 1, message);
+                transaction.hdel(getRetriesKey(), message);
+            }
+        });
+    }
+
+    /**
+     * Move the failed message back to the tail of queue atomically, or to the dead-letter list
+     * if it has failed more than the max retries
+     *
+     * @param message the message
+     * @return the count of failures, 0 if moved to the dead-letter list, or -1 if not in processing list
+     */
+    private long requeue(String message) {
+        return (Long) jedisTemplate.evalsha(REQUEUE.getSha1(), REQUEUE.getSource(),
+                Arrays.asList(getProcessingKey(), queueKey, getRetriesKey(), getDeadLetterKey()),
+                Arrays.asList(message, String.valueOf(maxRetries)));
+    }
+
+    /**
+     * Handler of the messages consumed from queue
+     */
+    public interface MessageHandler {
+
+        /**
+         * Handle the message, the message is moved back to queue if any exception is thrown, or to
+         * the dead-letter list if it has failed too many times
+         *
+         * @param message the message
+         */
+        void handle(String message) throws Exception;
+    }
+
+    /**
+     * Task popping messages and dispatching them to workers
+     */
+    private class PollTask implements Runnable {
+
+        /* (non-Javadoc)
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+            while (running) {
+                int acquired = 0;
+                try {
+                    permits.acquire();
+                    acquired = 1;
+                    while (acquired < batchSize && permits.tryAcquire()) {
+                        acquired++;
+                    }
+                    List<String> messages = pop(acquired);
+                    permits.release(acquired - messages.size());
+                    acquired = 0;
+                    for (String message : messages) {
+                        executorService.execute(new HandleTask(message));
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    permits.release(acquired);
+                    logger.error("Fail to pop messages from queue " + queueKey, e);
+                    try {
+                        Thread.sleep(RETRY_INTERVAL);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Task handling one message
+     */
+    private class HandleTask implements Runnable {
+
+        private final String message;
+
+        private HandleTask(String message) {
+            this.message = message;
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.Runnable#run()
+         */
+        public void run() {
+            try {
+                try {
+                    messageHandler.handle(message);
+                } catch (Exception e) {
+                    fail(e);
+                    return;
+                }
+                try {
+                    ack(message);
+                } catch (RuntimeException e) {
+                    // handled already, requeue would handle it twice
+                    logger.error("Fail to ack message from queue " + queueKey + ", it stays in "
+                            + getProcessingKey() + " and is recovered on next start.", e);
+                }
+            } finally {
+                permits.release();
+            }
+        }
+
+        /**
+         * Move the message failed to handle back to queue, or to the dead-letter list
+         *
+         * @param e the exception thrown by handler
+         */
+        private void fail(Exception e) {
+            try {
+                long retries = requeue(message);
+                if (retries == 0) {
+                    logger.error("Fail to handle message from queue " + queueKey + " after " + maxRetries
+                            + " retries, move it to " + getDeadLetterKey(), e);
+                } else if (retries < 0) {
+                    logger.error("Fail to handle message from queue " + queueKey + ", it is no longer in "
+                            + getProcessingKey(), e);
+                } else {
+                    logger.error("Fail to handle message from queue " + queueKey + ", requeue it.", e);
+                }
+            } catch (JedisException je) {
+                logger.error("Fail to handle message from queue " + queueKey, e);
+                logger.error("Fail to requeue message, it is recovered on next start.", je);
+            }
+        }
+    }
+
+    /**
+     * Thread factory creating daemon threads for workers
+     */
+    private class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        /* (non-Javadoc)
+         * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+         */
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "redis-queue-worker-" + queueKey + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
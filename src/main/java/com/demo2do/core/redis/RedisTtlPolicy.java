@@ -0,0 +1,68 @@
+package com.demo2do.core.redis;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * TTL policy of the collections written with expire time by {@link GenericRedisSupport}
+ * <p/>
+ * A random jitter is added to every expire time, so that the keys written together do not expire
+ * in the same second and hit the database at once. With sliding refresh enabled, the reads of
+ * {@link GenericRedisSupport} reset the expire time of the keys which have one, in the same round
+ * trip as the read, so that hot keys live on while cold ones expire.
+ *
+ * @author David
+ */
+public class RedisTtlPolicy {
+
+    private double jitterRatio = 0.1;
+
+    private int refreshSeconds;
+
+    /**
+     * @param jitterRatio the max jitter added to expire time as a ratio of it, 0 to disable
+     */
+    public void setJitterRatio(double jitterRatio) {
+        if (jitterRatio < 0) {
+            throw new IllegalArgumentException("Jitter ratio must not be negative.");
+        }
+        this.jitterRatio = jitterRatio;
+    }
+
+    /**
+     * Enable sliding refresh, the refreshing reads go to the master and bypass the near cache
+     *
+     * @param refreshSeconds the expire time in seconds reset on read, 0 to disable
+     */
+    public void setRefreshSeconds(int refreshSeconds) {
+        this.refreshSeconds = refreshSeconds;
+    }
+
+    /**
+     * @return true if the expire time is reset on read
+     */
+    public boolean isSlidingRefresh() {
+        return refreshSeconds > 0;
+    }
+
+    /**
+     * @return the expire time reset on read, with random jitter
+     */
+    public int getRefreshSeconds() {
+        return getSeconds(refreshSeconds);
+    }
+
+    /**
+     * Get the expire time with random jitter
+     *
+     * @param seconds the expire time in seconds, no expire if not positive
+     * @return the expire time in seconds between seconds and seconds * (1 + jitterRatio)
+     */
+    public int getSeconds(int seconds) {
+        int jitter = (int) (seconds * jitterRatio);
+        if (seconds <= 0 || jitter <= 0) {
+            return seconds;
+        }
+        return seconds + ThreadLocalRandom.current().nextInt(jitter + 1);
+    }
+
+}
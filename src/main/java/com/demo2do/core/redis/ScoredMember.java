@@ -0,0 +1,46 @@
+package com.demo2do.core.redis;
+
+/**
+ * Member of sorted set together with its score
+ *
+ * @author David
+ */
+public class ScoredMember<T> {
+
+    private final T member;
+
+    private final double score;
+
+    /**
+     * The constructor using member and score
+     *
+     * @param member the member
+     * @param score  the score
+     */
+    public ScoredMember(T member, double score) {
+        this.member = member;
+        this.score = score;
+    }
+
+    /**
+     * @return the member
+     */
+    public T getMember() {
+        return member;
+    }
+
+    /**
+     * @return the score
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "[" + member + "," + score + "]";
+    }
+}
@@ -0,0 +1,274 @@
+package com.demo2do.core.redis;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.util.Hashing;
+import redis.clients.util.Pool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Jedis模板的分片实现，按key的一致性哈希把命令路由到多个Redis节点
+ * <p/>
+ * When a key contains a hash tag like <code>user:{1001}:friends</code>, only the
+ * content between the first braces is hashed, so that related keys land on the same node.
+ * Multi-key commands, such as set algebra, store commands, pfcount, bitop and scripts, throw
+ * {@link JedisException} unless all their keys are routed to the same node.
+ * Actions without routing key, such as {@link #execute(JedisAction)}, are not supported.
+ *
+ * @author David
+ */
+public class ShardedJedisTemplate extends JedisTemplate {
+
+    private static final int VIRTUAL_NODES = 160;
+
+    private final List<Pool<Jedis>> pools;
+
+    private final TreeMap<Long, Pool<Jedis>> nodes = new TreeMap<Long, Pool<Jedis>>();
+
+    private final Hashing hashing = Hashing.MURMUR_HASH;
+
+    private final ExecutorService executorService;
+
+    /**
+     * The constructor using jedis pools, every pool stands for one shard
+     *
+     * @param pools The Jedis pools
+     */
+    public ShardedJedisTemplate(List<Pool<Jedis>> pools) {
+        if (pools.isEmpty()) {
+            throw new IllegalArgumentException("At least one jedis pool is required.");
+        }
+        this.pools = Collections.unmodifiableList(new ArrayList<Pool<Jedis>>(pools));
+        for (int i = 0; i < pools.size(); i++) {
+            for (int n = 0; n < VIRTUAL_NODES; n++) {
+                nodes.put(hashing.hash("SHARD-" + i + "-NODE-" + n), pools.get(i));
+            }
+        }
+        this.executorService = Executors.newFixedThreadPool(pools.size(), new ShardThreadFactory());
+    }
+
+    /**
+     * Shutdown the executor used by multi-shard operations
+     */
+    public void destroy() {
+        executorService.shutdown();
+    }
+
+    /**
+     * @return the pools of all the shards
+     */
+    public List<Pool<Jedis>> getPools() {
+        return pools;
+    }
+
+    /**
+     * Replicas are not supported, every shard is a single node
+     *
+     * @param replicaPools the pools of the replicas
+     */
+    @Override
+    public void setReplicaPools(List<Pool<Jedis>> replicaPools) {
+        throw new UnsupportedOperationException("Sharded jedis template does not support replicas.");
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisTemplate#getPool()
+     */
+    @Override
+    protected Pool<Jedis> getPool() {
+        throw new UnsupportedOperationException("Sharded jedis template requires a routing key.");
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisTemplate#getPool(java.lang.String)
+     */
+    @Override
+    protected Pool<Jedis> getPool(String key) {
+        int start = key.indexOf('{');
+        if (start >= 0) {
+            int end = key.indexOf('}', start + 1);
+            if (end > start + 1) {
+                return locate(hashing.hash(key.substring(start + 1, end)));
+            }
+        }
+        return locate(hashing.hash(key));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisTemplate#getPool(byte[])
+     */
+    @Override
+    protected Pool<Jedis> getPool(byte[] key) {
+        int start = indexOf(key, (byte) '{', 0);
+        if (start >= 0) {
+            int end = indexOf(key, (byte) '}', start + 1);
+            if (end > start + 1) {
+                return locate(hashing.hash(Arrays.copyOfRange(key, start + 1, end)));
+            }
+        }
+        return locate(hashing.hash(key));
+    }
+
+    /**
+     * Locate the shard on the hash ring
+     *
+     * @param hash the hash of the key
+     * @return the Jedis pool of the shard
+     */
+    private Pool<Jedis> locate(long hash) {
+        SortedMap<Long, Pool<Jedis>> tail = nodes.tailMap(hash);
+        return tail.isEmpty() ? nodes.firstEntry().getValue() : tail.get(tail.firstKey());
+    }
+
+    /**
+     * Find the first index of the byte
+     *
+     * @param bytes the bytes
+     * @param value the byte to find
+     * @param from  the index to start from
+     * @return the index, or -1 if not found
+     */
+    private static int indexOf(byte[] bytes, byte value, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 删除key, 如果key存在返回true, 否则返回false。keys按所在分片拆分后并行删除。
+     *
+     * @param keys the key
+     */
+    @Override
+    public Boolean del(final String... keys) {
+        Map<Pool<Jedis>, List<String>> shardKeys = new LinkedHashMap<Pool<Jedis>, List<String>>();
+        for (String key : keys) {
+            Pool<Jedis> pool = getPool(key);
+            List<String> poolKeys = shardKeys.get(pool);
+            if (poolKeys == null) {
+                poolKeys = new ArrayList<String>();
+                shardKeys.put(pool, poolKeys);
+            }
+            poolKeys.add(key);
+        }
+
+        List<Future<Long>> futures = new ArrayList<Future<Long>>(shardKeys.size());
+        for (final Map.Entry<Pool<Jedis>, List<String>> entry : shardKeys.entrySet()) {
+            futures.add(executorService.submit(new Callable<Long>() {
+
+                @Override
+                public Long call() throws Exception {
+                    return execute("del", entry.getKey(), new JedisAction<Long>() {
+
+                        @Override
+                        public Long action(Jedis jedis) {
+                            List<String> poolKeys = entry.getValue();
+                            return jedis.del(poolKeys.toArray(new String[poolKeys.size()]));
+                        }
+                    });
+                }
+            }));
+        }
+
+        long count = 0;
+        for (Future<Long> future : futures) {
+            count += await(future);
+        }
+        invalidate(keys);
+        return count == 1 ? true : false;
+    }
+
+    /**
+     * 刷新所有分片的DB
+     */
+    @Override
+    public void flushDB() {
+        for (Pool<Jedis> pool : pools) {
+            execute("flushdb", pool, new JedisActionNoResult() {
+
+                @Override
+                public void action(Jedis jedis) {
+                    jedis.flushDB();
+                }
+            });
+        }
+        invalidate(NearCache.CLEAR_ALL);
+    }
+
+    /**
+     * Load the Lua script into script cache of all the shards
+     *
+     * @param script the Lua script
+     * @return the SHA1 digest of script
+     */
+    @Override
+    public String scriptLoad(final String script) {
+        String sha1 = null;
+        for (Pool<Jedis> pool : pools) {
+            sha1 = execute("script", pool, new JedisAction<String>() {
+
+                @Override
+                public String action(Jedis jedis) {
+                    return jedis.scriptLoad(script);
+                }
+            });
+        }
+        return sha1;
+    }
+
+    /**
+     * Wait for the result of an operation on one shard
+     *
+     * @param future the future
+     * @return the result
+     */
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JedisException("Interrupted while waiting for sharded operation.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new JedisException(e.getCause());
+        }
+    }
+
+    /**
+     * Thread factory creating daemon threads for multi-shard operations
+     */
+    private static class ShardThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        /* (non-Javadoc)
+         * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+         */
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "jedis-shard-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,307 @@
+package com.demo2do.core.redis;
+
+import com.demo2do.core.redis.RedisChannelSubscriber.MessageListener;
+import com.demo2do.core.redis.script.RedisScript;
+import com.demo2do.core.utils.JsonUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster-wide "get or compute" on top of {@link JedisTemplate}, which makes sure only one
+ * node recomputes a missing or expired value at a time
+ * <p/>
+ * Values are stored as JSON together with their logical expire time, and kept in redis for
+ * another stale window after it. When the value is stale or missing, the node acquiring the
+ * lease key by SET NX EX recomputes it and publishes the key when done, then releases the lease
+ * by a compare-and-delete script if it still holds it. The other nodes serve the stale copy if
+ * there is one, or else wait for the notification, and compute locally if it does not come in
+ * time. Within one node, concurrent callers of the same key share one load.
+ *
+ * @author David
+ */
+public class SingleFlightLoader {
+
+    private static final Log logger = LogFactory.getLog(SingleFlightLoader.class);
+
+    private static final String LEASE_SUFFIX = ":lease";
+
+    private static final char SEPARATOR = '|';
+
+    private static final RedisScript RELEASE_LEASE = new RedisScript("release-lease",
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end return 0");
+
+    private final JedisTemplate jedisTemplate;
+
+    private int leaseSeconds = 10;
+
+    private int staleSeconds = 60;
+
+    private long waitMillis = 3000L;
+
+    private String channel = "single-flight:loaded";
+
+    private final ConcurrentMap<String, FutureTask<String>> loadings = new ConcurrentHashMap<String, FutureTask<String>>();
+
+    private final ConcurrentMap<String, CountDownLatch> latches = new ConcurrentHashMap<String, CountDownLatch>();
+
+    private volatile RedisChannelSubscriber subscriber;
+
+    /**
+     * The constructor using jedis template
+     *
+     * @param jedisTemplate the jedis template
+     */
+    public SingleFlightLoader(JedisTemplate jedisTemplate) {
+        this.jedisTemplate = jedisTemplate;
+    }
+
+    /**
+     * @param leaseSeconds the max seconds one node holds the right to recompute a key
+     */
+    public void setLeaseSeconds(int leaseSeconds) {
+        this.leaseSeconds = leaseSeconds;
+    }
+
+    /**
+     * @param staleSeconds the seconds an expired value is still kept to be served during recomputing
+     */
+    public void setStaleSeconds(int staleSeconds) {
+        this.staleSeconds = staleSeconds;
+    }
+
+    /**
+     * @param waitMillis the max milliseconds to wait for another node to recompute a missing value
+     */
+    public void setWaitMillis(long waitMillis) {
+        this.waitMillis = waitMillis;
+    }
+
+    /**
+     * @param channel the pub/sub channel used to notify loaded keys
+     */
+    public void setChannel(String channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Get the value of key, or compute and store it if missing or expired
+     *
+     * @param key        the key
+     * @param clazz      the class of value
+     * @param ttlSeconds the seconds the computed value keeps fresh
+     * @param loader     the loader computing the value
+     * @return the value
+     */
+    public <T> T get(final String key, Class<T> clazz, final int ttlSeconds, final ValueLoader<T> loader) {
+        final Envelope envelope = Envelope.parse(jedisTemplate.get(key));
+        if (envelope != null && !envelope.isStale()) {
+            return JsonUtils.parse(envelope.payload, clazz);
+        }
+        if (subscriber == null) {
+            start();
+        }
+
+        FutureTask<String> task = new FutureTask<String>(new Callable<String>() {
+
+            @Override
+            public String call() throws Exception {
+                return load(key, envelope, ttlSeconds, loader);
+            }
+        });
+        FutureTask<String> loading = loadings.putIfAbsent(key, task);
+        if (loading == null) {
+            try {
+                task.run();
+            } finally {
+                loadings.remove(key, task);
+            }
+            loading = task;
+        }
+        return JsonUtils.parse(await(loading), clazz);
+    }
+
+    /**
+     * Evict the value, so that it is recomputed by next get
+     *
+     * @param key the key
+     */
+    public void evict(String key) {
+        jedisTemplate.del(key);
+    }
+
+    /**
+     * Load the value across the cluster
+     *
+     * @param key        the key
+     * @param stale      the stale envelope, or null if missing
+     * @param ttlSeconds the seconds the computed value keeps fresh
+     * @param loader     the loader computing the value
+     * @return the payload
+     */
+    private <T> String load(String key, Envelope stale, int ttlSeconds, ValueLoader<T> loader) {
+        String leaseKey = key + LEASE_SUFFIX;
+        String token = UUID.randomUUID().toString();
+        if (jedisTemplate.setnxex(leaseKey, token, leaseSeconds)) {
+            try {
+                return store(key, ttlSeconds, loader);
+            } finally {
+                jedisTemplate.evalsha(RELEASE_LEASE.getSha1(), RELEASE_LEASE.getSource(),
+                        Collections.singletonList(leaseKey), Collections.singletonList(token));
+            }
+        }
+        if (stale != null) {
+            return stale.payload;
+        }
+
+        CountDownLatch latch = new CountDownLatch(1);
+        CountDownLatch existing = latches.putIfAbsent(key, latch);
+        if (existing != null) {
+            latch = existing;
+        }
+        try {
+            // the value is just stored by the lease holder, a replica may not have it yet
+            Envelope envelope = Envelope.parse(jedisTemplate.getFromMaster(key));
+            if (envelope == null && latch.await(waitMillis, TimeUnit.MILLISECONDS)) {
+                envelope = Envelope.parse(jedisTemplate.getFromMaster(key));
+            }
+            if (envelope != null) {
+                return envelope.payload;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JedisException("Interrupted while waiting for loading of " + key, e);
+        } finally {
+            latches.remove(key, latch);
+        }
+
+        logger.warn("Value of " + key + " is not loaded by lease holder in time, compute locally.");
+        return store(key, ttlSeconds, loader);
+    }
+
+    /**
+     * Compute the value, store it and notify the waiting nodes
+     *
+     * @param key        the key
+     * @param ttlSeconds the seconds the computed value keeps fresh
+     * @param loader     the loader computing the value
+     * @return the payload
+     */
+    private <T> String store(String key, int ttlSeconds, ValueLoader<T> loader) {
+        String payload = JsonUtils.toJsonString(loader.load());
+        long expireAt = System.currentTimeMillis() + ttlSeconds * 1000L;
+        jedisTemplate.setex(key, expireAt + String.valueOf(SEPARATOR) + payload, ttlSeconds + staleSeconds);
+        jedisTemplate.publish(channel, key);
+        return payload;
+    }
+
+    /**
+     * Wait for the load of this node
+     *
+     * @param task the loading task
+     * @return the payload
+     */
+    private static String await(FutureTask<String> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JedisException("Interrupted while waiting for loading.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new JedisException(e.getCause());
+        }
+    }
+
+    /**
+     * Start subscribing the notification channel in a daemon thread
+     */
+    public synchronized void start() {
+        if (subscriber != null) {
+            return;
+        }
+        subscriber = new RedisChannelSubscriber("single-flight-subscriber", jedisTemplate.getPool(channel), channel, new MessageListener() {
+
+            @Override
+            public void onSubscribe() {
+            }
+
+            @Override
+            public void onMessage(String message) {
+                CountDownLatch latch = latches.get(message);
+                if (latch != null) {
+                    latch.countDown();
+                }
+            }
+
+            @Override
+            public void onLost() {
+            }
+        });
+        subscriber.start();
+    }
+
+    /**
+     * Stop subscribing the notification channel
+     */
+    public synchronized void destroy() {
+        if (subscriber != null) {
+            subscriber.destroy();
+        }
+    }
+
+    /**
+     * Loader computing the value when it is missing or expired
+     */
+    public interface ValueLoader<T> {
+
+        T load();
+    }
+
+    /**
+     * Stored value with its logical expire time
+     */
+    private static class Envelope {
+
+        private final long expireAt;
+
+        private final String payload;
+
+        private Envelope(long expireAt, String payload) {
+            this.expireAt = expireAt;
+            this.payload = payload;
+        }
+
+        private boolean isStale() {
+            return expireAt < System.currentTimeMillis();
+        }
+
+        private static Envelope parse(String value) {
+            if (value == null) {
+                return null;
+            }
+            int index = value.indexOf(SEPARATOR);
+            if (index <= 0) {
+                return null;
+            }
+            try {
+                return new Envelope(Long.parseLong(value.substring(0, index)), value.substring(index + 1));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,39 @@
+package com.demo2do.core.redis.codec;
+
+/**
+ * Redis codec compressing the bytes encoded by another codec
+ *
+ * @author David
+ */
+public class CompressingRedisCodec implements RedisCodec {
+
+    private final RedisCodec redisCodec;
+
+    private final DeflateCompressor compressor;
+
+    /**
+     * The constructor using the codec to decorate and the compressor
+     *
+     * @param redisCodec the codec encoding objects to plain bytes
+     * @param compressor the compressor
+     */
+    public CompressingRedisCodec(RedisCodec redisCodec, DeflateCompressor compressor) {
+        this.redisCodec = redisCodec;
+        this.compressor = compressor;
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.codec.RedisCodec#encode(java.lang.Object)
+     */
+    public byte[] encode(Object object) {
+        return compressor.compress(redisCodec.encode(object));
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.codec.RedisCodec#decode(byte[], java.lang.Class)
+     */
+    public <T> T decode(byte[] bytes, Class<T> clazz) {
+        return redisCodec.decode(compressor.decompress(bytes), clazz);
+    }
+
+}
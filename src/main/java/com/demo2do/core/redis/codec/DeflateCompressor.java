@@ -0,0 +1,101 @@
+package com.demo2do.core.redis.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressor of the values stored in redis, using Deflate at a low level
+ * <p/>
+ * Values not smaller than the threshold are compressed and prefixed with the header byte
+ * <code>0xFF</code>, which never appears in UTF-8 encoded json,
+ * so that {@link #decompress(byte[])} can tell compressed values from plain ones. Values which
+ * do not get smaller are kept plain.
+ *
+ * @author David
+ */
+public class DeflateCompressor {
+
+    private static final byte HEADER = (byte) 0xFF;
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private int threshold = 1024;
+
+    private int level = Deflater.BEST_SPEED;
+
+    /**
+     * @param threshold the min bytes of values to compress
+     */
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param level the Deflate level, from 1 for best speed to 9 for best compression
+     */
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    /**
+     * Compress the bytes if not smaller than threshold
+     *
+     * @param bytes the plain bytes
+     * @return the compressed bytes with header, or the plain bytes
+     */
+    public byte[] compress(byte[] bytes) {
+        if (bytes.length < threshold) {
+            return bytes;
+        }
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+            out.write(HEADER);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+                if (out.size() >= bytes.length) {
+                    return bytes;
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decompress the bytes if they start with the header
+     *
+     * @param bytes the bytes read from redis
+     * @return the plain bytes
+     */
+    public byte[] decompress(byte[] bytes) {
+        if (bytes.length == 0 || bytes[0] != HEADER) {
+            return bytes;
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, 1, bytes.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated compressed value.");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupted compressed value.", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.demo2do.core.redis.codec;
+
+import com.demo2do.core.utils.JsonUtils;
+
+/**
+ * Redis codec using UTF-8 encoded json, compatible with the values written as json string
+ * <p/>
+ * Values are always decoded into the requested class, so stored bytes cannot choose the type
+ * to instantiate as a java serialization stream would.
+ *
+ * @author David
+ */
+public class JsonRedisCodec implements RedisCodec {
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.codec.RedisCodec#encode(java.lang.Object)
+     */
+    public byte[] encode(Object object) {
+        return JsonUtils.toJsonBytes(object);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.codec.RedisCodec#decode(byte[], java.lang.Class)
+     */
+    public <T> T decode(byte[] bytes, Class<T> clazz) {
+        return JsonUtils.parse(bytes, clazz);
+    }
+}
@@ -0,0 +1,26 @@
+package com.demo2do.core.redis.codec;
+
+/**
+ * Codec used to convert objects to and from the binary values stored in redis
+ *
+ * @author David
+ */
+public interface RedisCodec {
+
+    /**
+     * encode an object to bytes
+     *
+     * @param object the object to encode
+     * @return the encoded bytes
+     */
+    public byte[] encode(Object object);
+
+    /**
+     * decode bytes to an object of the given class
+     *
+     * @param bytes the bytes to decode
+     * @param clazz the class type
+     * @return the decoded object
+     */
+    public <T> T decode(byte[] bytes, Class<T> clazz);
+}
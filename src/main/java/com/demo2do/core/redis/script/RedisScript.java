@@ -0,0 +1,83 @@
+package com.demo2do.core.redis.script;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Lua script executed on redis, identified by the SHA1 digest of its source
+ *
+ * @author David
+ */
+public class RedisScript {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String name;
+
+    private final String source;
+
+    private final String sha1;
+
+    /**
+     * The constructor using name and source, the SHA1 digest is computed the same way as redis does
+     *
+     * @param name   the name of script
+     * @param source the Lua source
+     */
+    public RedisScript(String name, String source) {
+        this.name = name;
+        this.source = source;
+        this.sha1 = digest(source);
+    }
+
+    /**
+     * Compute the lower case hex SHA1 digest of source
+     *
+     * @param source the Lua source
+     * @return the digest
+     */
+    private static String digest(String source) {
+        try {
+            byte[] bytes = MessageDigest.getInstance("SHA-1").digest(source.getBytes(Charset.forName("UTF-8")));
+            char[] chars = new char[bytes.length * 2];
+            for (int i = 0; i < bytes.length; i++) {
+                chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0f];
+                chars[i * 2 + 1] = HEX[bytes[i] & 0x0f];
+            }
+            return new String(chars);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 is not supported.", e);
+        }
+    }
+
+    /**
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the source
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * @return the sha1
+     */
+    public String getSha1() {
+        return sha1;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return name + "(" + sha1 + ")";
+    }
+
+}
@@ -0,0 +1,201 @@
+package com.demo2do.core.redis.script;
+
+import com.demo2do.core.redis.JedisTemplate;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.StreamUtils;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the Lua scripts loaded from classpath
+ * <p/>
+ * Every <code>*.lua</code> file matching the location pattern is registered under its file name
+ * without extension, and loaded into script cache of redis at startup. Scripts are executed by
+ * EVALSHA, falling back to EVAL when the script cache of server has been flushed.
+ *
+ * @author David
+ */
+public class RedisScriptRegistry implements InitializingBean {
+
+    private static final Log logger = LogFactory.getLog(RedisScriptRegistry.class);
+
+    public static final String COMPARE_AND_SET = "compare-and-set";
+
+    public static final String LREM_AND_PUSH = "lrem-and-push";
+
+    public static final String CAPPED_ZADD = "capped-zadd";
+
+    public static final String REQUEUE = "requeue";
+
+    public static final String EXPIRE_IF_VOLATILE = "expire-if-volatile";
+
+    private static final String LOCATION = "redis/scripts/";
+
+    private static final String EXTENSION = ".lua";
+
+    private JedisTemplate jedisTemplate;
+
+    private String locationPattern = "classpath*:" + LOCATION + "*" + EXTENSION;
+
+    private final Map<String, RedisScript> scripts = new ConcurrentHashMap<String, RedisScript>();
+
+    /**
+     * @param jedisTemplate the jedisTemplate to set
+     */
+    public void setJedisTemplate(JedisTemplate jedisTemplate) {
+        this.jedisTemplate = jedisTemplate;
+    }
+
+    /**
+     * @param locationPattern the resource pattern of Lua scripts to load
+     */
+    public void setLocationPattern(String locationPattern) {
+        this.locationPattern = locationPattern;
+    }
+
+    /* (non-Javadoc)
+     * @see org.springframework.beans.factory.InitializingBean#afterPropertiesSet()
+     */
+    public void afterPropertiesSet() throws Exception {
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources(locationPattern);
+        for (Resource resource : resources) {
+            String filename = resource.getFilename();
+            register(filename.substring(0, filename.length() - EXTENSION.length()), read(resource));
+        }
+    }
+
+    /**
+     * Load the script shipped under <code>redis/scripts</code> of classpath, for the components
+     * running the script without registry
+     *
+     * @param name the name of script
+     * @return the script
+     */
+    public static RedisScript load(String name) {
+        try {
+            return new RedisScript(name, read(new ClassPathResource(LOCATION + name + EXTENSION, RedisScriptRegistry.class.getClassLoader())));
+        } catch (IOException e) {
+            throw new IllegalStateException("Fail to load redis script " + name, e);
+        }
+    }
+
+    /**
+     * Read the source of script
+     *
+     * @param resource the resource
+     * @return the source
+     */
+    private static String read(Resource resource) throws IOException {
+        InputStream inputStream = resource.getInputStream();
+        try {
+            return StreamUtils.copyToString(inputStream, Charset.forName("UTF-8"));
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    /**
+     * Register the script and load it into script cache of redis
+     *
+     * @param name   the name of script
+     * @param source the Lua source
+     * @return the script
+     */
+    public RedisScript register(String name, String source) {
+        RedisScript script = new RedisScript(name, source);
+        scripts.put(name, script);
+        try {
+            jedisTemplate.scriptLoad(source);
+        } catch (JedisException e) {
+            logger.warn("Fail to load script " + script + ", it will be sent by EVAL on first execution.", e);
+        }
+        return script;
+    }
+
+    /**
+     * Get the registered script
+     *
+     * @param name the name of script
+     * @return the script
+     */
+    public RedisScript getScript(String name) {
+        RedisScript script = scripts.get(name);
+        if (script == null) {
+            throw new IllegalArgumentException("Redis script " + name + " is not registered.");
+        }
+        return script;
+    }
+
+    /**
+     * Execute the registered script
+     *
+     * @param name the name of script
+     * @param keys the keys accessed by the script, which should be routed to the same shard
+     * @param args the arguments of the script
+     * @return the reply of the script
+     */
+    public Object execute(String name, List<String> keys, String... args) {
+        RedisScript script = getScript(name);
+        return jedisTemplate.evalsha(script.getSha1(), script.getSource(), keys, Arrays.asList(args));
+    }
+
+    /**
+     * 如果key的当前值等于expected, 设置为value并返回true, 否则返回false
+     *
+     * @param key      the key
+     * @param expected the expected current value
+     * @param value    the new value
+     */
+    public Boolean compareAndSet(String key, String expected, String value) {
+        return Long.valueOf(1).equals(execute(COMPARE_AND_SET, Collections.singletonList(key), expected, value));
+    }
+
+    /**
+     * 如果key的当前值等于expected, 设置为value及过期时间并返回true, 否则返回false
+     *
+     * @param key      the key
+     * @param expected the expected current value
+     * @param value    the new value
+     * @param seconds  the expire time in seconds
+     */
+    public Boolean compareAndSet(String key, String expected, String value, int seconds) {
+        return Long.valueOf(1).equals(execute(COMPARE_AND_SET, Collections.singletonList(key), expected, value, String.valueOf(seconds)));
+    }
+
+    /**
+     * 从source中删除第一个等于value的元素并push到destination头部, value不存在时返回false
+     *
+     * @param source      the source list
+     * @param destination the destination list, which may be the same as source
+     * @param value       the value
+     */
+    public Boolean lremAndPush(String source, String destination, String value) {
+        return Long.valueOf(1).equals(execute(LREM_AND_PUSH, Arrays.asList(source, destination), value));
+    }
+
+    /**
+     * 加入Sorted set并只保留score最高的maxSize个member, 返回裁剪后的大小
+     *
+     * @param key     the key
+     * @param member  the member
+     * @param score   the score
+     * @param maxSize the max size of sorted set
+     */
+    public Long zaddCapped(String key, String member, double score, int maxSize) {
+        return (Long) execute(CAPPED_ZADD, Collections.singletonList(key), String.valueOf(score), member, String.valueOf(maxSize));
+    }
+
+}
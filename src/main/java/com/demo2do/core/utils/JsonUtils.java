@@ -1,6 +1,7 @@
 package com.demo2do.core.utils;
 
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
 import org.apache.commons.io.FileUtils;
 import org.springframework.core.io.Resource;
 
@@ -26,6 +27,16 @@ public abstract class JsonUtils {
         return JSON.toJSONString(object);
     }
 
+    /**
+     * Convert an objct to UTF-8 encoded Json bytes
+     *
+     * @param object
+     * @return
+     */
+    public static byte[] toJsonBytes(Object object) {
+        return JSON.toJSONBytes(object);
+    }
+
     /**
      * Parse Json string to Map
      *
@@ -48,6 +59,49 @@ public abstract class JsonUtils {
         return JSON.parseObject(jsonText, clazz);
     }
 
+    /**
+     * Parse UTF-8 encoded Json bytes to object
+     *
+     * @param jsonBytes
+     * @param clazz
+     * @return
+     */
+    public static <T> T parse(byte[] jsonBytes, Class<T> clazz) {
+        return JSON.parseObject(jsonBytes, clazz);
+    }
+
+    /**
+     * Parse Json string to value, which is a Map, a List or a simple value
+     *
+     * @param jsonText
+     * @return
+     */
+    public static Object parseValue(String jsonText) {
+        return JSON.parse(jsonText);
+    }
+
+    /**
+     * Convert an object to Map of its properties, the nested objects are converted to Map or List
+     *
+     * @param object
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> toMap(Object object) {
+        return (Map<String, Object>) JSON.toJSON(object);
+    }
+
+    /**
+     * Convert Map of properties to object
+     *
+     * @param map
+     * @param clazz
+     * @return
+     */
+    public static <T> T toObject(Map<String, Object> map, Class<T> clazz) {
+        return JSON.toJavaObject(new JSONObject(map), clazz);
+    }
+
     /**
      * Parse Json file to Map
      *
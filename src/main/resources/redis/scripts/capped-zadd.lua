@@ -0,0 +1,7 @@
+-- Add the member to sorted set and trim it to the max size, keeping the members with highest scores
+-- KEYS[1] the sorted set
+-- ARGV[1] the score, ARGV[2] the member, ARGV[3] the max size
+-- returns the size of sorted set after trimming
+redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2])
+redis.call('ZREMRANGEBYRANK', KEYS[1], 0, -tonumber(ARGV[3]) - 1)
+return redis.call('ZCARD', KEYS[1])
@@ -0,0 +1,13 @@
+-- Set the key to the new value only if its current value equals the expected one
+-- KEYS[1] the key
+-- ARGV[1] the expected value, ARGV[2] the new value, ARGV[3] the optional expire seconds
+-- returns 1 if the value is set, otherwise 0
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    if ARGV[3] then
+        redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])
+    else
+        redis.call('SET', KEYS[1], ARGV[2])
+    end
+    return 1
+end
+return 0
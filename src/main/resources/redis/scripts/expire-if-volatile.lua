@@ -0,0 +1,8 @@
+-- Reset the expire time of key only if it has one, so that a permanent key stays permanent
+-- KEYS[1] the key
+-- ARGV[1] the expire time in seconds
+-- returns 1 if the expire time is reset, otherwise 0
+if redis.call('TTL', KEYS[1]) > 0 then
+    return redis.call('EXPIRE', KEYS[1], ARGV[1])
+end
+return 0
@@ -0,0 +1,9 @@
+-- Remove the first occurrence of value from the source list and push it to the head of destination list
+-- KEYS[1] the source list, KEYS[2] the destination list, which may be the same as source
+-- ARGV[1] the value
+-- returns 1 if the value is removed and pushed, otherwise 0
+local removed = redis.call('LREM', KEYS[1], 1, ARGV[1])
+if removed == 1 then
+    redis.call('LPUSH', KEYS[2], ARGV[1])
+end
+return removed
@@ -0,0 +1,17 @@
+-- Move the failed message from the processing list back to the queue like lrem-and-push, counting
+-- its failures, or to the dead-letter list when it has failed more than the max retries
+-- KEYS[1] the processing list, KEYS[2] the queue, KEYS[3] the hash of failure counts, KEYS[4] the dead-letter list
+-- ARGV[1] the message, ARGV[2] the max retries
+-- returns the count of failures, 0 if moved to the dead-letter list, or -1 if not in the processing list
+local removed = redis.call('LREM', KEYS[1], 1, ARGV[1])
+if removed == 0 then
+    return -1
+end
+local retries = redis.call('HINCRBY', KEYS[3], ARGV[1], 1)
+if retries > tonumber(ARGV[2]) then
+    redis.call('HDEL', KEYS[3], ARGV[1])
+    redis.call('LPUSH', KEYS[4], ARGV[1])
+    return 0
+end
+redis.call('LPUSH', KEYS[2], ARGV[1])
+return retries
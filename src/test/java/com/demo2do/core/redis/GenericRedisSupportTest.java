@@ -0,0 +1,222 @@
+package com.demo2do.core.redis;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Behavior of {@link GenericRedisSupport} over {@link InMemoryRedisOperations}
+ *
+ * @author David
+ */
+public class GenericRedisSupportTest {
+
+    private InMemoryRedisOperations redisOperations;
+
+    private GenericRedisSupport redisSupport;
+
+    @Before
+    public void setUp() {
+        redisOperations = new InMemoryRedisOperations();
+        redisSupport = new GenericRedisSupport();
+        redisSupport.setRedisOperations(redisOperations);
+        redisSupport.setNamespace("test");
+    }
+
+    @Test
+    public void keysAreBuiltWithNamespace() {
+        redisSupport.addMembersToSet("tags", "a");
+
+        assertEquals(1L, redisOperations.scard("test:tags").longValue());
+        assertEquals(0L, redisOperations.scard("tags").longValue());
+    }
+
+    @Test
+    public void objectMembersAreEncodedByCodec() {
+        redisSupport.addMembersToSet("users", new User(1L, "alice"), new User(2L, "bob"));
+
+        Set<User> users = redisSupport.getMembersForSet("users", User.class);
+
+        assertEquals(new HashSet<User>(Arrays.asList(new User(1L, "alice"), new User(2L, "bob"))), users);
+    }
+
+    @Test
+    public void scoredMembersAreOrderedByScore() {
+        redisSupport.addMemberToSortedSet("users", new User(1L, "alice"), 2);
+        redisSupport.addMemberToSortedSet("users", new User(2L, "bob"), 1);
+
+        List<ScoredMember<User>> members = redisSupport.getReverseScoredMembersForSortedSet("users", User.class, 10, 0, 0, 10);
+
+        assertEquals(2, members.size());
+        assertEquals("alice", members.get(0).getMember().getName());
+        assertEquals(2, members.get(0).getScore(), 0);
+        assertEquals("bob", members.get(1).getMember().getName());
+    }
+
+    @Test
+    public void iterationOverSetFetchesAllMembersInBatches() {
+        Set<Integer> expected = new HashSet<Integer>();
+        for (int i = 0; i < 25; i++) {
+            redisSupport.addMembersToSet("numbers", (Object) i);
+            expected.add(i);
+        }
+
+        Set<Integer> actual = new HashSet<Integer>();
+        Iterator<Integer> iterator = redisSupport.iterateMembersForSet("numbers", Integer.class, 10);
+        while (iterator.hasNext()) {
+            actual.add(iterator.next());
+        }
+
+        assertEquals(expected, actual);
+        assertFalse(redisSupport.iterateMembersForSet("missing", Integer.class, 10).hasNext());
+    }
+
+    @Test
+    public void scanOverSortedSetHandlesMembersInScoreOrder() {
+        for (int i = 0; i < 25; i++) {
+            redisSupport.addMemberToSortedSet("numbers", (Object) i, 25 - i);
+        }
+
+        final List<Integer> handled = new ArrayList<Integer>();
+        redisSupport.scanMembersForSortedSet("numbers", Integer.class, 10, new GenericRedisSupport.MemberCallback<Integer>() {
+
+            public void handle(Integer member) {
+                handled.add(member);
+            }
+        });
+
+        assertEquals(25, handled.size());
+        assertEquals(24, handled.get(0).intValue());
+        assertEquals(0, handled.get(24).intValue());
+    }
+
+    @Test
+    public void setAlgebraIsComputedUnderNamespace() {
+        redisSupport.addMembersToSet("{tag}:x", "a", "b");
+        redisSupport.addMembersToSet("{tag}:y", "b", "c");
+
+        assertEquals(new HashSet<String>(Arrays.asList("b")), redisSupport.getIntersectionOfSets("{tag}:x", "{tag}:y"));
+        assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c")), redisSupport.getUnionOfSets("{tag}:x", "{tag}:y"));
+        assertEquals(new HashSet<String>(Arrays.asList("a")), redisSupport.getDifferenceOfSets("{tag}:x", "{tag}:y"));
+        assertEquals(3L, redisSupport.storeUnionOfSets("{tag}:all", 0, "{tag}:x", "{tag}:y").longValue());
+        assertEquals(3L, redisOperations.scard("test:{tag}:all").longValue());
+    }
+
+    @Test
+    public void objectIsSavedAsHashFieldByField() {
+        redisSupport.saveAsHash("user:1", new User(1L, "alice"));
+
+        assertEquals(new User(1L, "alice"), redisSupport.getFromHash("user:1", User.class));
+        assertEquals("alice", redisSupport.getFieldFromHash("user:1", "name", String.class));
+
+        redisSupport.saveAsHash("user:1", new User(1L, null));
+
+        Map<String, Object> fields = redisSupport.getFieldsFromHash("user:1", "id", "name");
+        assertEquals(1, ((Number) fields.get("id")).intValue());
+        assertNull(fields.get("name"));
+        assertNull(redisSupport.getFromHash("user:2", User.class));
+    }
+
+    @Test
+    public void refreshExpireKeepsPermanentKeyPermanent() throws Exception {
+        redisSupport.addMembersToSet("permanent", "a");
+        redisSupport.addMembersToSetWithExpire("volatile", 60, "a");
+
+        assertFalse(redisSupport.refreshExpire("permanent", 1));
+        assertTrue(redisSupport.refreshExpire("volatile", 1));
+
+        Thread.sleep(1100);
+
+        assertEquals(1L, redisSupport.getSizeOfSet("permanent").longValue());
+        assertEquals(0L, redisSupport.getSizeOfSet("volatile").longValue());
+    }
+
+    @Test
+    public void readsRefreshExpireWithSlidingRefresh() throws Exception {
+        RedisTtlPolicy ttlPolicy = new RedisTtlPolicy();
+        ttlPolicy.setJitterRatio(0);
+        ttlPolicy.setRefreshSeconds(2);
+        redisSupport.setTtlPolicy(ttlPolicy);
+        redisSupport.addMembersToSetWithExpire("read", 1, "a");
+        redisSupport.addMembersToSetWithExpire("unread", 1, "a");
+
+        Thread.sleep(600);
+        assertEquals(1, redisSupport.getMembersForSet("read").size());
+        Thread.sleep(600);
+
+        assertEquals(1L, redisSupport.getSizeOfSet("read").longValue());
+        assertEquals(0L, redisSupport.getSizeOfSet("unread").longValue());
+    }
+
+    @Test
+    public void readsDoNotRefreshExpireByDefault() throws Exception {
+        redisSupport.addMembersToSetWithExpire("read", 1, "a");
+
+        Thread.sleep(600);
+        assertEquals(1, redisSupport.getMembersForSet("read").size());
+        Thread.sleep(600);
+
+        assertEquals(0L, redisSupport.getSizeOfSet("read").longValue());
+    }
+
+    /**
+     * Member encoded by json codec
+     */
+    public static class User {
+
+        private Long id;
+
+        private String name;
+
+        public User() {
+        }
+
+        public User(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof User)) {
+                return false;
+            }
+            User other = (User) object;
+            return id.equals(other.id) && (name == null ? other.name == null : name.equals(other.name));
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+    }
+
+}
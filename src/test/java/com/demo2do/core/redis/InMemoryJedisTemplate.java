@@ -0,0 +1,107 @@
+package com.demo2do.core.redis;
+
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Jedis template over {@link InMemoryRedisOperations} for the commands used by {@link RedisQueueConsumer},
+ * the queued commands of pipelines and transactions are applied at once
+ *
+ * @author David
+ */
+class InMemoryJedisTemplate extends JedisTemplate {
+
+    private final InMemoryRedisOperations redisOperations;
+
+    /**
+     * The constructor using in-memory operations
+     *
+     * @param redisOperations the in-memory operations
+     */
+    InMemoryJedisTemplate(InMemoryRedisOperations redisOperations) {
+        super(null);
+        this.redisOperations = redisOperations;
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisTemplate#rpoplpush(java.lang.String, java.lang.String)
+     */
+    @Override
+    public String rpoplpush(String source, String destination) {
+        return redisOperations.rpoplpush(source, destination);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisTemplate#brpoplpush(java.lang.String, java.lang.String, int)
+     */
+    @Override
+    public String brpoplpush(String source, String destination, int timeoutSeconds) {
+        return redisOperations.brpoplpush(source, destination, timeoutSeconds);
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisTemplate#executePipelined(java.lang.String, com.demo2do.core.redis.JedisTemplate.JedisPipelineAction)
+     */
+    @Override
+    public List<Object> executePipelined(String routingKey, JedisPipelineAction pipelineAction) {
+        final List<Object> replies = new ArrayList<Object>();
+        pipelineAction.action(new Pipeline() {
+
+            @Override
+            public Response<String> rpoplpush(String source, String destination) {
+                replies.add(redisOperations.rpoplpush(source, destination));
+                return null;
+            }
+        });
+        return replies;
+    }
+
+    /* (non-Javadoc)
+     * @see com.demo2do.core.redis.JedisTemplate#executeTransaction(java.lang.String, com.demo2do.core.redis.JedisTemplate.JedisTransactionAction, java.lang.String[])
+     */
+    @Override
+    public synchronized List<Object> executeTransaction(String routingKey, JedisTransactionAction transactionAction, String... watchKeys) {
+        final List<Object> replies = new ArrayList<Object>();
+        transactionAction.action(new Transaction(null) {
+
+            @Override
+            public Response<Long> lrem(String key, long count, String value) {
+                replies.add(redisOperations.lremOne(key, value) ? 1L : 0L);
+                return null;
+            }
+
+            @Override
+            public Response<Long> hdel(String key, String... fields) {
+                replies.add(redisOperations.hdel(key, fields));
+                return null;
+            }
+        });
+        return replies;
+    }
+
+    /**
+     * Run the requeue script of {@link RedisQueueConsumer}, as redis/scripts/requeue.lua does
+     *
+     * @see com.demo2do.core.redis.JedisTemplate#evalsha(java.lang.String, java.lang.String, java.util.List, java.util.List)
+     */
+    @Override
+    public synchronized Object evalsha(String sha1, String script, List<String> keys, List<String> args) {
+        String message = args.get(0);
+        if (!redisOperations.lremOne(keys.get(0), message)) {
+            return -1L;
+        }
+        long retries = redisOperations.hincrBy(keys.get(2), message, 1);
+        if (retries > Long.parseLong(args.get(1))) {
+            redisOperations.hdel(keys.get(2), message);
+            redisOperations.lpush(keys.get(3), message);
+            return 0L;
+        }
+        redisOperations.lpush(keys.get(1), message);
+        return retries;
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.demo2do.core.redis;
+
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Tuple;
+import redis.clients.util.SafeEncoder;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Behavior of the expire time and the set algebra of {@link InMemoryRedisOperations}
+ *
+ * @author David
+ */
+public class InMemoryRedisOperationsTest {
+
+    private InMemoryRedisOperations redisOperations;
+
+    @Before
+    public void setUp() {
+        redisOperations = new InMemoryRedisOperations();
+    }
+
+    @Test
+    public void keyWrittenWithExpireIsGoneAfterExpire() throws Exception {
+        redisOperations.setex("session", "1", 1);
+        redisOperations.set("user", "1");
+        assertEquals("1", redisOperations.get("session"));
+
+        Thread.sleep(1100);
+
+        assertNull(redisOperations.get("session"));
+        assertEquals("1", redisOperations.get("user"));
+    }
+
+    @Test
+    public void expireSetsTheExpireTimeOfExistingKeyOnly() throws Exception {
+        redisOperations.set("user", "1");
+
+        assertEquals(1L, redisOperations.expire("user", 1).longValue());
+        assertEquals(0L, redisOperations.expire("missing", 1).longValue());
+
+        Thread.sleep(1100);
+
+        assertNull(redisOperations.get("user"));
+    }
+
+    @Test
+    public void expireIfVolatileKeepsPermanentKeyPermanent() {
+        redisOperations.set("permanent", "1");
+        redisOperations.setex("volatile", "1", 60);
+
+        assertFalse(redisOperations.expireIfVolatile("permanent", 1));
+        assertFalse(redisOperations.expireIfVolatile("missing", 1));
+        assertTrue(redisOperations.expireIfVolatile("volatile", 1));
+    }
+
+    @Test
+    public void readAndRefreshKeepsVolatileKeyAlive() throws Exception {
+        redisOperations.saddAndExpire("read", 1, "a", "b");
+        redisOperations.saddAndExpire("unread", 1, "a", "b");
+
+        Thread.sleep(600);
+        assertEquals(new HashSet<String>(Arrays.asList("a", "b")), redisOperations.smembersAndRefresh("read", 2));
+        Thread.sleep(600);
+
+        assertEquals(2L, redisOperations.scard("read").longValue());
+        assertEquals(0L, redisOperations.scard("unread").longValue());
+    }
+
+    @Test
+    public void readAndRefreshKeepsPermanentKeyPermanent() throws Exception {
+        redisOperations.zadd("board", "a", 1);
+
+        assertEquals(1, redisOperations.zrangeAndRefresh("board", 1, 0, -1).size());
+        Thread.sleep(1100);
+
+        assertEquals(1L, redisOperations.zcard("board").longValue());
+    }
+
+    @Test
+    public void setAlgebraOfStringSets() {
+        redisOperations.sadd("{tag}:x", "a", "b", "c");
+        redisOperations.sadd("{tag}:y", "b", "c", "d");
+
+        assertEquals(new HashSet<String>(Arrays.asList("b", "c")), redisOperations.sinter("{tag}:x", "{tag}:y"));
+        assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c", "d")), redisOperations.sunion("{tag}:x", "{tag}:y"));
+        assertEquals(new HashSet<String>(Arrays.asList("a")), redisOperations.sdiff("{tag}:x", "{tag}:y"));
+        assertTrue(redisOperations.sinter("{tag}:x", "{tag}:missing").isEmpty());
+    }
+
+    @Test
+    public void setAlgebraOfBinarySets() {
+        redisOperations.sadd(SafeEncoder.encode("{tag}:x"), SafeEncoder.encode("a"), SafeEncoder.encode("b"));
+        redisOperations.sadd(SafeEncoder.encode("{tag}:y"), SafeEncoder.encode("b"));
+
+        Set<byte[]> result = redisOperations.sinter(SafeEncoder.encode("{tag}:x"), SafeEncoder.encode("{tag}:y"));
+
+        assertEquals(1, result.size());
+        assertEquals("b", SafeEncoder.encode(result.iterator().next()));
+    }
+
+    @Test
+    public void storedSetsReplaceDestinationAndExpire() throws Exception {
+        redisOperations.sadd("{tag}:x", "a", "b");
+        redisOperations.sadd("{tag}:y", "b", "c");
+        redisOperations.sadd("{tag}:dest", "z");
+
+        assertEquals(3L, redisOperations.sunionstore("{tag}:dest", 1, "{tag}:x", "{tag}:y").longValue());
+        assertEquals(new HashSet<String>(Arrays.asList("a", "b", "c")), redisOperations.smembers("{tag}:dest"));
+        assertEquals(1L, redisOperations.sinterstore("{tag}:inter", 0, "{tag}:x", "{tag}:y").longValue());
+        assertEquals(1L, redisOperations.sdiffstore("{tag}:diff", 0, "{tag}:x", "{tag}:y").longValue());
+
+        Thread.sleep(1100);
+
+        assertEquals(0L, redisOperations.scard("{tag}:dest").longValue());
+        assertEquals(1L, redisOperations.scard("{tag}:inter").longValue());
+    }
+
+    @Test
+    public void storedSortedSetsSumScoresByWeights() {
+        redisOperations.zadd("{tag}:x", "a", 1);
+        redisOperations.zadd("{tag}:x", "b", 2);
+        redisOperations.zadd("{tag}:y", "b", 3);
+
+        assertEquals(2L, redisOperations.zunionstore("{tag}:union", 0, new int[]{1, 2}, "{tag}:x", "{tag}:y").longValue());
+        assertEquals(1L, redisOperations.zinterstore("{tag}:inter", 0, null, "{tag}:x", "{tag}:y").longValue());
+
+        Iterator<Tuple> union = redisOperations.zrevrangeWithScores("{tag}:union", 0, -1).iterator();
+        Tuple first = union.next();
+        assertEquals("b", first.getElement());
+        assertEquals(8, first.getScore(), 0);
+        assertEquals(1, union.next().getScore(), 0);
+        assertEquals(5, redisOperations.zscore("{tag}:inter", "b"), 0);
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.demo2do.core.redis;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Behavior of the states of {@link JedisCircuitBreaker}
+ *
+ * @author David
+ */
+public class JedisCircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private JedisCircuitBreaker circuitBreaker;
+
+    @Before
+    public void setUp() {
+        circuitBreaker = new JedisCircuitBreaker();
+        circuitBreaker.setMinimumCalls(10);
+        circuitBreaker.setFailureRateThreshold(50);
+        circuitBreaker.setOpenMillis(200);
+        circuitBreaker.setHalfOpenCalls(2);
+    }
+
+    @Test
+    public void staysClosedBelowMinimumCalls() {
+        record(9, true);
+
+        assertEquals(JedisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void staysClosedBelowFailureRate() {
+        record(6, false);
+        record(4, true);
+
+        assertEquals(JedisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void opensAtFailureRateAndRejectsCalls() {
+        record(5, false);
+        record(5, true);
+
+        assertEquals(JedisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.isOpen());
+        assertFalse(circuitBreaker.tryAcquire());
+        assertEquals(1L, circuitBreaker.getRejectedCount());
+    }
+
+    @Test
+    public void opensAtSlowCallRate() {
+        circuitBreaker.setSlowCallMillis(10);
+        circuitBreaker.setSlowCallRateThreshold(80);
+        for (int i = 0; i < 10; i++) {
+            circuitBreaker.record(TimeUnit.MILLISECONDS.toNanos(20), false);
+        }
+
+        assertEquals(JedisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void closesAfterSuccessfulTrialCalls() throws Exception {
+        record(10, true);
+        Thread.sleep(250);
+
+        assertFalse(circuitBreaker.isOpen());
+        assertTrue(circuitBreaker.tryAcquire());
+        assertEquals(JedisCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        record(2, false);
+
+        assertEquals(JedisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void reopensOnFailedTrialCall() throws Exception {
+        record(10, true);
+        Thread.sleep(250);
+
+        assertTrue(circuitBreaker.tryAcquire());
+        record(1, true);
+
+        assertEquals(JedisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    public void copyIsClosedWithSameSettings() {
+        record(10, true);
+
+        JedisCircuitBreaker copy = circuitBreaker.copy();
+
+        assertEquals(JedisCircuitBreaker.State.CLOSED, copy.getState());
+        for (int i = 0; i < 10; i++) {
+            copy.record(FAST, true);
+        }
+        assertEquals(JedisCircuitBreaker.State.OPEN, copy.getState());
+    }
+
+    /**
+     * Record the outcome of fast calls
+     *
+     * @param count  the count of calls
+     * @param failed whether the calls failed
+     */
+    private void record(int count, boolean failed) {
+        for (int i = 0; i < count; i++) {
+            circuitBreaker.record(FAST, failed);
+        }
+    }
+
+}
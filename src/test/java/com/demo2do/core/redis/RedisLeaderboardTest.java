@@ -0,0 +1,130 @@
+package com.demo2do.core.redis;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Behavior of {@link RedisLeaderboard} over {@link InMemoryRedisOperations}
+ *
+ * @author David
+ */
+public class RedisLeaderboardTest {
+
+    private RedisLeaderboard leaderboard;
+
+    @Before
+    public void setUp() {
+        GenericRedisSupport redisSupport = new GenericRedisSupport();
+        redisSupport.setRedisOperations(new InMemoryRedisOperations());
+        redisSupport.setNamespace("test");
+        leaderboard = new RedisLeaderboard(redisSupport, "game");
+        leaderboard.setBucketDays(7);
+        leaderboard.setMergedSeconds(1);
+    }
+
+    @Test
+    public void membersAreRankedByScoreDesc() {
+        leaderboard.increment("alice", 10);
+        leaderboard.increment("bob", 30);
+        leaderboard.increment("carol", 20);
+        leaderboard.increment("alice", 15);
+
+        assertEquals(25, leaderboard.getScore("alice"), 0);
+        assertEquals(0L, leaderboard.getRank("bob").longValue());
+        assertEquals(1L, leaderboard.getRank("alice").longValue());
+        assertEquals(3L, leaderboard.getSize().longValue());
+        assertNull(leaderboard.getScore("dave"));
+        assertNull(leaderboard.getRank("dave"));
+    }
+
+    @Test
+    public void topReturnsAtMostCountMembers() {
+        leaderboard.increment("alice", 10);
+        leaderboard.increment("bob", 30);
+        leaderboard.increment("carol", 20);
+
+        List<ScoredMember<String>> top = leaderboard.getTop(2);
+
+        assertEquals(2, top.size());
+        assertEquals("bob", top.get(0).getMember());
+        assertEquals(30, top.get(0).getScore(), 0);
+        assertEquals("carol", top.get(1).getMember());
+        assertEquals(3, leaderboard.getTop(10).size());
+    }
+
+    @Test
+    public void topOfNonPositiveCountIsEmpty() {
+        leaderboard.increment("alice", 10);
+
+        assertTrue(leaderboard.getTop(0).isEmpty());
+        assertTrue(leaderboard.getTop(-1).isEmpty());
+        assertTrue(leaderboard.getTopOfRecentDays(1, 0).isEmpty());
+    }
+
+    @Test
+    public void aroundReturnsMembersWithinRadius() {
+        for (int i = 1; i <= 5; i++) {
+            leaderboard.increment("member" + i, i);
+        }
+
+        List<ScoredMember<String>> around = leaderboard.getAround("member3", 1);
+        assertEquals(3, around.size());
+        assertEquals("member4", around.get(0).getMember());
+        assertEquals("member2", around.get(2).getMember());
+
+        List<ScoredMember<String>> top = leaderboard.getAround("member5", 2);
+        assertEquals(3, top.size());
+        assertEquals("member5", top.get(0).getMember());
+
+        assertTrue(leaderboard.getAround("missing", 1).isEmpty());
+    }
+
+    @Test
+    public void recentDaysAreMergedFromDailyBuckets() {
+        leaderboard.increment("alice", 10);
+        leaderboard.increment("bob", 5);
+        leaderboard.increment("bob", 10);
+
+        List<ScoredMember<String>> top = leaderboard.getTopOfRecentDays(7, 10);
+
+        assertEquals(2, top.size());
+        assertEquals("bob", top.get(0).getMember());
+        assertEquals(15, top.get(0).getScore(), 0);
+        assertEquals(0L, leaderboard.getRankOfRecentDays("bob", 7).longValue());
+        assertEquals(2, leaderboard.getAroundOfRecentDays("alice", 7, 1).size());
+        assertNull(leaderboard.getRankOfRecentDays("carol", 7));
+    }
+
+    @Test
+    public void mergedBoardIsReusedUntilExpired() throws Exception {
+        leaderboard.increment("alice", 10);
+        assertEquals(1, leaderboard.getTopOfRecentDays(1, 10).size());
+
+        leaderboard.increment("bob", 20);
+        assertEquals(1, leaderboard.getTopOfRecentDays(1, 10).size());
+
+        Thread.sleep(1100);
+
+        List<ScoredMember<String>> top = leaderboard.getTopOfRecentDays(1, 10);
+        assertEquals(2, top.size());
+        assertEquals("bob", top.get(0).getMember());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void recentDaysBeyondBucketDaysAreRejected() {
+        leaderboard.getTopOfRecentDays(8, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void recentDaysAreRejectedWithoutBuckets() {
+        leaderboard.setBucketDays(0);
+        leaderboard.getRankOfRecentDays("alice", 1);
+    }
+
+}
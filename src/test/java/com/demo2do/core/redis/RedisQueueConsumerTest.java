@@ -0,0 +1,172 @@
+package com.demo2do.core.redis;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Behavior of {@link RedisQueueConsumer} over {@link InMemoryRedisOperations}
+ *
+ * @author David
+ */
+public class RedisQueueConsumerTest {
+
+    private static final String QUEUE = "{jobs}:queue";
+
+    private static final long TIMEOUT = 5000L;
+
+    private InMemoryRedisOperations redisOperations;
+
+    private RedisQueueConsumer consumer;
+
+    @Before
+    public void setUp() {
+        redisOperations = new InMemoryRedisOperations();
+    }
+
+    @After
+    public void tearDown() {
+        if (consumer != null) {
+            consumer.destroy();
+        }
+    }
+
+    @Test
+    public void handledMessagesAreAcked() throws Exception {
+        final Set<String> handled = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        start(new RedisQueueConsumer.MessageHandler() {
+
+            public void handle(String message) {
+                handled.add(message);
+            }
+        });
+
+        for (int i = 0; i < 20; i++) {
+            redisOperations.lpush(QUEUE, "message" + i);
+        }
+
+        awaitLength(consumer.getProcessingKey(), 0);
+        awaitSize(handled, 20);
+        assertEquals(0L, redisOperations.llen(QUEUE).longValue());
+    }
+
+    @Test
+    public void failedMessageIsRetriedThenDeadLettered() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        consumer = new RedisQueueConsumer(new InMemoryJedisTemplate(redisOperations), QUEUE, new RedisQueueConsumer.MessageHandler() {
+
+            public void handle(String message) {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("poison");
+            }
+        });
+        consumer.setBlockSeconds(1);
+        consumer.setMaxRetries(2);
+        consumer.start();
+
+        redisOperations.lpush(QUEUE, "poison");
+
+        awaitLength(consumer.getDeadLetterKey(), 1);
+        assertEquals(3, attempts.get());
+        assertEquals("poison", redisOperations.rpop(consumer.getDeadLetterKey()));
+        assertEquals(0L, redisOperations.llen(QUEUE).longValue());
+        assertEquals(0L, redisOperations.llen(consumer.getProcessingKey()).longValue());
+        assertNull(redisOperations.hget(consumer.getRetriesKey(), "poison"));
+    }
+
+    @Test
+    public void messageSucceededOnRetryIsAckedWithRetriesCleared() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        start(new RedisQueueConsumer.MessageHandler() {
+
+            public void handle(String message) {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IllegalStateException("flaky");
+                }
+            }
+        });
+
+        redisOperations.lpush(QUEUE, "flaky");
+
+        awaitAttempts(attempts, 2);
+        awaitLength(consumer.getProcessingKey(), 0);
+        assertNull(redisOperations.hget(consumer.getRetriesKey(), "flaky"));
+        assertEquals(0L, redisOperations.llen(consumer.getDeadLetterKey()).longValue());
+    }
+
+    @Test
+    public void messagesLeftInProcessingAreRecoveredOnStart() throws Exception {
+        RedisQueueConsumer crashed = new RedisQueueConsumer(new InMemoryJedisTemplate(redisOperations), QUEUE, null);
+        redisOperations.lpush(crashed.getProcessingKey(), "left");
+
+        final Set<String> handled = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        start(new RedisQueueConsumer.MessageHandler() {
+
+            public void handle(String message) {
+                handled.add(message);
+            }
+        });
+
+        awaitSize(handled, 1);
+        assertEquals(new HashSet<String>(Collections.singleton("left")), handled);
+        awaitLength(consumer.getProcessingKey(), 0);
+    }
+
+    @Test
+    public void recoverMovesProcessingMessagesBackToQueue() {
+        consumer = new RedisQueueConsumer(new InMemoryJedisTemplate(redisOperations), QUEUE, null);
+        redisOperations.lpush(consumer.getProcessingKey(), "a", "b");
+
+        assertEquals(2, consumer.recover());
+        assertEquals(2L, redisOperations.llen(QUEUE).longValue());
+        assertEquals(0, consumer.recover());
+        consumer = null;
+    }
+
+    /**
+     * Start the consumer of queue with handler
+     *
+     * @param messageHandler the message handler
+     */
+    private void start(RedisQueueConsumer.MessageHandler messageHandler) {
+        consumer = new RedisQueueConsumer(new InMemoryJedisTemplate(redisOperations), QUEUE, messageHandler);
+        consumer.setBlockSeconds(1);
+        consumer.setBatchSize(5);
+        consumer.start();
+    }
+
+    private void awaitLength(String key, long length) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (redisOperations.llen(key) != length && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(key, length, redisOperations.llen(key).longValue());
+    }
+
+    private void awaitSize(Set<String> set, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (set.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(size, set.size());
+    }
+
+    private void awaitAttempts(AtomicInteger attempts, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (attempts.get() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(attempts.get() >= count);
+    }
+
+}